@@ -0,0 +1,170 @@
+/**
+ * @Author: turk
+ * @Description: Meritve posameznih faz prevajalnika.
+ */
+
+package benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import compiler.frm.Access;
+import compiler.frm.Frame;
+import compiler.frm.FrameEvaluator;
+import compiler.gen.LinCodeGenerator;
+import compiler.gen.Memory;
+import compiler.interpret.Interpreter;
+import compiler.ir.ConstantFolder;
+import compiler.ir.IRCodeGenerator;
+import compiler.ir.chunk.Chunk;
+import compiler.lexer.Lexer;
+import compiler.lexer.TokenBuffer;
+import compiler.parser.Parser;
+import compiler.parser.ast.Ast;
+import compiler.parser.ast.def.Def;
+import compiler.seman.common.NodeDescription;
+import compiler.seman.name.NameChecker;
+import compiler.seman.name.env.FlatSymbolTable;
+import compiler.seman.type.TypeChecker;
+import compiler.seman.type.type.Type;
+
+/**
+ * Vsaka meritev izvede eno fazo prevajalnika nad rezultati prejšnjih
+ * faz, ki jih pripravimo vnaprej, zato meritve faz niso odvisne druga od
+ * druge.
+ *
+ * Programi so v imeniku `bench/corpus/` (glej lastnost `pins.corpus`);
+ * `size` je ime datoteke brez končnice. Hitrost dodeljevanja pomnilnika
+ * izmerimo s profilom `-prof gc`.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xss64m")
+public class PhaseBenchmark {
+    /**
+     * Velikost pomnilnika navideznega stroja.
+     */
+    private static final int MEMORY = 1 << 20;
+
+    @Param({ "small", "medium", "large" })
+    public String size;
+
+    private String source;
+    private TokenBuffer tokens;
+    private Ast ast;
+    private int nodeCount;
+    private NodeDescription<Def> definitions;
+    private NodeDescription<Type> types;
+    private NodeDescription<Frame> frames;
+    private NodeDescription<Access> accesses;
+    private List<Chunk> chunks;
+    private List<Chunk> foldedChunks;
+    private List<Chunk> linearChunks;
+
+    @Setup
+    public void setup() throws IOException {
+        var corpus = System.getProperty("pins.corpus", "bench/corpus");
+        source = Files.readString(Paths.get(corpus, size + ".pins"));
+        tokens = lex();
+        var parser = new Parser(tokens, Optional.empty());
+        ast = parser.parse();
+        nodeCount = parser.nodeCount();
+        definitions = name();
+        types = type();
+        frames = new NodeDescription<>(nodeCount);
+        accesses = new NodeDescription<>(nodeCount);
+        ast.accept(new FrameEvaluator(frames, accesses, definitions, types));
+        chunks = imc();
+        foldedChunks = fold();
+        linearChunks = new LinCodeGenerator(new Memory(MEMORY)).linearize(foldedChunks);
+    }
+
+    @Benchmark
+    public TokenBuffer lex() {
+        return new Lexer(source).scanTokens();
+    }
+
+    @Benchmark
+    public Ast parse() {
+        return new Parser(tokens, Optional.empty()).parse();
+    }
+
+    @Benchmark
+    public NodeDescription<Def> name() {
+        var definitions = new NodeDescription<Def>(nodeCount);
+        ast.accept(new NameChecker(definitions, new FlatSymbolTable()));
+        return definitions;
+    }
+
+    @Benchmark
+    public NodeDescription<Type> type() {
+        var types = new NodeDescription<Type>(nodeCount);
+        ast.accept(new TypeChecker(definitions, types));
+        return types;
+    }
+
+    @Benchmark
+    public NodeDescription<Frame> frame() {
+        var frames = new NodeDescription<Frame>(nodeCount);
+        ast.accept(new FrameEvaluator(frames, new NodeDescription<>(nodeCount), definitions, types));
+        return frames;
+    }
+
+    @Benchmark
+    public List<Chunk> imc() {
+        var generator = new IRCodeGenerator(new NodeDescription<>(nodeCount), frames, accesses, definitions, types);
+        ast.accept(generator);
+        return generator.chunks;
+    }
+
+    @Benchmark
+    public List<Chunk> fold() {
+        return ConstantFolder.fold(chunks);
+    }
+
+    @Benchmark
+    public Optional<Chunk.CodeChunk> lin() {
+        return new LinCodeGenerator(new Memory(MEMORY)).generateCode(foldedChunks);
+    }
+
+    @Benchmark
+    public void interpret(Program program) {
+        new Interpreter(program.memory, Optional.empty()).interpret(program.main);
+    }
+
+    /**
+     * Program, naložen v nov pomnilnik pred vsakim izvajanjem, saj
+     * izvajanje spreminja globalne spremenljivke.
+     */
+    @State(Scope.Thread)
+    public static class Program {
+        Memory memory;
+        Chunk.CodeChunk main;
+
+        @Setup(Level.Invocation)
+        public void load(PhaseBenchmark benchmark) {
+            memory = new Memory(MEMORY);
+            main = new LinCodeGenerator(memory).load(benchmark.linearChunks).orElseThrow();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/**
+ * @Author: turk
+ * @Description: Primerjava implementacij simbolne tabele.
+ */
+
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import compiler.lexer.Position;
+import compiler.parser.ast.def.Def;
+import compiler.parser.ast.def.VarDef;
+import compiler.parser.ast.type.Atom;
+import compiler.seman.name.env.FastSymbolTable;
+import compiler.seman.name.env.FlatSymbolTable;
+import compiler.seman.name.env.SimpleSymbolTable;
+import compiler.seman.name.env.SymbolTable;
+
+/**
+ * Izvede zaporedje operacij, kot ga ustvari razreševanje imen programa z
+ * `functions` funkcijami: vsaka funkcija odpre nivo za parametre in
+ * `depth` gnezdenih nivojev `where`, na vsakem nivoju vstavi nekaj
+ * definicij in poišče imena globalnih, zunanjih in lokalnih definicij.
+ *
+ * Zaporedje je določeno s semenom, zato vse implementacije izvedejo
+ * enake operacije.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SymbolTableBenchmark {
+    private static final byte INSERT = 0;
+    private static final byte LOOKUP = 1;
+    private static final byte PUSH = 2;
+    private static final byte POP = 3;
+
+    private static final int GLOBALS = 256;
+    private static final int DEFINITIONS_PER_SCOPE = 4;
+    private static final int LOOKUPS_PER_SCOPE = 16;
+
+    @Param({ "simple", "fast", "flat" })
+    public String table;
+
+    @Param({ "1000" })
+    public int functions;
+
+    @Param({ "1", "8" })
+    public int depth;
+
+    private Supplier<SymbolTable> factory;
+    private byte[] operations;
+    private Def[] arguments;
+    private int[] nameIds;
+
+    @Setup
+    public void setup() {
+        factory = switch (table) {
+            case "simple" -> SimpleSymbolTable::new;
+            case "fast" -> FastSymbolTable::new;
+            case "flat" -> FlatSymbolTable::new;
+            default -> throw new IllegalArgumentException("Unknown symbol table " + table);
+        };
+
+        var random = new Random(42);
+        var position = new Position(1, 1, 1, 1);
+        var type = Atom.INT(0, position);
+        var operations = new ArrayList<Byte>();
+        var arguments = new ArrayList<Def>();
+        var nameIds = new ArrayList<Integer>();
+        int nextName = 0;
+        for (int i = 0; i < GLOBALS; i++) {
+            operations.add(INSERT);
+            arguments.add(new VarDef(i, position, "g" + i, nextName++, type));
+            nameIds.add(-1);
+        }
+        for (int f = 0; f < functions; f++) {
+            // names of the function are reused by the next one, as in real programs
+            int firstLocal = nextName;
+            for (int level = 0; level <= depth; level++) {
+                operations.add(PUSH);
+                arguments.add(null);
+                nameIds.add(-1);
+                for (int i = 0; i < DEFINITIONS_PER_SCOPE; i++) {
+                    operations.add(INSERT);
+                    arguments.add(new VarDef(0, position, "l" + nextName, nextName++, type));
+                    nameIds.add(-1);
+                }
+                for (int i = 0; i < LOOKUPS_PER_SCOPE; i++) {
+                    operations.add(LOOKUP);
+                    arguments.add(null);
+                    // half of the names are global, the rest are visible locals
+                    nameIds.add(random.nextBoolean()
+                            ? random.nextInt(GLOBALS)
+                            : firstLocal + random.nextInt(nextName - firstLocal));
+                }
+            }
+            for (int level = 0; level <= depth; level++) {
+                operations.add(POP);
+                arguments.add(null);
+                nameIds.add(-1);
+            }
+            nextName = GLOBALS + (f % 16) * (depth + 1) * DEFINITIONS_PER_SCOPE;
+        }
+
+        this.operations = new byte[operations.size()];
+        this.arguments = arguments.toArray(new Def[0]);
+        this.nameIds = new int[nameIds.size()];
+        for (int i = 0; i < this.operations.length; i++) {
+            this.operations[i] = operations.get(i);
+            this.nameIds[i] = nameIds.get(i);
+        }
+    }
+
+    @Benchmark
+    public void resolve(Blackhole blackhole) throws SymbolTable.DefinitionAlreadyExistsException {
+        var symbolTable = factory.get();
+        for (int i = 0; i < operations.length; i++) {
+            switch (operations[i]) {
+                case INSERT -> symbolTable.insert(arguments[i]);
+                case LOOKUP -> blackhole.consume(symbolTable.definitionFor(nameIds[i]));
+                case PUSH -> symbolTable.pushScope();
+                case POP -> symbolTable.popScope();
+                default -> throw new IllegalStateException();
+            }
+        }
+    }
+}
@@ -0,0 +1,497 @@
+/**
+ * @Author: turk
+ * @Description: Generator sintetičnih programov PINS.
+ */
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import ArgPar.Annotation.ParsableArgument;
+import ArgPar.Annotation.ParsableCommand;
+import ArgPar.Annotation.ParsableOption;
+import ArgPar.Exception.ParseException;
+import ArgPar.Parser.ArgumentParser;
+import common.Constants;
+
+/**
+ * Ustvari veljaven (sintaktično in tipsko pravilen) program PINS, ki se
+ * ob izvajanju zaključi. Program je v celoti določen s semenom in
+ * obliko (`Shape`), zato lahko velike vhodne datoteke za meritve
+ * ponovno ustvarimo namesto da jih hranimo.
+ *
+ * Program gradimo po produkcijah slovnice (`docs/grammar.txt`), pri
+ * čemer za vsak izraz vemo, katerega tipa mora biti:
+ *
+ * - definicije: tip `vec` (tabela celih števil), globalne spremenljivke
+ *   in funkcije `f<i>(n: integer, x: integer): integer`;
+ * - vsaka funkcija ima v bloku `where` svoje spremenljivke in gnezdeno
+ *   pomožno funkcijo z enakim podpisom, do globine `depth`;
+ * - parameter `n` je "gorivo": telo funkcije se izvede le, če je `n > 0`,
+ *   vsi klici pa dobijo `n - 1`, zato se vsaka veriga klicev (tudi
+ *   rekurzija) konča;
+ * - zanke imajo konstantne meje, indeksi tabel so vedno znotraj meja in
+ *   delimo le s pozitivnimi konstantami;
+ * - spremenljivke pred prvim branjem vedno nastavimo.
+ *
+ * Funkcije kliče drevo gonilnih funkcij `d<nivo>_<i>` (največ 64 klicev
+ * na funkcijo), ki ga kliče `main`, zato zaporedja v programu ostanejo
+ * kratka tudi pri zelo velikem številu funkcij. Program zapisujemo
+ * sproti, zato je velikost omejena le z diskom.
+ *
+ * Uporaba: `ProgramGenerator <izhodna datoteka> [--seed s] [--functions n] ...`.
+ */
+public class ProgramGenerator {
+    /**
+     * Največje število klicev v gonilni funkciji.
+     */
+    private static final int FAN_OUT = 64;
+
+    /**
+     * Število globalnih celoštevilskih spremenljivk in tabel.
+     */
+    private static final int GLOBAL_INTEGERS = 4;
+    private static final int GLOBAL_ARRAYS = 2;
+
+    /**
+     * Število lokalnih celoštevilskih spremenljivk in števcev zank na
+     * posamezni funkciji (največja gnezdenost zank).
+     */
+    private static final int LOCALS = 3;
+    private static final int MAX_LOOP_NESTING = 2;
+
+    /**
+     * Največja gnezdenost pogojnih stavkov.
+     */
+    private static final int MAX_CONDITIONAL_NESTING = 2;
+
+    /**
+     * Število obhodov zanke `while`.
+     */
+    private static final int WHILE_ITERATIONS = 4;
+
+    /**
+     * Oblika programa.
+     */
+    @ParsableCommand(commandName = "ProgramGenerator", description = "Generator sintetičnih programov PINS")
+    public static class Shape {
+        /**
+         * Izhodna datoteka.
+         */
+        @ParsableArgument
+        public String output;
+
+        /**
+         * Seme generatorja naključnih števil.
+         */
+        @ParsableOption(name = "--seed")
+        public int seed = 42;
+
+        /**
+         * Število funkcij na najvišjem nivoju.
+         */
+        @ParsableOption(name = "--functions")
+        public int functions = 100;
+
+        /**
+         * Globina gnezdenja blokov `where` s pomožnimi funkcijami.
+         */
+        @ParsableOption(name = "--depth")
+        public int depth = 1;
+
+        /**
+         * Število stavkov v telesu funkcije.
+         */
+        @ParsableOption(name = "--statements")
+        public int statements = 6;
+
+        /**
+         * Število operandov aritmetičnega izraza.
+         */
+        @ParsableOption(name = "--expression-length")
+        public int expressionLength = 4;
+
+        /**
+         * Število elementov tabel.
+         */
+        @ParsableOption(name = "--array-size")
+        public int arraySize = 16;
+
+        /**
+         * Verjetnost (v odstotkih), da je stavek zanka.
+         */
+        @ParsableOption(name = "--loop-density")
+        public int loopDensity = 20;
+
+        /**
+         * Verjetnost (v odstotkih), da funkcija kliče sama sebe.
+         */
+        @ParsableOption(name = "--recursion")
+        public int recursion = 20;
+
+        /**
+         * Gorivo, s katerim `main` kliče funkcije (največja dolžina verige
+         * klicev).
+         */
+        @ParsableOption(name = "--fuel")
+        public int fuel = 2;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Shape shape;
+        try {
+            // the command name is implied
+            var arguments = new String[args.length + 1];
+            arguments[0] = "ProgramGenerator";
+            System.arraycopy(args, 0, arguments, 1, args.length);
+            shape = new ArgumentParser<Shape>(Shape.class).parse(arguments);
+        } catch (ParseException __) {
+            System.exit(2);
+            return;
+        }
+        try (var out = Files.newBufferedWriter(Paths.get(shape.output))) {
+            new ProgramGenerator(shape, out).generate();
+        }
+    }
+
+    private final Shape shape;
+    private final Random random;
+    private final Writer out;
+
+    /**
+     * Števec pomožnih funkcij (za enolična imena).
+     */
+    private int helpers = 0;
+
+    public ProgramGenerator(Shape shape, Writer out) {
+        this.shape = shape;
+        this.random = new Random(shape.seed);
+        this.out = out instanceof BufferedWriter ? out : new BufferedWriter(out);
+    }
+
+    /**
+     * Zapiše program.
+     */
+    public void generate() throws IOException {
+        try {
+            emit("typ vec: arr[" + Math.max(shape.arraySize, 1) + "] integer;\n");
+            for (int i = 0; i < GLOBAL_INTEGERS; i++) {
+                emit("var g" + i + ": integer;\n");
+            }
+            for (int i = 0; i < GLOBAL_ARRAYS; i++) {
+                emit("var a" + i + ": vec;\n");
+            }
+            int functions = Math.max(shape.functions, 1);
+            for (int i = 0; i < functions; i++) {
+                function("f" + i, 0, 0, List.of());
+                emit(";\n");
+            }
+            String root = drivers(functions);
+            main(root);
+            out.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // ----------------------------
+
+    /**
+     * Spremenljivke, vidne v telesu funkcije na nivoju `level`.
+     */
+    private class Scope {
+        final int level;
+        final String fuel;
+        final List<String> integers = new ArrayList<>();
+        final List<String> callees = new ArrayList<>();
+        final List<String> loopCounters = new ArrayList<>();
+        String arrayIndex = null;
+
+        Scope(int level, String fuel) {
+            this.level = level;
+            this.fuel = fuel;
+        }
+    }
+
+    /**
+     * `fun name(n: integer, x: integer): integer = ( ... ) { where ... }`
+     *
+     * @param outer Spremenljivke zunanjih funkcij, ki jih funkcija le bere.
+     */
+    private void function(String name, int level, int nesting, List<String> outer) {
+        String fuel = "n" + level;
+        String value = "x" + level;
+        String result = "r" + level;
+        String flag = "b" + level;
+        String helper = level < shape.depth ? "h" + (helpers++) + "_" + (level + 1) : null;
+
+        var scope = new Scope(level, fuel);
+        scope.integers.add(value);
+        scope.integers.add(result);
+        for (int i = 0; i < LOCALS; i++) {
+            scope.integers.add("v" + level + "_" + i);
+        }
+        var own = List.copyOf(scope.integers);
+        for (int i = 0; i < GLOBAL_INTEGERS; i++) {
+            scope.integers.add("g" + i);
+        }
+        scope.integers.addAll(outer);
+        if (helper != null) {
+            scope.callees.add(helper);
+        }
+        if (random.nextInt(100) < shape.recursion) {
+            scope.callees.add(name);
+        }
+        scope.callees.add("f" + random.nextInt(Math.max(shape.functions, 1)));
+
+        emit("fun " + name + "(" + fuel + ": integer, " + value + ": integer): integer = (\n");
+        indent(nesting + 1);
+        emit("{ " + result + " = " + value + " }");
+        for (int i = 0; i < LOCALS; i++) {
+            emit(", { v" + level + "_" + i + " = " + value + " + " + random.nextInt(100) + " }");
+        }
+        emit(", { " + flag + " = " + value + " > " + random.nextInt(100) + " },\n");
+        indent(nesting + 1);
+        emit("{ if " + fuel + " > 0 then (\n");
+        int statements = Math.max(shape.statements, 1);
+        for (int i = 0; i < statements; i++) {
+            indent(nesting + 2);
+            if (i == 0 && helper != null) {
+                // the helper is always called, so every nesting level is live
+                emit("{ " + result + " = " + result + " + " + helper + "(" + fuel + " - 1, " + value + ") }");
+            } else {
+                statement(scope, flag, nesting + 2, 0);
+            }
+            emit(i + 1 < statements ? ",\n" : "\n");
+        }
+        indent(nesting + 1);
+        emit(") },\n");
+        indent(nesting + 1);
+        emit(result + "\n");
+        indent(nesting);
+        emit(") { where\n");
+        indent(nesting + 1);
+        emit("var " + result + ": integer; var " + flag + ": logical");
+        for (int i = 0; i < LOCALS; i++) {
+            emit("; var v" + level + "_" + i + ": integer");
+        }
+        for (int i = 0; i < MAX_LOOP_NESTING; i++) {
+            emit("; var k" + level + "_" + i + ": integer; var w" + level + "_" + i + ": integer");
+        }
+        if (helper != null) {
+            emit(";\n");
+            indent(nesting + 1);
+            var visible = new ArrayList<>(own);
+            visible.addAll(outer);
+            function(helper, level + 1, nesting + 1, visible);
+        }
+        emit("\n");
+        indent(nesting);
+        emit("}");
+    }
+
+    /**
+     * Stavek: prirejanje, pogojni stavek, zanka ali izpis.
+     */
+    private void statement(Scope scope, String flag, int nesting, int loops) {
+        statement(scope, flag, nesting, loops, 0);
+    }
+
+    private void statement(Scope scope, String flag, int nesting, int loops, int conditionals) {
+        if (loops < MAX_LOOP_NESTING && random.nextInt(100) < shape.loopDensity) {
+            loop(scope, flag, nesting, loops);
+            return;
+        }
+        int roll = random.nextInt(100);
+        if (roll < 15 && conditionals < MAX_CONDITIONAL_NESTING) {
+            emit("{ if " + logical(scope, flag, 2) + " then ");
+            statement(scope, flag, nesting, loops, conditionals + 1);
+            emit(" else ");
+            statement(scope, flag, nesting, loops, conditionals + 1);
+            emit(" }");
+        } else if (roll < 20) {
+            emit(Constants.printIntLabel + "(" + integer(scope, loops) + ")");
+        } else if (roll < 25) {
+            emit("{ " + flag + " = " + logical(scope, flag, 2) + " }");
+        } else if (roll < 35) {
+            emit("{ " + array() + "[" + index(scope) + "] = " + integer(scope, loops) + " }");
+        } else {
+            // the result and the locals are assigned, parameters and counters are not
+            var target = scope.integers.get(1 + random.nextInt(LOCALS + 1));
+            emit("{ " + target + " = " + integer(scope, loops) + " }");
+        }
+    }
+
+    /**
+     * Zanka `for` po indeksih tabele ali zanka `while` z omejenim
+     * številom obhodov.
+     */
+    private void loop(Scope scope, String flag, int nesting, int loops) {
+        if (random.nextBoolean()) {
+            String counter = "k" + scope.level + "_" + loops;
+            emit("{ for " + counter + " = 0, " + Math.max(shape.arraySize, 1) + ", 1: (\n");
+            String outerIndex = scope.arrayIndex;
+            scope.arrayIndex = counter;
+            scope.loopCounters.add(counter);
+            body(scope, flag, nesting, loops + 1);
+            scope.loopCounters.remove(scope.loopCounters.size() - 1);
+            scope.arrayIndex = outerIndex;
+        } else {
+            String counter = "w" + scope.level + "_" + loops;
+            emit("({ " + counter + " = 0 }, { while " + counter + " < " + WHILE_ITERATIONS + ": (\n");
+            scope.loopCounters.add(counter);
+            body(scope, flag, nesting, loops + 1);
+            scope.loopCounters.remove(scope.loopCounters.size() - 1);
+            indent(nesting + 1);
+            emit(", { " + counter + " = " + counter + " + 1 }\n");
+            indent(nesting);
+            emit(") })");
+            return;
+        }
+        indent(nesting);
+        emit(") }");
+    }
+
+    private void body(Scope scope, String flag, int nesting, int loops) {
+        int statements = 1 + random.nextInt(2);
+        for (int i = 0; i < statements; i++) {
+            indent(nesting + 1);
+            statement(scope, flag, nesting + 1, loops);
+            emit(i + 1 < statements ? ",\n" : "\n");
+        }
+    }
+
+    /**
+     * Celoštevilski izraz z `expressionLength` operandi.
+     */
+    private String integer(Scope scope, int loops) {
+        int length = Math.max(shape.expressionLength, 1);
+        var expr = new StringBuilder(operand(scope, loops));
+        for (int i = 1; i < length; i++) {
+            expr.append(switch (random.nextInt(4)) {
+                case 0 -> " + ";
+                case 1 -> " - ";
+                case 2 -> " * ";
+                default -> " + ";
+            });
+            expr.append(operand(scope, loops));
+        }
+        return expr.toString();
+    }
+
+    private String operand(Scope scope, int loops) {
+        int roll = random.nextInt(100);
+        if (roll < 20) {
+            return Integer.toString(random.nextInt(100));
+        } else if (roll < 30) {
+            return array() + "[" + index(scope) + "]";
+        } else if (roll < 35 && loops == 0) {
+            // calls are not made inside loops, so the work of a call stays bounded
+            var callee = scope.callees.get(random.nextInt(scope.callees.size()));
+            return callee + "(" + scope.fuel + " - 1, " + variable(scope) + ")";
+        } else if (roll < 40) {
+            return "(" + variable(scope) + " / " + (1 + random.nextInt(9)) + ")";
+        } else if (roll < 45) {
+            return "(" + variable(scope) + " % " + (1 + random.nextInt(9)) + ")";
+        } else if (roll < 50) {
+            return "-" + variable(scope);
+        } else if (roll < 55 && !scope.loopCounters.isEmpty()) {
+            return scope.loopCounters.get(random.nextInt(scope.loopCounters.size()));
+        }
+        return variable(scope);
+    }
+
+    /**
+     * Logični izraz: primerjave, povezane z `&`, `|` in `!`.
+     */
+    private String logical(Scope scope, String flag, int depth) {
+        int roll = random.nextInt(100);
+        if (depth == 0 || roll < 50) {
+            String[] comparisons = { "==", "!=", "<", "<=", ">", ">=" };
+            return variable(scope) + " " + comparisons[random.nextInt(comparisons.length)] + " " + random.nextInt(100);
+        } else if (roll < 65) {
+            return "(" + logical(scope, flag, depth - 1) + " & " + logical(scope, flag, depth - 1) + ")";
+        } else if (roll < 80) {
+            return "(" + logical(scope, flag, depth - 1) + " | " + logical(scope, flag, depth - 1) + ")";
+        } else if (roll < 90) {
+            return "!" + flag;
+        }
+        return random.nextBoolean() ? flag : "true";
+    }
+
+    private String variable(Scope scope) {
+        return scope.integers.get(random.nextInt(scope.integers.size()));
+    }
+
+    private String array() {
+        return "a" + random.nextInt(GLOBAL_ARRAYS);
+    }
+
+    private String index(Scope scope) {
+        return scope.arrayIndex != null && random.nextBoolean()
+                ? scope.arrayIndex
+                : Integer.toString(random.nextInt(Math.max(shape.arraySize, 1)));
+    }
+
+    /**
+     * Zapiše drevo gonilnih funkcij za `functions` funkcij in vrne ime
+     * korena.
+     */
+    private String drivers(int functions) {
+        var callees = new ArrayList<String>(functions);
+        for (int i = 0; i < functions; i++) {
+            callees.add("f" + i + "(" + shape.fuel + ", x)");
+        }
+        int level = 0;
+        do {
+            var drivers = new ArrayList<String>();
+            for (int first = 0; first < callees.size(); first += FAN_OUT) {
+                String name = "d" + level + "_" + drivers.size();
+                emit("fun " + name + "(x: integer): integer = (\n    { s = 0 }");
+                for (int i = first; i < Math.min(first + FAN_OUT, callees.size()); i++) {
+                    emit(",\n    { s = s + " + callees.get(i) + " % 1000 }");
+                }
+                emit(",\n    s\n) { where var s: integer };\n");
+                drivers.add(name + "(x)");
+            }
+            callees = drivers;
+            level++;
+        } while (callees.size() > 1);
+        return callees.get(0);
+    }
+
+    /**
+     * `main` nastavi globalne spremenljivke in pokliče koren gonilnih
+     * funkcij.
+     */
+    private void main(String root) {
+        emit("fun main(x: integer): integer = (\n");
+        for (int i = 0; i < GLOBAL_INTEGERS; i++) {
+            emit("    { g" + i + " = x + " + i + " },\n");
+        }
+        for (int i = 0; i < GLOBAL_ARRAYS; i++) {
+            emit("    { for i = 0, " + Math.max(shape.arraySize, 1) + ", 1: { a" + i + "[i] = i * " + (i + 1) + " } },\n");
+        }
+        emit("    { r = " + root + " },\n");
+        emit("    " + Constants.printIntLabel + "(r)\n");
+        emit(") { where var r: integer; var i: integer }\n");
+    }
+
+    private void indent(int nesting) {
+        emit("    ".repeat(nesting));
+    }
+
+    private void emit(String text) {
+        try {
+            out.write(text);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/**
+ * @Author: turk
+ * @Description: Primerjava ločenih faz semantične analize in združene analize.
+ */
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Optional;
+
+import compiler.frm.Access;
+import compiler.frm.Frame;
+import compiler.frm.FrameEvaluator;
+import compiler.lexer.Lexer;
+import compiler.parser.Parser;
+import compiler.parser.ast.Ast;
+import compiler.parser.ast.def.Def;
+import compiler.seman.FusedAnalyzer;
+import compiler.seman.common.NodeDescription;
+import compiler.seman.name.NameChecker;
+import compiler.seman.name.env.FlatSymbolTable;
+import compiler.seman.type.TypeChecker;
+import compiler.seman.type.type.Type;
+
+/**
+ * Izmeri čas razreševanja imen, preverjanja tipov in analize klicnih
+ * zapisov za podano izvorno datoteko: enkrat z ločenimi fazami
+ * (`NameChecker`, `TypeChecker`, `FrameEvaluator`) in enkrat z
+ * `FusedAnalyzer`.
+ *
+ * Uporaba: `SemanticAnalysisBenchmark <datoteka> [ponovitve]`.
+ */
+public class SemanticAnalysisBenchmark {
+    private static final int WARMUP = 5;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("usage: SemanticAnalysisBenchmark <source> [iterations]");
+            System.exit(2);
+        }
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        var tokens = new Lexer(Files.readString(Paths.get(args[0]))).scanTokens();
+        var parser = new Parser(tokens, Optional.empty());
+        var ast = parser.parse();
+        int nodeCount = parser.nodeCount();
+
+        measure("staged", iterations, () -> staged(ast, nodeCount));
+        measure("fused", iterations, () -> fused(ast, nodeCount));
+    }
+
+    private static void staged(Ast ast, int nodeCount) {
+        var definitions = new NodeDescription<Def>(nodeCount);
+        var types = new NodeDescription<Type>(nodeCount);
+        ast.accept(new NameChecker(definitions, new FlatSymbolTable()));
+        ast.accept(new TypeChecker(definitions, types));
+        ast.accept(new FrameEvaluator(new NodeDescription<Frame>(nodeCount), new NodeDescription<Access>(nodeCount), definitions, types));
+    }
+
+    private static void fused(Ast ast, int nodeCount) {
+        ast.accept(new FusedAnalyzer(
+                new NodeDescription<Def>(nodeCount),
+                new NodeDescription<Type>(nodeCount),
+                new NodeDescription<Frame>(nodeCount),
+                new NodeDescription<Access>(nodeCount),
+                new FlatSymbolTable()
+        ));
+    }
+
+    private static void measure(String name, int iterations, Runnable action) {
+        for (int i = 0; i < WARMUP; i++) {
+            action.run();
+        }
+        var times = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            action.run();
+            times[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        System.out.printf("%-8s min %8.2f ms   median %8.2f ms%n",
+                name, times[0] / 1e6, times[iterations / 2] / 1e6);
+    }
+}
@@ -8,9 +8,14 @@ import java.io.PrintStream;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.Optional;
+import java.util.function.LongSupplier;
 
 import cli.PINS;
+import cli.PhaseTimings;
 import cli.PINS.Phase;
+import common.Report;
+import compiler.cache.CompilationCache;
+import compiler.common.NodeCounter;
 import compiler.common.PrettyPrintVisitor4;
 import compiler.frm.Access;
 import compiler.frm.Frame;
@@ -18,14 +23,22 @@ import compiler.frm.FrameEvaluator;
 import compiler.gen.LinCodeGenerator;
 import compiler.gen.Memory;
 import compiler.interpret.Interpreter;
+import compiler.ir.ConstantFolder;
 import compiler.ir.IRCodeGenerator;
+import compiler.ir.IRNodeCounter;
 import compiler.ir.IRPrettyPrint;
+import compiler.ir.chunk.Chunk.CodeChunk;
 import compiler.lexer.Lexer;
+import compiler.parser.BinaryProductionTrace;
 import compiler.parser.Parser;
+import compiler.parser.ProductionTracer;
+import compiler.parser.ast.Ast;
+import compiler.parser.ast.CompactAst;
 import compiler.parser.ast.def.Def;
+import compiler.seman.FusedAnalyzer;
 import compiler.seman.common.NodeDescription;
 import compiler.seman.name.NameChecker;
-import compiler.seman.name.env.FastSymbolTable;
+import compiler.seman.name.env.FlatSymbolTable;
 import compiler.seman.name.env.SymbolTable;
 import compiler.seman.type.TypeChecker;
 import compiler.seman.type.type.Type;
@@ -37,7 +50,7 @@ public class Main {
      * @param args parametri ukazne vrstice.
      */
     public static void main(String[] args) throws Exception {
-        var cli = PINS.parse(t);
+        var cli = PINS.parse(args);
         run(cli);
     }
 
@@ -47,32 +60,88 @@ public class Main {
 
     private static void run(PINS cli) throws IOException {
         var sourceCode = Files.readString(Paths.get(cli.sourceFile));
-        run(cli, sourceCode);
+        var timings = new PhaseTimings(cli.timings, sourceCode.length());
+        run(cli, sourceCode, timings);
+        timings.print(System.err);
     }
 
-    private static void run(PINS cli, String sourceCode) {
+    private static void run(PINS cli, String sourceCode, PhaseTimings timings) {
+        Optional<CompilationCache> cache = cli.cacheDirectory.isEmpty()
+                ? Optional.empty()
+                : Optional.of(new CompilationCache(Paths.get(cli.cacheDirectory)));
         /**
-         * Izvedi leksikalno analizo.
+         * Linearizirana koda iz predpomnilnika nadomesti vse faze
+         * prevajanja, če želimo program le izvesti.
          */
-        var symbols = new Lexer(sourceCode).scan();
-        if (cli.dumpPhases.contains(Phase.LEX)) {
-            for (var symbol : symbols) {
-                System.out.println(symbol.toString());
+        if (cli.execPhase == Phase.INT && cli.dumpPhases.size() == 1 && cli.dumpPhases.contains(Phase.INT)) {
+            var cachedProgram = cache.flatMap(c -> c.loadProgram(sourceCode, !cli.noConstantFolding));
+            if (cachedProgram.isPresent()) {
+                var memory = new Memory(cli.memory);
+                interpret(cli, memory, new LinCodeGenerator(memory).load(cachedProgram.get()), timings);
+                return;
             }
         }
-        if (cli.execPhase == Phase.LEX) {
-            return;
-        }
         /**
-         * Izvedi sintaksno analizo.
+         * Drevo iz predpomnilnika nadomesti leksikalno in sintaksno
+         * analizo, razen če želimo izpis katere od teh faz.
          */
-        Optional<PrintStream> out = cli.dumpPhases.contains(Phase.SYN) 
-                ? Optional.of(System.out)
-                : Optional.empty();
-        var parser = new Parser(symbols, out);
-        var ast = parser.parse();
-        if (cli.execPhase == Phase.SYN) {
-            return;
+        var cachedAst = cli.execPhase.compareTo(Phase.SYN) > 0
+                && !cli.dumpPhases.contains(Phase.LEX)
+                && !cli.dumpPhases.contains(Phase.SYN)
+                && cli.productionTrace.isEmpty()
+                ? cache.flatMap(c -> c.loadAst(sourceCode))
+                : Optional.<CompactAst>empty();
+        Ast ast;
+        int nodeCount;
+        LongSupplier astNodes;
+        if (cachedAst.isPresent()) {
+            var cachedTree = cachedAst.get().toAst();
+            ast = cachedTree;
+            nodeCount = cachedAst.get().size();
+            astNodes = PhaseTimings.once(() -> NodeCounter.count(cachedTree));
+        } else {
+            /**
+             * Izvedi leksikalno analizo.
+             */
+            timings.start(PhaseTimings.Phase.LEX);
+            var tokens = new Lexer(sourceCode).scanTokens();
+            timings.stop();
+            timings.size("tokens", tokens::size);
+            if (cli.dumpPhases.contains(Phase.LEX)) {
+                for (int i = 0; i < tokens.size(); i++) {
+                    System.out.println(tokens.symbol(i).toString());
+                }
+            }
+            if (cli.execPhase == Phase.LEX) {
+                return;
+            }
+            /**
+             * Izvedi sintaksno analizo.
+             */
+            Optional<ProductionTracer> tracer = cli.dumpPhases.contains(Phase.SYN)
+                    ? Optional.of(ProductionTracer.printing(System.out))
+                    : Optional.empty();
+            timings.start(PhaseTimings.Phase.SYN);
+            if (cli.productionTrace.isEmpty()) {
+                var parser = new Parser(tokens, tracer);
+                ast = parser.parse();
+                nodeCount = parser.nodeCount();
+            } else {
+                var trace = openTrace(cli.productionTrace);
+                var parser = new Parser(tokens, Optional.of(tracer.map(t -> t.andThen(trace)).orElse(trace)));
+                ast = parse(parser, trace);
+                nodeCount = parser.nodeCount();
+            }
+            timings.stop();
+            var syntaxTree = ast;
+            astNodes = PhaseTimings.once(() -> NodeCounter.count(syntaxTree));
+            timings.size("nodes", astNodes);
+            if (cli.execPhase == Phase.SYN) {
+                return;
+            }
+            if (cache.isPresent()) {
+                cache.get().storeAst(sourceCode, CompactAst.encode(ast, tokens.names()));
+            }
         }
         /**
          * Abstraktna sintaksa.
@@ -87,10 +156,33 @@ public class Main {
         /**
          * Izvedi razreševanje imen.
          */
-        SymbolTable symbolTable = new FastSymbolTable();
-        var definitions = new NodeDescription<Def>();
-        var nameChecker = new NameChecker(definitions, symbolTable);
-        ast.accept(nameChecker);
+        var definitions = new NodeDescription<Def>(nodeCount);
+        var types = new NodeDescription<Type>(nodeCount);
+        var frames = new NodeDescription<Frame>(nodeCount);
+        var accesses = new NodeDescription<Access>(nodeCount);
+        /**
+         * Združena analiza imen, tipov in klicnih zapisov; ob napaki
+         * izvedemo ločene faze, ki napako sporočijo v enakem vrstnem redu.
+         */
+        boolean fused = false;
+        if (cli.fusedAnalysis && cli.execPhase.compareTo(Phase.TYP) >= 0) {
+            timings.start(PhaseTimings.Phase.FUSED);
+            fused = analyze(ast, new FusedAnalyzer(definitions, types, frames, accesses, new FlatSymbolTable()));
+            timings.stop();
+            timings.size("nodes", astNodes);
+        }
+        if (!fused) {
+            definitions.clear();
+            types.clear();
+            frames.clear();
+            accesses.clear();
+            timings.start(PhaseTimings.Phase.NAME);
+            SymbolTable symbolTable = new FlatSymbolTable();
+            var nameChecker = new NameChecker(definitions, symbolTable);
+            ast.accept(nameChecker);
+            timings.stop();
+            timings.size("nodes", astNodes);
+        }
         if (cli.dumpPhases.contains(Phase.NAME)) {
             prettyPrint.definitions = Optional.of(definitions);
             ast.accept(prettyPrint);
@@ -101,9 +193,13 @@ public class Main {
         /**
          * Izvedi preverjanje tipov.
          */
-        var types = new NodeDescription<Type>();
-        var typeChecker = new TypeChecker(definitions, types);
-        ast.accept(typeChecker);
+        if (!fused) {
+            timings.start(PhaseTimings.Phase.TYP);
+            var typeChecker = new TypeChecker(definitions, types);
+            ast.accept(typeChecker);
+            timings.stop();
+            timings.size("nodes", astNodes);
+        }
         if (cli.dumpPhases.contains(Phase.TYP)) {
             prettyPrint.definitions = Optional.of(definitions);
             prettyPrint.types = Optional.of(types);
@@ -115,10 +211,13 @@ public class Main {
         /**
          * Izvedi analizo klicnih zapisov in dostopov.
          */
-        var frames = new NodeDescription<Frame>();
-        var accesses = new NodeDescription<Access>();
-        var frameEvaluator = new FrameEvaluator(frames, accesses, definitions, types);
-        ast.accept(frameEvaluator);
+        if (!fused) {
+            timings.start(PhaseTimings.Phase.FRM);
+            var frameEvaluator = new FrameEvaluator(frames, accesses, definitions, types);
+            ast.accept(frameEvaluator);
+            timings.stop();
+            timings.size("nodes", astNodes);
+        }
         if (cli.dumpPhases.contains(Phase.FRM)) {
             prettyPrint.definitions = Optional.of(definitions);
             prettyPrint.types = Optional.of(types);
@@ -132,19 +231,92 @@ public class Main {
         /**
          * Generiranje vmesne kode.
          */
-        var generator = new IRCodeGenerator(new NodeDescription<>(), frames, accesses, definitions, types);
+        timings.start(PhaseTimings.Phase.IMC);
+        var generator = new IRCodeGenerator(new NodeDescription<>(nodeCount), frames, accesses, definitions, types);
         ast.accept(generator);
+        timings.stop();
+        timings.size("chunks", generator.chunks::size);
+        timings.size("nodes", () -> IRNodeCounter.nodes(generator.chunks));
         if (cli.dumpPhases.contains(Phase.IMC)) {
             new IRPrettyPrint(System.out, 2).print(generator.chunks);
         }
         if (cli.execPhase == Phase.IMC) {
             return;
         }
+        /**
+         * Poenostavitev vmesne kode.
+         */
+        var chunks = generator.chunks;
+        if (!cli.noConstantFolding) {
+            timings.start(PhaseTimings.Phase.OPT);
+            chunks = ConstantFolder.fold(generator.chunks);
+            timings.stop();
+            var foldedChunks = chunks;
+            timings.size("nodes", () -> IRNodeCounter.nodes(foldedChunks));
+        }
         /**
          * Linearizacija vmesne kode.
          */
+        timings.start(PhaseTimings.Phase.LIN);
         var memory = new Memory(cli.memory);
-        var mainCodeChunk = new LinCodeGenerator(memory).generateCode(generator.chunks);
+        var linGenerator = new LinCodeGenerator(memory);
+        var linearChunks = linGenerator.linearize(chunks);
+        var mainCodeChunk = linGenerator.load(linearChunks);
+        timings.stop();
+        timings.size("statements", () -> IRNodeCounter.statements(linearChunks));
+        if (cache.isPresent()) {
+            cache.get().storeProgram(sourceCode, !cli.noConstantFolding, linearChunks);
+        }
+        interpret(cli, memory, mainCodeChunk, timings);
+    }
+
+    private static BinaryProductionTrace openTrace(String path) {
+        try {
+            return new BinaryProductionTrace(Files.newOutputStream(Paths.get(path)));
+        } catch (IOException e) {
+            Report.error("Could not open production trace " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Izvede sintaksno analizo in zapre sled produkcij; sled zapremo
+     * tudi ob sintaksni napaki, zato je uporabna za analizo napake.
+     */
+    private static Ast parse(Parser parser, BinaryProductionTrace trace) {
+        Ast ast = null;
+        Report.Failure failure = null;
+        try {
+            ast = Report.deferred(parser::parse);
+        } catch (Report.Failure f) {
+            failure = f;
+        }
+        try {
+            trace.close();
+        } catch (IOException e) {
+            Report.error("Could not write production trace: " + e.getMessage());
+        }
+        if (failure != null) {
+            failure.report();
+        }
+        return ast;
+    }
+
+    /**
+     * Izvede združeno analizo. Vrne `false`, če analiza naleti na napako.
+     */
+    private static boolean analyze(Ast ast, FusedAnalyzer analyzer) {
+        try {
+            return Report.deferred(() -> {
+                ast.accept(analyzer);
+                return true;
+            });
+        } catch (Report.Failure __) {
+            return false;
+        }
+    }
+
+    private static void interpret(PINS cli, Memory memory, Optional<CodeChunk> mainCodeChunk, PhaseTimings timings) {
         if (!cli.dumpPhases.contains(Phase.INT)) {
             return;
         }
@@ -154,7 +326,10 @@ public class Main {
         if (mainCodeChunk.isPresent()) {
             Optional<PrintStream> outputStream = cli.dumpPhases.contains(Phase.INT) ? Optional.of(System.out) : Optional.empty();
             var interpreter = new Interpreter(memory, outputStream);
+            timings.start(PhaseTimings.Phase.INT);
             interpreter.interpret(mainCodeChunk.get());
+            timings.stop();
+            timings.size("calls", interpreter::calls);
         }
     }
 }
@@ -9,6 +9,7 @@ import java.util.EnumSet;
 
 import ArgPar.Annotation.ParsableArgument;
 import ArgPar.Annotation.ParsableCommand;
+import ArgPar.Annotation.ParsableFlag;
 import ArgPar.Annotation.ParsableOption;
 import ArgPar.Exception.ParseException;
 import ArgPar.Parser.ArgumentParser;
@@ -36,6 +37,42 @@ public class PINS {
     @ParsableOption(name = "--memory")
     public int memory = 1024;
 
+    /**
+     * Imenik predpomnilnika rezultatov prevajanja (prazen niz pomeni,
+     * da predpomnilnika ne uporabljamo).
+     */
+    @ParsableOption(name = "--cache")
+    public String cacheDirectory = "";
+
+    /**
+     * Datoteka, kamor sintaksna analiza zapiše binarno sled uporabljenih
+     * produkcij (prazen niz pomeni, da sledi ne zapišemo).
+     */
+    @ParsableOption(name = "--trace-productions")
+    public String productionTrace = "";
+
+    /**
+     * Ali imena, tipe in klicne zapise analiziramo v enem obhodu drevesa
+     * (`FusedAnalyzer`) namesto z ločenimi fazami.
+     */
+    @ParsableFlag(name = "--fused-analysis")
+    public boolean fusedAnalysis = false;
+
+    /**
+     * Ali vmesne kode pred linearizacijo ne poenostavimo
+     * (`ConstantFolder`).
+     */
+    @ParsableFlag(name = "--no-constant-folding")
+    public boolean noConstantFolding = false;
+
+    /**
+     * Oblika izpisa časa, dodeljenega pomnilnika in velikosti rezultatov
+     * posameznih faz na standardni izhod za napake (`NONE` pomeni, da
+     * meritev ne izpišemo).
+     */
+    @ParsableOption(name = "--timings")
+    public PhaseTimings.Format timings = PhaseTimings.Format.NONE;
+
     /**
      * Razčleni argumente.
      */
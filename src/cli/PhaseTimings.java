@@ -0,0 +1,272 @@
+/**
+ * @Author: turk
+ * @Description: Čas, dodeljen pomnilnik in velikosti rezultatov faz prevajanja.
+ */
+
+package cli;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import compiler.jfr.PhaseEvents;
+
+/**
+ * Za vsako fazo zabeleži čas izvajanja, število bajtov, ki so jih niti
+ * dodelile med fazo (`com.sun.management.ThreadMXBean`), in velikosti
+ * njenega rezultata (na primer število simbolov ali vozlišč).
+ *
+ * Dodeljen pomnilnik seštejemo po vseh živih nitih, zato so zajete tudi
+ * niti vzporednih faz; niti, ki se med fazo zaključijo, niso zajete.
+ *
+ * Neodvisno od izpisa za vsako fazo zapišemo tudi dogodek JFR
+ * (`PhaseEvents`), če je ta v posnetku omogočen. Dogodek zapišemo ob
+ * začetku naslednje faze ali ob izpisu, ker velikosti rezultata dodamo
+ * šele po koncu faze.
+ */
+public class PhaseTimings {
+    /**
+     * Oblika izpisa.
+     */
+    public static enum Format {
+        NONE, TABLE, JSON
+    }
+
+    /**
+     * Merjene faze in tipi njihovih dogodkov JFR.
+     */
+    public static enum Phase {
+        LEX(PhaseEvents.Lexer::new),
+        SYN(PhaseEvents.Parser::new),
+        FUSED(PhaseEvents.FusedAnalysis::new),
+        NAME(PhaseEvents.NameChecker::new),
+        TYP(PhaseEvents.TypeChecker::new),
+        FRM(PhaseEvents.FrameEvaluator::new),
+        IMC(PhaseEvents.IRCodeGenerator::new),
+        OPT(PhaseEvents.ConstantFolding::new),
+        LIN(PhaseEvents.Linearization::new),
+        INT(PhaseEvents.Interpreter::new);
+
+        private final Supplier<PhaseEvents.Phase> event;
+
+        Phase(Supplier<PhaseEvents.Phase> event) {
+            this.event = event;
+        }
+    }
+
+    private final Format format;
+
+    /**
+     * Velikost izvorne kode (število znakov).
+     */
+    private final long sourceSize;
+
+    /**
+     * `null`, če JVM merjenja dodeljenega pomnilnika ne podpira.
+     */
+    private final com.sun.management.ThreadMXBean threads;
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    private Phase phase;
+    private long startTime;
+    private Map<Long, Long> startAllocations;
+
+    /**
+     * Dogodek trenutne faze in dogodek končane faze, ki še ni zapisan.
+     */
+    private PhaseEvents.Phase event;
+    private PhaseEvents.Phase pendingEvent;
+
+    public PhaseTimings(Format format, long sourceSize) {
+        this.format = format;
+        this.sourceSize = sourceSize;
+        this.threads = format != Format.NONE ? allocationCounter() : null;
+    }
+
+    /**
+     * Ali meritve beležimo.
+     */
+    public boolean enabled() {
+        return format != Format.NONE;
+    }
+
+    /**
+     * Začni meriti fazo `phase`.
+     */
+    public void start(Phase phase) {
+        commitPendingEvent();
+        var event = phase.event.get();
+        event.sourceSize = sourceSize;
+        if (event.isEnabled()) {
+            event.begin();
+            this.event = event;
+        }
+        if (!enabled()) {
+            return;
+        }
+        this.phase = phase;
+        this.startAllocations = allocations();
+        this.startTime = System.nanoTime();
+    }
+
+    /**
+     * Končaj meritev trenutne faze.
+     */
+    public void stop() {
+        if (event != null) {
+            event.end();
+            pendingEvent = event;
+            event = null;
+        }
+        if (!enabled() || phase == null) {
+            return;
+        }
+        long time = System.nanoTime() - startTime;
+        long allocated = -1;
+        if (threads != null) {
+            allocated = 0;
+            for (var allocation : allocations().entrySet()) {
+                allocated += allocation.getValue() - startAllocations.getOrDefault(allocation.getKey(), 0L);
+            }
+        }
+        entries.add(new Entry(phase, time, allocated));
+        phase = null;
+    }
+
+    /**
+     * Zadnji izmerjeni fazi dodaj velikost rezultata. Velikost izračunamo
+     * le, če meritve beležimo ali bomo zapisali dogodek faze.
+     */
+    public void size(String name, LongSupplier size) {
+        boolean event = pendingEvent != null && pendingEvent.shouldCommit();
+        if (!event && (!enabled() || entries.isEmpty())) {
+            return;
+        }
+        long value = size.getAsLong();
+        if (event) {
+            pendingEvent.size(name, value);
+        }
+        if (enabled() && !entries.isEmpty()) {
+            entries.get(entries.size() - 1).sizes.put(name, value);
+        }
+    }
+
+    /**
+     * Vrne funkcijo, ki vrednost `size` izračuna le ob prvem klicu.
+     */
+    public static LongSupplier once(LongSupplier size) {
+        var value = new long[] { -1 };
+        return () -> {
+            if (value[0] < 0) {
+                value[0] = size.getAsLong();
+            }
+            return value[0];
+        };
+    }
+
+    /**
+     * Zapiši dogodek zadnje faze in izpiši meritve v izbrani obliki.
+     */
+    public void print(PrintStream out) {
+        commitPendingEvent();
+        if (format == Format.TABLE) {
+            printTable(out);
+        } else if (format == Format.JSON) {
+            printJson(out);
+        }
+    }
+
+    // ----------------------------
+
+    private void printTable(PrintStream out) {
+        out.printf("%-6s %12s %16s  %s%n", "phase", "time [ms]", "allocated [B]", "sizes");
+        long totalTime = 0;
+        long totalAllocated = 0;
+        for (var entry : entries) {
+            var sizes = new StringBuilder();
+            for (var size : entry.sizes.entrySet()) {
+                if (sizes.length() > 0) {
+                    sizes.append(", ");
+                }
+                sizes.append(size.getKey()).append('=').append(size.getValue());
+            }
+            out.println(String.format("%-6s %12.3f %16s  %s", entry.phase, entry.time / 1e6,
+                    entry.allocated < 0 ? "-" : Long.toString(entry.allocated), sizes).stripTrailing());
+            totalTime += entry.time;
+            totalAllocated += entry.allocated;
+        }
+        out.printf("%-6s %12.3f %16s%n", "total", totalTime / 1e6,
+                threads == null ? "-" : Long.toString(totalAllocated));
+    }
+
+    private void printJson(PrintStream out) {
+        var json = new StringBuilder("{\"phases\":[");
+        for (int i = 0; i < entries.size(); i++) {
+            var entry = entries.get(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"phase\":\"").append(entry.phase).append('"');
+            json.append(",\"timeNanos\":").append(entry.time);
+            if (entry.allocated >= 0) {
+                json.append(",\"allocatedBytes\":").append(entry.allocated);
+            }
+            for (var size : entry.sizes.entrySet()) {
+                json.append(",\"").append(size.getKey()).append("\":").append(size.getValue());
+            }
+            json.append('}');
+        }
+        json.append("]}");
+        out.println(json);
+    }
+
+    private void commitPendingEvent() {
+        if (pendingEvent != null) {
+            pendingEvent.commit();
+            pendingEvent = null;
+        }
+    }
+
+    private Map<Long, Long> allocations() {
+        var allocations = new HashMap<Long, Long>();
+        if (threads != null) {
+            long[] ids = threads.getAllThreadIds();
+            long[] bytes = threads.getThreadAllocatedBytes(ids);
+            for (int i = 0; i < ids.length; i++) {
+                if (bytes[i] >= 0) {
+                    allocations.put(ids[i], bytes[i]);
+                }
+            }
+        }
+        return allocations;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported()) {
+            threads.setThreadAllocatedMemoryEnabled(true);
+            return threads;
+        }
+        return null;
+    }
+
+    private static class Entry {
+        final Phase phase;
+        final long time;
+        final long allocated;
+        final Map<String, Long> sizes = new LinkedHashMap<>();
+
+        Entry(Phase phase, long time, long allocated) {
+            this.phase = phase;
+            this.time = time;
+            this.allocated = allocated;
+        }
+    }
+}
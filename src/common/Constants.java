@@ -7,6 +7,12 @@ public class Constants {
     }
 
     public static final int WordSize;
+
+    /**
+     * Različica prevajalnika; spremeni se ob vsaki spremembi, ki vpliva
+     * na vsebino predpomnilnika (`compiler.cache`).
+     */
+    public static final String compilerVersion = "1.2";
     public static final int x86 = 4; // 4B
     public static final int x64 = 8; // 8B
 
@@ -6,6 +6,8 @@
 package common;
 
 import java.io.PrintStream;
+import java.util.Optional;
+import java.util.function.Supplier;
 
 import compiler.lexer.Position;
 
@@ -23,15 +25,73 @@ public class Report {
      */
     public static PrintStream err = System.err;
 
+    /**
+     * Ali se napake na trenutni niti odložijo (glej `deferred`).
+     */
+    private static final ThreadLocal<Boolean> deferring = ThreadLocal.withInitial(() -> false);
+
     private Report() {}
 
+    /**
+     * Izvede `action` tako, da napake ne končajo programa, ampak se
+     * sprožijo kot izjema `Failure`. Namenjeno vzporednemu izvajanju,
+     * kjer mora klicatelj sam izbrati, katero napako bo sporočil.
+     */
+    public static <T> T deferred(Supplier<T> action) {
+        boolean previous = deferring.get();
+        deferring.set(true);
+        try {
+            return action.get();
+        } finally {
+            deferring.set(previous);
+        }
+    }
+
     public static void error(String message) {
+        if (deferring.get()) {
+            throw new Failure(Optional.empty(), message);
+        }
         err.println(message);
         System.exit(exitErrorCode);      
     }
 
     public static void error(Position position, String message) {
+        if (deferring.get()) {
+            throw new Failure(Optional.of(position), message);
+        }
         err.println(position.toString() + ": " + message);
         System.exit(exitErrorCode);
     }
+
+    /**
+     * Odložena napaka.
+     */
+    public static class Failure extends RuntimeException {
+        /**
+         * Območje napake (če obstaja).
+         */
+        public final Optional<Position> position;
+
+        /**
+         * Sporočilo napake.
+         */
+        public final String message;
+
+        public Failure(Optional<Position> position, String message) {
+            super(message, null, false, false);
+            this.position = position;
+            this.message = message;
+        }
+
+        /**
+         * Sporoči napako (glej `Report.error`).
+         */
+        public void report() {
+            if (position.isPresent()) {
+                error(position.get(), message);
+            } else {
+                error(message);
+            }
+        }
+    }
 }
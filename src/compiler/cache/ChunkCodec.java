@@ -0,0 +1,489 @@
+/**
+ * @Author: turk
+ * @Description: Binarni zapis lineariziranih fragmentov programa.
+ */
+
+package compiler.cache;
+
+import common.Constants;
+import compiler.frm.Access;
+import compiler.frm.Frame;
+import compiler.ir.chunk.Chunk;
+import compiler.ir.code.expr.*;
+import compiler.ir.code.stmt.*;
+import compiler.lexer.NameTable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Fragmente zapiše v vrstnem redu, v katerem jih `LinCodeGenerator`
+ * shrani v pomnilnik, zato je razporeditev globalnih spremenljivk in
+ * podatkov po nalaganju enaka kot ob prevajanju.
+ *
+ * Zapis: glava (oznaka, različica, velikost besede, kontrolna vsota CRC32
+ * preostanka zapisa), tabela nizov (imena label in podatki), nato
+ * fragmenti. Koda fragmenta je vozlišče vmesne
+ * kode, zapisano v premem vrstnem redu: oznaka vrste vozlišča, nato
+ * podatki in otroci vozlišča.
+ */
+class ChunkCodec {
+    private static final int MAGIC = 0x50494E50; // "PINP"
+    private static final int FORMAT_VERSION = 2;
+
+    /**
+     * Dolžina glave (oznaka, različica, velikost besede, vsota).
+     */
+    private static final int HEADER_SIZE = 4 * 4;
+
+    // chunk tags
+    private static final byte CODE = 0;
+    private static final byte DATA = 1;
+    private static final byte GLOBAL = 2;
+
+    // node tags
+    private static final byte BINOP = 0;
+    private static final byte CALL = 1;
+    private static final byte CONSTANT = 2;
+    private static final byte ESEQ = 3;
+    private static final byte MEM = 4;
+    private static final byte NAME = 5;
+    private static final byte TEMP = 6;
+    private static final byte CJUMP = 7;
+    private static final byte EXP = 8;
+    private static final byte JUMP = 9;
+    private static final byte LABEL = 10;
+    private static final byte MOVE = 11;
+    private static final byte SEQ = 12;
+
+    private static final BinopExpr.Operator[] operators = BinopExpr.Operator.values();
+
+    private ChunkCodec() {}
+
+    /**
+     * Zapiše linearizirane fragmente.
+     */
+    static byte[] write(List<Chunk> chunks) {
+        try {
+            var strings = new NameTable();
+            var body = new ByteArrayOutputStream();
+            var writer = new Writer(new DataOutputStream(body), strings);
+            writer.out.writeInt(chunks.size());
+            for (var chunk : chunks) {
+                writer.chunk(chunk);
+            }
+
+            var result = new ByteArrayOutputStream(body.size() + 16 * strings.size());
+            var out = new DataOutputStream(result);
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(Constants.WordSize);
+            out.writeInt(0);
+            out.writeInt(strings.size());
+            for (int id = 0; id < strings.size(); id++) {
+                var bytes = strings.name(id).getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            body.writeTo(out);
+            var bytes = result.toByteArray();
+            ByteBuffer.wrap(bytes).putInt(HEADER_SIZE - 4, checksum(bytes));
+            return bytes;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Prebere fragmente, ki jih je zapisala metoda `write`.
+     *
+     * Začasne spremenljivke dobijo nove oznake (`Frame.Temp.next`), pri
+     * čemer ostane razmerje med njihovimi uporabami enako.
+     *
+     * Poleg kontrolne vsote preveri, da fragmente lahko naložimo in
+     * izvedemo (`validate`), zato poškodovan zapis ne pride do
+     * `Interpreter`-ja.
+     *
+     * @throws IllegalArgumentException če zapis ni veljaven.
+     */
+    static List<Chunk> read(byte[] bytes) {
+        try {
+            var buffer = ByteBuffer.wrap(bytes);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION
+                    || buffer.getInt() != Constants.WordSize) {
+                throw new IllegalArgumentException("Unsupported program format");
+            }
+            if (buffer.getInt() != checksum(bytes)) {
+                throw new IllegalArgumentException("Program checksum mismatch");
+            }
+            int stringCount = buffer.getInt();
+            if (stringCount < 0 || stringCount > buffer.remaining() / 4) {
+                throw new IllegalArgumentException("Invalid string table");
+            }
+            var strings = new String[stringCount];
+            for (int id = 0; id < stringCount; id++) {
+                int length = buffer.getInt();
+                if (length < 0 || length > buffer.remaining()) {
+                    throw new IllegalArgumentException("Invalid string table");
+                }
+                strings[id] = new String(bytes, buffer.position(), length, StandardCharsets.UTF_8);
+                buffer.position(buffer.position() + length);
+            }
+            var reader = new Reader(buffer, strings);
+            int chunkCount = buffer.getInt();
+            if (chunkCount < 0 || chunkCount > buffer.remaining()) {
+                throw new IllegalArgumentException("Invalid chunk count");
+            }
+            var chunks = new ArrayList<Chunk>(chunkCount);
+            for (int i = 0; i < chunkCount; i++) {
+                chunks.add(reader.chunk());
+            }
+            if (buffer.hasRemaining()) {
+                throw new IllegalArgumentException("Trailing program data");
+            }
+            validate(chunks);
+            return chunks;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated program", e);
+        }
+    }
+
+    // ----------------------------
+
+    /**
+     * Preveri, kar `LinCodeGenerator.load` in `Interpreter` predpostavljata
+     * o lineariziranih fragmentih: labele fragmentov so različne, velikosti
+     * niso negativne, koda je zaporedje stavkov brez gnezdenih zaporedij,
+     * skoki vodijo na labele istega fragmenta, klicane so le funkcije
+     * programa ali standardne knjižnice (argumenti funkcij programa so
+     * začasne spremenljivke) in vsaka prebrana začasna spremenljivka je
+     * v fragmentu tudi nastavljena.
+     */
+    private static void validate(List<Chunk> chunks) {
+        var labels = new HashSet<Frame.Label>();
+        var functions = new HashSet<Frame.Label>();
+        for (var chunk : chunks) {
+            Frame.Label label;
+            if (chunk instanceof Chunk.CodeChunk code) {
+                label = code.frame.label;
+                check(code.frame.staticLevel >= 0 && code.frame.parametersSize >= 0
+                        && code.frame.argumentsSize >= 0 && code.frame.localsSize >= 0, "Invalid frame");
+                functions.add(label);
+            } else if (chunk instanceof Chunk.DataChunk data) {
+                label = data.access.label;
+                check(data.access.size >= 0, "Invalid data size");
+            } else {
+                var global = (Chunk.GlobalChunk) chunk;
+                label = global.access.label;
+                check(global.access.size >= 0, "Invalid global size");
+            }
+            check(labels.add(label), "Duplicate label " + label.name);
+        }
+        for (var chunk : chunks) {
+            if (chunk instanceof Chunk.CodeChunk code) {
+                check(code.code instanceof SeqStmt, "Code is not linearized");
+                var validator = new Validator(labels, functions);
+                for (var stmt : ((SeqStmt) code.code).statements) {
+                    check(!(stmt instanceof SeqStmt), "Code is not linearized");
+                    validator.stmt(stmt);
+                }
+                check(validator.jumpTargets.stream().allMatch(validator.localLabels::contains), "Unknown jump target");
+                check(validator.written.containsAll(validator.read), "Temporary is read but never written");
+            }
+        }
+    }
+
+    private static void check(boolean valid, String message) {
+        if (!valid) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    /**
+     * Kontrolna vsota zapisa za glavo.
+     */
+    private static int checksum(byte[] bytes) {
+        var crc = new CRC32();
+        crc.update(bytes, HEADER_SIZE, bytes.length - HEADER_SIZE);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Zbere labele in začasne spremenljivke kode fragmenta ter preveri
+     * klice in imena.
+     */
+    private static class Validator {
+        final Set<Frame.Label> labels;
+        final Set<Frame.Label> functions;
+        final Set<Frame.Label> localLabels = new HashSet<>();
+        final Set<Frame.Label> jumpTargets = new HashSet<>();
+        final Set<Frame.Temp> read = new HashSet<>();
+        final Set<Frame.Temp> written = new HashSet<>();
+
+        Validator(Set<Frame.Label> labels, Set<Frame.Label> functions) {
+            this.labels = labels;
+            this.functions = functions;
+        }
+
+        void stmt(IRStmt stmt) {
+            if (stmt instanceof CJumpStmt cjump) {
+                expr(cjump.condition);
+                jumpTargets.add(cjump.thenLabel);
+                jumpTargets.add(cjump.elseLabel);
+            } else if (stmt instanceof ExpStmt exp) {
+                expr(exp.expr);
+            } else if (stmt instanceof JumpStmt jump) {
+                jumpTargets.add(jump.label);
+            } else if (stmt instanceof LabelStmt label) {
+                localLabels.add(label.label);
+            } else if (stmt instanceof MoveStmt move) {
+                if (move.dst instanceof TempExpr temp) {
+                    written.add(temp.temp);
+                } else {
+                    expr(move.dst);
+                }
+                expr(move.src);
+            } else if (stmt instanceof SeqStmt seq) {
+                seq.statements.forEach(this::stmt);
+            }
+        }
+
+        void expr(IRExpr expr) {
+            if (expr instanceof BinopExpr binop) {
+                expr(binop.lhs);
+                expr(binop.rhs);
+            } else if (expr instanceof CallExpr call) {
+                if (!Constants.stdLibrary.containsKey(call.label.name)) {
+                    check(functions.contains(call.label), "Unknown function " + call.label.name);
+                    check(call.args.stream().allMatch(arg -> arg instanceof TempExpr), "Argument is not a temporary");
+                }
+                call.args.forEach(this::expr);
+            } else if (expr instanceof EseqExpr eseq) {
+                stmt(eseq.stmt);
+                expr(eseq.expr);
+            } else if (expr instanceof MemExpr mem) {
+                expr(mem.expr);
+            } else if (expr instanceof NameExpr name) {
+                check(name.label.name.equals(Constants.framePointer) || name.label.name.equals(Constants.stackPointer)
+                        || labels.contains(name.label), "Unknown name " + name.label.name);
+            } else if (expr instanceof TempExpr temp) {
+                read.add(temp.temp);
+            }
+        }
+    }
+
+    private static class Writer {
+        final DataOutputStream out;
+        final NameTable strings;
+
+        Writer(DataOutputStream out, NameTable strings) {
+            this.out = out;
+            this.strings = strings;
+        }
+
+        void chunk(Chunk chunk) throws IOException {
+            if (chunk instanceof Chunk.CodeChunk code) {
+                out.writeByte(CODE);
+                string(code.frame.label.name);
+                out.writeInt(code.frame.staticLevel);
+                out.writeInt(code.frame.parametersSize);
+                out.writeInt(code.frame.argumentsSize);
+                out.writeInt(code.frame.localsSize);
+                node(code.code);
+            } else if (chunk instanceof Chunk.DataChunk data) {
+                out.writeByte(DATA);
+                string(data.access.label.name);
+                out.writeInt(data.access.size);
+                string(data.data);
+            } else if (chunk instanceof Chunk.GlobalChunk global) {
+                out.writeByte(GLOBAL);
+                string(global.access.label.name);
+                out.writeInt(global.access.size);
+            } else {
+                throw new IllegalArgumentException("Unknown chunk type");
+            }
+        }
+
+        void node(Object node) throws IOException {
+            if (node instanceof BinopExpr binop) {
+                out.writeByte(BINOP);
+                out.writeByte(binop.op.ordinal());
+                node(binop.lhs);
+                node(binop.rhs);
+            } else if (node instanceof CallExpr call) {
+                out.writeByte(CALL);
+                string(call.label.name);
+                out.writeInt(call.args.size());
+                for (var arg : call.args) {
+                    node(arg);
+                }
+            } else if (node instanceof ConstantExpr constant) {
+                out.writeByte(CONSTANT);
+                out.writeInt(constant.constant);
+            } else if (node instanceof EseqExpr eseq) {
+                out.writeByte(ESEQ);
+                node(eseq.stmt);
+                node(eseq.expr);
+            } else if (node instanceof MemExpr mem) {
+                out.writeByte(MEM);
+                node(mem.expr);
+            } else if (node instanceof NameExpr name) {
+                out.writeByte(NAME);
+                string(name.label.name);
+            } else if (node instanceof TempExpr temp) {
+                out.writeByte(TEMP);
+                out.writeInt(temp.temp.id);
+            } else if (node instanceof CJumpStmt cjump) {
+                out.writeByte(CJUMP);
+                node(cjump.condition);
+                string(cjump.thenLabel.name);
+                string(cjump.elseLabel.name);
+            } else if (node instanceof ExpStmt exp) {
+                out.writeByte(EXP);
+                node(exp.expr);
+            } else if (node instanceof JumpStmt jump) {
+                out.writeByte(JUMP);
+                string(jump.label.name);
+            } else if (node instanceof LabelStmt label) {
+                out.writeByte(LABEL);
+                string(label.label.name);
+            } else if (node instanceof MoveStmt move) {
+                out.writeByte(MOVE);
+                node(move.dst);
+                node(move.src);
+            } else if (node instanceof SeqStmt seq) {
+                out.writeByte(SEQ);
+                out.writeInt(seq.statements.size());
+                for (var stmt : seq.statements) {
+                    node(stmt);
+                }
+            } else {
+                throw new IllegalArgumentException("Unknown IR node type");
+            }
+        }
+
+        void string(String string) throws IOException {
+            out.writeInt(strings.intern(string));
+        }
+    }
+
+    private static class Reader {
+        final ByteBuffer in;
+        final String[] strings;
+
+        /**
+         * Ena labela za vsak niz (labele primerjamo po imenu).
+         */
+        final Frame.Label[] labels;
+
+        /**
+         * Preslikava iz zapisanih oznak začasnih spremenljivk v nove.
+         */
+        final Map<Integer, Frame.Temp> temps = new HashMap<>();
+
+        Reader(ByteBuffer in, String[] strings) {
+            this.in = in;
+            this.strings = strings;
+            this.labels = new Frame.Label[strings.length];
+        }
+
+        Chunk chunk() {
+            byte tag = in.get();
+            return switch (tag) {
+                case CODE -> {
+                    var frame = new Frame(label(), in.getInt(), in.getInt(), in.getInt(), in.getInt());
+                    yield new Chunk.CodeChunk(frame, stmt());
+                }
+                case DATA -> {
+                    var label = label();
+                    yield new Chunk.DataChunk(new Access.Global(in.getInt(), label), string());
+                }
+                case GLOBAL -> {
+                    var label = label();
+                    yield new Chunk.GlobalChunk(new Access.Global(in.getInt(), label));
+                }
+                default -> throw new IllegalArgumentException("Unknown chunk tag " + tag);
+            };
+        }
+
+        IRStmt stmt() {
+            byte tag = in.get();
+            return switch (tag) {
+                case CJUMP -> new CJumpStmt(expr(), label(), label());
+                case EXP -> new ExpStmt(expr());
+                case JUMP -> new JumpStmt(label());
+                case LABEL -> new LabelStmt(label());
+                case MOVE -> new MoveStmt(expr(), expr());
+                case SEQ -> {
+                    int count = count();
+                    var statements = new ArrayList<IRStmt>(count);
+                    for (int i = 0; i < count; i++) {
+                        statements.add(stmt());
+                    }
+                    yield new SeqStmt(statements);
+                }
+                default -> throw new IllegalArgumentException("Unknown statement tag " + tag);
+            };
+        }
+
+        IRExpr expr() {
+            byte tag = in.get();
+            return switch (tag) {
+                case BINOP -> {
+                    int op = in.get();
+                    if (op < 0 || op >= operators.length) {
+                        throw new IllegalArgumentException("Unknown operator " + op);
+                    }
+                    yield new BinopExpr(expr(), expr(), operators[op]);
+                }
+                case CALL -> {
+                    var label = label();
+                    int count = count();
+                    var args = new ArrayList<IRExpr>(count);
+                    for (int i = 0; i < count; i++) {
+                        args.add(expr());
+                    }
+                    yield new CallExpr(label, args);
+                }
+                case CONSTANT -> new ConstantExpr(in.getInt());
+                case ESEQ -> new EseqExpr(stmt(), expr());
+                case MEM -> new MemExpr(expr());
+                case NAME -> new NameExpr(label());
+                case TEMP -> new TempExpr(temps.computeIfAbsent(in.getInt(), __ -> Frame.Temp.next()));
+                default -> throw new IllegalArgumentException("Unknown expression tag " + tag);
+            };
+        }
+
+        int count() {
+            int count = in.getInt();
+            if (count < 0 || count > in.remaining()) {
+                throw new IllegalArgumentException("Invalid count " + count);
+            }
+            return count;
+        }
+
+        String string() {
+            return strings[in.getInt()];
+        }
+
+        Frame.Label label() {
+            int id = in.getInt();
+            if (labels[id] == null) {
+                labels[id] = Frame.Label.named(strings[id]);
+            }
+            return labels[id];
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/**
+ * @Author: turk
+ * @Description: Predpomnilnik rezultatov prevajanja na disku.
+ */
+
+package compiler.cache;
+
+import static common.RequireNonNull.requireNonNull;
+
+import common.Constants;
+import compiler.ir.chunk.Chunk;
+import compiler.parser.ast.CompactAst;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Hrani rezultate prevajanja v datotekah v podanem imeniku.
+ *
+ * Ključ vnosa je zgoščena vrednost (SHA-256) različice prevajalnika in
+ * vsebine izvorne kode, zato se ob vsaki spremembi izvorne kode ali
+ * prevajalnika uporabi nov vnos. Predpomnilnik je zgolj pospešitev:
+ * neuspešno branje ali pisanje se obravnava kot odsotnost vnosa.
+ */
+public class CompilationCache {
+    /**
+     * Končnica datotek z abstraktnimi sintaksnimi drevesi.
+     */
+    private static final String AST_SUFFIX = ".ast";
+
+    /**
+     * Končnica datotek z lineariziranimi programi.
+     */
+    private static final String PROGRAM_SUFFIX = ".prog";
+
+    /**
+     * Imenik predpomnilnika.
+     */
+    public final Path directory;
+
+    public CompilationCache(Path directory) {
+        requireNonNull(directory);
+        this.directory = directory;
+    }
+
+    /**
+     * Vrne abstraktno sintaksno drevo za izvorno kodo `source`, če je
+     * shranjeno v predpomnilniku. Drevo je že pretvorjeno v objekte
+     * (`CompactAst.toAst`), zato se napaka v vnosu pokaže tu in ne
+     * kasneje med prevajanjem.
+     */
+    public Optional<CompactAst> loadAst(String source) {
+        return load(key(source), AST_SUFFIX).flatMap(bytes -> {
+            try {
+                var ast = CompactAst.fromBytes(bytes);
+                ast.toAst();
+                return Optional.of(ast);
+            } catch (RuntimeException __) {
+                return Optional.empty();
+            }
+        });
+    }
+
+    /**
+     * Shrani abstraktno sintaksno drevo za izvorno kodo `source`.
+     */
+    public void storeAst(String source, CompactAst ast) {
+        store(key(source), AST_SUFFIX, ast.toBytes());
+    }
+
+    /**
+     * Vrne linearizirane fragmente programa za izvorno kodo `source`,
+     * če so shranjeni v predpomnilniku. Fragmente naložimo v pomnilnik z
+     * metodo `LinCodeGenerator.load`.
+     *
+     * @param constantFolding Ali je bila vmesna koda poenostavljena
+     *                        (`ConstantFolder`); programa z in brez
+     *                        poenostavitve sta ločena vnosa.
+     */
+    public Optional<List<Chunk>> loadProgram(String source, boolean constantFolding) {
+        return load(programKey(source, constantFolding), PROGRAM_SUFFIX).flatMap(bytes -> {
+            try {
+                return Optional.of(ChunkCodec.read(bytes));
+            } catch (RuntimeException __) {
+                return Optional.empty();
+            }
+        });
+    }
+
+    /**
+     * Shrani linearizirane fragmente programa za izvorno kodo `source`.
+     */
+    public void storeProgram(String source, boolean constantFolding, List<Chunk> linearChunks) {
+        store(programKey(source, constantFolding), PROGRAM_SUFFIX, ChunkCodec.write(linearChunks));
+    }
+
+    // ----------------------------
+
+    private static String programKey(String source, boolean constantFolding) {
+        return key(source, constantFolding ? "fold" : "nofold");
+    }
+
+    /**
+     * Vrne ključ vnosa za podane dele (različica prevajalnika je
+     * vedno vključena).
+     */
+    static String key(String... parts) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256");
+            digest.update(Constants.compilerVersion.getBytes(StandardCharsets.UTF_8));
+            for (var part : parts) {
+                digest.update((byte) 0);
+                digest.update(part.getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    Optional<byte[]> load(String key, String suffix) {
+        try {
+            return Optional.of(Files.readAllBytes(directory.resolve(key + suffix)));
+        } catch (IOException __) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Vnos najprej zapiše v začasno datoteko in jo nato preimenuje, zato
+     * sočasni bralci nikoli ne vidijo delno zapisanega vnosa.
+     */
+    void store(String key, String suffix, byte[] bytes) {
+        try {
+            Files.createDirectories(directory);
+            var temporary = Files.createTempFile(directory, key, ".tmp");
+            try {
+                Files.write(temporary, bytes);
+                Files.move(temporary, directory.resolve(key + suffix),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (IOException __) {
+            // the cache is only an optimization
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/**
+ * @Author: turk
+ * @Description: Štetje vozlišč abstraktnega sintaksnega drevesa.
+ */
+
+package compiler.common;
+
+import compiler.parser.ast.Ast;
+import compiler.parser.ast.def.*;
+import compiler.parser.ast.expr.*;
+import compiler.parser.ast.type.Array;
+import compiler.parser.ast.type.Atom;
+import compiler.parser.ast.type.TypeName;
+
+/**
+ * Prešteje vozlišča drevesa. Oznake vozlišč (`Parser.nodeCount`) so le
+ * zgornja meja števila vozlišč, saj vzporedna sintaksna analiza oznak ne
+ * dodeljuje zaporedno.
+ */
+public class NodeCounter implements Visitor {
+    private int count = 0;
+
+    private NodeCounter() {}
+
+    /**
+     * Vrne število vozlišč drevesa `ast`.
+     */
+    public static int count(Ast ast) {
+        var counter = new NodeCounter();
+        ast.accept(counter);
+        return counter.count;
+    }
+
+    @Override
+    public void visit(Call call) {
+        count++;
+        for (var argument : call.arguments) {
+            argument.accept(this);
+        }
+    }
+
+    @Override
+    public void visit(Binary binary) {
+        count++;
+        binary.left.accept(this);
+        binary.right.accept(this);
+    }
+
+    @Override
+    public void visit(Block block) {
+        count++;
+        for (var expr : block.expressions) {
+            expr.accept(this);
+        }
+    }
+
+    @Override
+    public void visit(For forLoop) {
+        count++;
+        forLoop.counter.accept(this);
+        forLoop.low.accept(this);
+        forLoop.high.accept(this);
+        forLoop.step.accept(this);
+        forLoop.body.accept(this);
+    }
+
+    @Override
+    public void visit(Name name) {
+        count++;
+    }
+
+    @Override
+    public void visit(IfThenElse ifThenElse) {
+        count++;
+        ifThenElse.condition.accept(this);
+        ifThenElse.thenExpression.accept(this);
+        ifThenElse.elseExpression.ifPresent(expr -> expr.accept(this));
+    }
+
+    @Override
+    public void visit(Literal literal) {
+        count++;
+    }
+
+    @Override
+    public void visit(Unary unary) {
+        count++;
+        unary.expr.accept(this);
+    }
+
+    @Override
+    public void visit(While whileLoop) {
+        count++;
+        whileLoop.condition.accept(this);
+        whileLoop.body.accept(this);
+    }
+
+    @Override
+    public void visit(Where where) {
+        count++;
+        where.defs.accept(this);
+        where.expr.accept(this);
+    }
+
+    @Override
+    public void visit(Defs defs) {
+        count++;
+        for (var definition : defs.definitions) {
+            definition.accept(this);
+        }
+    }
+
+    @Override
+    public void visit(FunDef funDef) {
+        count++;
+        for (var parameter : funDef.parameters) {
+            parameter.accept(this);
+        }
+        funDef.type.accept(this);
+        funDef.body.accept(this);
+    }
+
+    @Override
+    public void visit(TypeDef typeDef) {
+        count++;
+        typeDef.type.accept(this);
+    }
+
+    @Override
+    public void visit(VarDef varDef) {
+        count++;
+        varDef.type.accept(this);
+    }
+
+    @Override
+    public void visit(FunDef.Parameter parameter) {
+        count++;
+        parameter.type.accept(this);
+    }
+
+    @Override
+    public void visit(Array array) {
+        count++;
+        array.type.accept(this);
+    }
+
+    @Override
+    public void visit(Atom atom) {
+        count++;
+    }
+
+    @Override
+    public void visit(TypeName name) {
+        count++;
+    }
+}
@@ -16,7 +16,6 @@ import compiler.parser.ast.type.TypeName;
 import compiler.seman.common.NodeDescription;
 import compiler.seman.type.type.Type;
 
-import java.util.Optional;
 import java.util.Stack;
 
 import static common.RequireNonNull.requireNonNull;
@@ -69,12 +68,12 @@ public class FrameEvaluator implements Visitor {
     public void visit(Call call) {
         // Getting size of arguments
         int size = 0;
-        Optional<Type> argumentType;
+        Type argumentType;
         for (Expr argument : call.arguments) {
-            argumentType = types.valueFor(argument);
-            if (argumentType.isEmpty())
+            argumentType = types.get(argument);
+            if (argumentType == null)
                 continue;
-            size += argumentType.get().sizeInBytesAsParam();
+            size += argumentType.sizeInBytesAsParam();
         }
         // Adding size of a static link
         size += Constants.WordSize;
@@ -200,12 +199,12 @@ public class FrameEvaluator implements Visitor {
 
     @Override
     public void visit(VarDef varDef) {
-        Optional<Type> type = types.valueFor(varDef.type);
-        if (type.isEmpty())
+        Type type = types.get(varDef.type);
+        if (type == null)
             return;
 
 
-        int size = type.get().sizeInBytes();
+        int size = type.sizeInBytes();
 
         // Adding space in the heap for global variables
         if (staticLevel < 1) {
@@ -229,12 +228,12 @@ public class FrameEvaluator implements Visitor {
 
     @Override
     public void visit(Parameter parameter) {
-        Optional<Type> type = types.valueFor(parameter.type);
-        if (type.isEmpty())
+        Type type = types.get(parameter.type);
+        if (type == null)
             return;
 
         // Adding space in frame for parameters
-        int size = type.get().sizeInBytesAsParam();
+        int size = type.sizeInBytesAsParam();
         Frame.Builder builder = builders.pop();
         accesses.store(
                 new Access.Parameter(size, builder.addParameter(size), staticLevel),
@@ -44,15 +44,37 @@ public class LinCodeGenerator {
      * 3. Vrnemo kodo funkcije `main`, če le-ta obstaja.
      */
     public Optional<Chunk.CodeChunk> generateCode(List<Chunk> chunks) {
-        Optional<Chunk.CodeChunk> mainCodeChunk = Optional.empty();
+        return load(linearize(chunks));
+    }
+
+    /**
+     * Linearizira kodo fragmentov; ostali fragmenti ostanejo nespremenjeni.
+     */
+    public List<Chunk> linearize(List<Chunk> chunks) {
+        var linearChunks = new ArrayList<Chunk>(chunks.size());
         for (var chunk : chunks) {
             if (chunk instanceof Chunk.CodeChunk code) {
-                var linearChunk = linearizeChunk(code);
-                memory.registerLabel(code.frame.label, offset);
+                linearChunks.add(linearizeChunk(code));
+            } else {
+                linearChunks.add(chunk);
+            }
+        }
+        return linearChunks;
+    }
+
+    /**
+     * V pomnilnik shrani že linearizirane fragmente programa in vrne kodo
+     * funkcije `main`, če le-ta obstaja.
+     */
+    public Optional<Chunk.CodeChunk> load(List<Chunk> linearChunks) {
+        Optional<Chunk.CodeChunk> mainCodeChunk = Optional.empty();
+        for (var chunk : linearChunks) {
+            if (chunk instanceof Chunk.CodeChunk linearChunk) {
+                memory.registerLabel(linearChunk.frame.label, offset);
                 offset += Constants.WordSize;
-                memory.stM(code.frame.label, linearChunk);
+                memory.stM(linearChunk.frame.label, linearChunk);
 
-                if (code.frame.label.name.equals("main")) {
+                if (linearChunk.frame.label.name.equals("main")) {
                     if (mainCodeChunk.isEmpty()) {
                         mainCodeChunk = Optional.of(linearChunk);
                     } else {
@@ -9,6 +9,7 @@ import static common.RequireNonNull.requireNonNull;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
 import java.nio.charset.Charset;
 import java.util.*;
 
@@ -21,6 +22,7 @@ import compiler.ir.code.IRNode;
 import compiler.ir.code.expr.*;
 import compiler.ir.code.stmt.*;
 import compiler.ir.IRPrettyPrint;
+import compiler.jfr.InterpreterEvents;
 
 public class Interpreter {
     /**
@@ -50,6 +52,23 @@ public class Interpreter {
      */
     private int framePointer;
 
+    /**
+     * Število klicev funkcij PINS in trenutna globina klicev.
+     */
+    private long calls = 0;
+    private int depth = 0;
+
+    /**
+     * Največja velikost sklada, ki smo jo zapisali kot dogodek JFR.
+     */
+    private long reportedStackSize = 0;
+
+    /**
+     * Število bajtov, ki jih je nit dodelila do prejšnjega vzorca klicev
+     * (`-1`, če še nismo vzorčili).
+     */
+    private long sampledAllocatedBytes = -1;
+
     public Interpreter(Memory memory, Optional<PrintStream> outputStream) {
         requireNonNull(memory, outputStream);
         this.memory = memory;
@@ -72,6 +91,10 @@ public class Interpreter {
         int odlSP = stackPointer;
         framePointer = stackPointer;
         stackPointer -= chunk.frame.size();
+        depth++;
+        if (memory.size - stackPointer > 2 * reportedStackSize) {
+            reportStackSize();
+        }
 
         Object result = null;
         if (chunk.code instanceof SeqStmt seq) {
@@ -94,6 +117,14 @@ public class Interpreter {
         // Setting FP and SP to old values
         framePointer = oldFP;
         stackPointer = odlSP;
+        depth--;
+    }
+
+    /**
+     * Število izvedenih klicev funkcij PINS.
+     */
+    public long calls() {
+        return calls;
     }
 
     private Object execute(IRStmt stmt, Map<Frame.Temp, Object> temps) {
@@ -233,7 +264,14 @@ public class Interpreter {
                 sp += Constants.WordSize;
             }
 
+            InterpreterEvents.FunctionCall event = null;
+            if (++calls % InterpreterEvents.CALL_SAMPLE_PERIOD == 0) {
+                event = sampleCall(call);
+            }
             internalInterpret(chunk, new HashMap<>());  // Interpreting next function
+            if (event != null) {
+                event.commit();
+            }
             return memory.ldM(stackPointer);            // Returning a result of interpreted function
         } else {
             throw new RuntimeException("Only functions can be called!");
@@ -264,6 +302,46 @@ public class Interpreter {
 
     // ----------- pomožne funkcije -----------
 
+    /**
+     * Zapiše dogodek JFR, ko se sklad (vsaj) podvoji.
+     */
+    private void reportStackSize() {
+        reportedStackSize = memory.size - stackPointer;
+        var event = new InterpreterEvents.StackHighWaterMark();
+        if (event.shouldCommit()) {
+            event.stackSize = reportedStackSize;
+            event.memorySize = memory.size;
+            event.depth = depth;
+            event.commit();
+        }
+    }
+
+    /**
+     * Ob vzorčenem klicu preveri skok dodeljevanja pomnilnika in vrne
+     * začeti dogodek klica ali `null`, če zapisovanje klicev ni omogočeno.
+     */
+    private InterpreterEvents.FunctionCall sampleCall(CallExpr call) {
+        if (InterpreterEvents.allocationSpikesEnabled()
+                && ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads) {
+            long allocated = threads.getCurrentThreadAllocatedBytes();
+            if (sampledAllocatedBytes >= 0 && allocated - sampledAllocatedBytes >= InterpreterEvents.ALLOCATION_SPIKE_BYTES) {
+                var spike = new InterpreterEvents.AllocationSpike();
+                spike.allocated = allocated - sampledAllocatedBytes;
+                spike.calls = InterpreterEvents.CALL_SAMPLE_PERIOD;
+                spike.commit();
+            }
+            sampledAllocatedBytes = allocated;
+        }
+        if (!InterpreterEvents.functionCallsEnabled()) {
+            return null;
+        }
+        var event = new InterpreterEvents.FunctionCall();
+        event.function = call.label.name;
+        event.depth = depth;
+        event.begin();
+        return event;
+    }
+
     private int toInt(Object obj) {
         if (obj instanceof Integer integer) {
             return integer;
@@ -0,0 +1,212 @@
+/**
+ * @Author: turk
+ * @Description: Zlaganje konstant in algebrajske poenostavitve vmesne kode.
+ */
+
+package compiler.ir;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import compiler.ir.chunk.Chunk;
+import compiler.ir.code.expr.*;
+import compiler.ir.code.stmt.*;
+
+/**
+ * Poenostavi vmesno kodo pred linearizacijo:
+ *
+ * - binarne operacije nad konstantami izračuna (s semantiko
+ *   `Interpreter`-ja; deljenja z 0 ne izračuna, da napaka ostane ob
+ *   izvajanju),
+ * - uporabi identitete `x + 0`, `0 + x`, `x - 0`, `x * 1`, `1 * x`,
+ *   `x / 1` in `x * 0`, `0 * x` (slednji le, če `x` nima stranskih
+ *   učinkov in se ne more končati z napako),
+ * - pogojne skoke s konstantnim pogojem nadomesti z brezpogojnimi.
+ *
+ * Nespremenjena poddrevesa ohrani, zato so fragmenti brez priložnosti za
+ * poenostavitev vrnjeni nespremenjeni.
+ */
+public class ConstantFolder {
+    private ConstantFolder() {}
+
+    /**
+     * Vrne fragmente s poenostavljeno kodo.
+     */
+    public static List<Chunk> fold(List<Chunk> chunks) {
+        var folded = new ArrayList<Chunk>(chunks.size());
+        for (var chunk : chunks) {
+            if (chunk instanceof Chunk.CodeChunk code) {
+                var stmt = fold(code.code);
+                folded.add(stmt == code.code ? chunk : new Chunk.CodeChunk(code.frame, stmt));
+            } else {
+                folded.add(chunk);
+            }
+        }
+        return folded;
+    }
+
+    // ----------------------------
+
+    private static IRStmt fold(IRStmt stmt) {
+        if (stmt instanceof CJumpStmt cjump) {
+            var condition = fold(cjump.condition);
+            if (condition instanceof ConstantExpr constant) {
+                return new JumpStmt(constant.constant != 0 ? cjump.thenLabel : cjump.elseLabel);
+            }
+            return condition == cjump.condition ? stmt
+                    : new CJumpStmt(condition, cjump.thenLabel, cjump.elseLabel);
+        } else if (stmt instanceof ExpStmt exp) {
+            var expr = fold(exp.expr);
+            return expr == exp.expr ? stmt : new ExpStmt(expr);
+        } else if (stmt instanceof MoveStmt move) {
+            // a destination other than MEM or TEMP is an address, simplifying
+            // it (e.g. to a TEMP) would change where the value is stored
+            var dst = move.dst instanceof MemExpr ? fold(move.dst) : move.dst;
+            var src = fold(move.src);
+            return dst == move.dst && src == move.src ? stmt : new MoveStmt(dst, src);
+        } else if (stmt instanceof SeqStmt seq) {
+            List<IRStmt> statements = null;
+            for (int i = 0; i < seq.statements.size(); i++) {
+                var original = seq.statements.get(i);
+                var folded = fold(original);
+                if (folded != original && statements == null) {
+                    statements = new ArrayList<>(seq.statements.subList(0, i));
+                }
+                if (statements != null) {
+                    statements.add(folded);
+                }
+            }
+            return statements == null ? stmt : new SeqStmt(statements);
+        }
+        // JumpStmt, LabelStmt
+        return stmt;
+    }
+
+    private static IRExpr fold(IRExpr expr) {
+        if (expr instanceof BinopExpr binop) {
+            return fold(binop);
+        } else if (expr instanceof CallExpr call) {
+            List<IRExpr> args = null;
+            for (int i = 0; i < call.args.size(); i++) {
+                var original = call.args.get(i);
+                var folded = fold(original);
+                if (folded != original && args == null) {
+                    args = new ArrayList<>(call.args.subList(0, i));
+                }
+                if (args != null) {
+                    args.add(folded);
+                }
+            }
+            return args == null ? expr : new CallExpr(call.label, args);
+        } else if (expr instanceof EseqExpr eseq) {
+            var stmt = fold(eseq.stmt);
+            var value = fold(eseq.expr);
+            return stmt == eseq.stmt && value == eseq.expr ? expr : new EseqExpr(stmt, value);
+        } else if (expr instanceof MemExpr mem) {
+            var address = fold(mem.expr);
+            return address == mem.expr ? expr : new MemExpr(address);
+        }
+        // ConstantExpr, NameExpr, TempExpr
+        return expr;
+    }
+
+    private static IRExpr fold(BinopExpr binop) {
+        var lhs = fold(binop.lhs);
+        var rhs = fold(binop.rhs);
+        if (lhs instanceof ConstantExpr left && rhs instanceof ConstantExpr right) {
+            var value = evaluate(binop.op, left.constant, right.constant);
+            if (value != null) {
+                return new ConstantExpr(value);
+            }
+        }
+        var simplified = simplify(binop.op, lhs, rhs);
+        if (simplified != null) {
+            return simplified;
+        }
+        return lhs == binop.lhs && rhs == binop.rhs ? binop : new BinopExpr(lhs, rhs, binop.op);
+    }
+
+    /**
+     * Vrne vrednost operacije nad konstantama ali `null`, če je ob
+     * prevajanju ne smemo izračunati (deljenje z 0).
+     */
+    private static Integer evaluate(BinopExpr.Operator op, int left, int right) {
+        return switch (op) {
+            case ADD -> left + right;
+            case SUB -> left - right;
+            case MUL -> left * right;
+            case DIV -> right == 0 ? null : left / right;
+            case MOD -> right == 0 ? null : left % right;
+            case EQ -> left == right ? 1 : 0;
+            case NEQ -> left != right ? 1 : 0;
+            case GT -> left > right ? 1 : 0;
+            case GEQ -> left >= right ? 1 : 0;
+            case LT -> left < right ? 1 : 0;
+            case LEQ -> left <= right ? 1 : 0;
+            case AND -> left == 1 && right == 1 ? 1 : 0;
+            case OR -> left == 0 && right == 0 ? 0 : 1;
+        };
+    }
+
+    /**
+     * Vrne izraz, poenostavljen z identitetami, ali `null`.
+     */
+    private static IRExpr simplify(BinopExpr.Operator op, IRExpr lhs, IRExpr rhs) {
+        switch (op) {
+            case ADD:
+                if (isConstant(rhs, 0)) {
+                    return lhs;
+                }
+                if (isConstant(lhs, 0)) {
+                    return rhs;
+                }
+                break;
+            case SUB:
+                if (isConstant(rhs, 0)) {
+                    return lhs;
+                }
+                break;
+            case MUL:
+                if (isConstant(rhs, 1)) {
+                    return lhs;
+                }
+                if (isConstant(lhs, 1)) {
+                    return rhs;
+                }
+                if ((isConstant(rhs, 0) && isPure(lhs)) || (isConstant(lhs, 0) && isPure(rhs))) {
+                    return new ConstantExpr(0);
+                }
+                break;
+            case DIV:
+                if (isConstant(rhs, 1)) {
+                    return lhs;
+                }
+                break;
+            default:
+                break;
+        }
+        return null;
+    }
+
+    private static boolean isConstant(IRExpr expr, int value) {
+        return expr instanceof ConstantExpr constant && constant.constant == value;
+    }
+
+    /**
+     * Ali izraz lahko izpustimo: nima stranskih učinkov in se ne more
+     * končati z napako (branje pomnilnika se lahko, zato `MEM` ni čist).
+     */
+    private static boolean isPure(IRExpr expr) {
+        if (expr instanceof ConstantExpr || expr instanceof NameExpr || expr instanceof TempExpr) {
+            return true;
+        }
+        if (expr instanceof BinopExpr binop) {
+            if ((binop.op == BinopExpr.Operator.DIV || binop.op == BinopExpr.Operator.MOD)
+                    && !(binop.rhs instanceof ConstantExpr divisor && divisor.constant != 0)) {
+                return false;
+            }
+            return isPure(binop.lhs) && isPure(binop.rhs);
+        }
+        return false;
+    }
+}
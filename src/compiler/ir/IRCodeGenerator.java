@@ -9,7 +9,6 @@ import static common.RequireNonNull.requireNonNull;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 
 import common.Constants;
 import common.Report;
@@ -511,52 +510,52 @@ public class IRCodeGenerator implements Visitor {
 
     private IRNode getIRNode(Ast ast) {
         ast.accept(this);
-        Optional<IRNode> irNode = imcCode.valueFor(ast);
-        if (irNode.isEmpty()) {
+        IRNode irNode = imcCode.get(ast);
+        if (irNode == null) {
             Report.error(ast.position, "PINS error: missing IRNode");
             return null;
         }
 
-        return irNode.get();
+        return irNode;
     }
 
     private Def getDef(Ast ast) {
-        Optional<Def> def = definitions.valueFor(ast);
-        if (def.isEmpty()) {
+        Def def = definitions.get(ast);
+        if (def == null) {
             Report.error(ast.position, "PINS error: missing definition");
             return null;
         }
 
-        return def.get();
+        return def;
     }
 
     private Frame getFrame(Ast ast) {
-        Optional<Frame> frame = frames.valueFor(ast);
-        if (frame.isEmpty()) {
+        Frame frame = frames.get(ast);
+        if (frame == null) {
             Report.error(ast.position, "PINS error: missing frame");
             return null;
         }
 
-        return frame.get();
+        return frame;
     }
 
     private Type getType(Ast ast) {
-        Optional<Type> type = types.valueFor(ast);
-        if (type.isEmpty()) {
+        Type type = types.get(ast);
+        if (type == null) {
             Report.error(ast.position, "PINS error: missing type");
             return null;
         }
 
-        return type.get();
+        return type;
     }
 
     private Access getAccess(Ast ast) {
-        Optional<Access> access = accesses.valueFor(ast);
-        if (access.isEmpty()) {
+        Access access = accesses.get(ast);
+        if (access == null) {
             Report.error(ast.position, "PINS error: missing access");
             return null;
         }
 
-        return access.get();
+        return access;
     }
 }
\ No newline at end of file
@@ -0,0 +1,71 @@
+/**
+ * @Author: turk
+ * @Description: Štetje vozlišč vmesne kode.
+ */
+
+package compiler.ir;
+
+import java.util.ArrayDeque;
+import java.util.List;
+
+import compiler.ir.chunk.Chunk;
+import compiler.ir.code.IRNode;
+import compiler.ir.code.expr.*;
+import compiler.ir.code.stmt.*;
+
+public class IRNodeCounter {
+    private IRNodeCounter() {}
+
+    /**
+     * Vrne število vozlišč vmesne kode vseh fragmentov s kodo.
+     */
+    public static int nodes(List<Chunk> chunks) {
+        int count = 0;
+        // explicit stack, linearized code of a large function is a long sequence
+        var stack = new ArrayDeque<IRNode>();
+        for (var chunk : chunks) {
+            if (chunk instanceof Chunk.CodeChunk code) {
+                stack.push(code.code);
+            }
+        }
+        while (!stack.isEmpty()) {
+            var node = stack.pop();
+            count++;
+            if (node instanceof BinopExpr binop) {
+                stack.push(binop.lhs);
+                stack.push(binop.rhs);
+            } else if (node instanceof CallExpr call) {
+                call.args.forEach(stack::push);
+            } else if (node instanceof EseqExpr eseq) {
+                stack.push(eseq.stmt);
+                stack.push(eseq.expr);
+            } else if (node instanceof MemExpr mem) {
+                stack.push(mem.expr);
+            } else if (node instanceof CJumpStmt cjump) {
+                stack.push(cjump.condition);
+            } else if (node instanceof ExpStmt exp) {
+                stack.push(exp.expr);
+            } else if (node instanceof MoveStmt move) {
+                stack.push(move.dst);
+                stack.push(move.src);
+            } else if (node instanceof SeqStmt seq) {
+                seq.statements.forEach(stack::push);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Vrne število stavkov lineariziranih fragmentov s kodo (koda
+     * lineariziranega fragmenta je zaporedje stavkov).
+     */
+    public static int statements(List<Chunk> linearChunks) {
+        int count = 0;
+        for (var chunk : linearChunks) {
+            if (chunk instanceof Chunk.CodeChunk code) {
+                count += code.code instanceof SeqStmt seq ? seq.statements.size() : 1;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,99 @@
+/**
+ * @Author: turk
+ * @Description: Dogodki JFR za izvajanje programov.
+ */
+
+package compiler.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Dogodke zapisuje `Interpreter`. Ker je klicev funkcij PINS lahko
+ * zelo veliko, zapišemo le vsak `CALL_SAMPLE_PERIOD`-ti klic; ob istih
+ * klicih preverimo tudi, koliko pomnilnika je nit dodelila od prejšnjega
+ * vzorca.
+ */
+public class InterpreterEvents {
+    private InterpreterEvents() {}
+
+    /**
+     * Vsak koliki klic funkcije zapišemo.
+     */
+    public static final int CALL_SAMPLE_PERIOD = 1024;
+
+    /**
+     * Najmanjše število bajtov, dodeljenih med dvema vzorcema, ki ga
+     * zapišemo kot skok dodeljevanja.
+     */
+    public static final long ALLOCATION_SPIKE_BYTES = 32L << 20;
+
+    private static final EventType functionCall = EventType.getEventType(FunctionCall.class);
+    private static final EventType allocationSpike = EventType.getEventType(AllocationSpike.class);
+
+    /**
+     * Ali je zapisovanje klicev omogočeno.
+     */
+    public static boolean functionCallsEnabled() {
+        return functionCall.isEnabled();
+    }
+
+    /**
+     * Ali je zapisovanje skokov dodeljevanja omogočeno.
+     */
+    public static boolean allocationSpikesEnabled() {
+        return allocationSpike.isEnabled();
+    }
+
+    @Name("pins.FunctionCall")
+    @Label("PINS Function Call")
+    @Description("Sampled call of a PINS function, every " + CALL_SAMPLE_PERIOD + "th call")
+    @Category({ "PINS", "Interpreter" })
+    @StackTrace(false)
+    public static class FunctionCall extends Event {
+        @Label("Function")
+        public String function;
+
+        @Label("Call Depth")
+        public int depth;
+    }
+
+    @Name("pins.StackHighWaterMark")
+    @Label("PINS Stack High-Water Mark")
+    @Description("The interpreter stack grew to a new maximum (reported when it doubles)")
+    @Category({ "PINS", "Interpreter" })
+    @StackTrace(false)
+    public static class StackHighWaterMark extends Event {
+        @Label("Stack Size")
+        @DataAmount
+        public long stackSize;
+
+        @Label("Memory Size")
+        @DataAmount
+        public long memorySize;
+
+        @Label("Call Depth")
+        public int depth;
+    }
+
+    @Name("pins.AllocationSpike")
+    @Label("PINS Allocation Spike")
+    @Description("The interpreter thread allocated at least " + ALLOCATION_SPIKE_BYTES
+            + " bytes between two sampled calls")
+    @Category({ "PINS", "Interpreter" })
+    @StackTrace(false)
+    public static class AllocationSpike extends Event {
+        @Label("Allocated")
+        @DataAmount
+        public long allocated;
+
+        @Label("Function Calls")
+        public long calls;
+    }
+}
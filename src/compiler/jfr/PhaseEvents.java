@@ -0,0 +1,153 @@
+/**
+ * @Author: turk
+ * @Description: Dogodki JFR za faze prevajanja.
+ */
+
+package compiler.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Za vsako fazo prevajanja en tip dogodka; trajanje dogodka je trajanje
+ * faze. Dogodke ustvarja in zapisuje `cli.PhaseTimings` (tip dogodka
+ * določa `PhaseTimings.Phase`), zato se pojavijo v vsakem
+ * posnetku Java Flight Recorder, v katerem so omogočeni (na primer
+ * `-XX:StartFlightRecording:settings=profile`).
+ */
+public class PhaseEvents {
+    private PhaseEvents() {}
+
+    /**
+     * Skupna polja dogodkov faz.
+     */
+    @Category({ "PINS", "Compiler" })
+    @StackTrace(false)
+    public static abstract class Phase extends Event {
+        @Label("Source Size")
+        @Description("Number of characters of the source code")
+        public long sourceSize;
+
+        /**
+         * Nastavi velikost rezultata faze z imenom `name`; neznane
+         * velikosti prezremo.
+         */
+        public void size(String name, long value) {}
+    }
+
+    /**
+     * Faza s številom vozlišč drevesa.
+     */
+    public static abstract class TreePhase extends Phase {
+        @Label("Nodes")
+        @Description("Number of abstract syntax tree nodes")
+        public long nodes;
+
+        @Override
+        public void size(String name, long value) {
+            if (name.equals("nodes")) {
+                nodes = value;
+            }
+        }
+    }
+
+    @Name("pins.Lexer")
+    @Label("PINS Lexer")
+    public static class Lexer extends Phase {
+        @Label("Tokens")
+        public long tokens;
+
+        @Override
+        public void size(String name, long value) {
+            if (name.equals("tokens")) {
+                tokens = value;
+            }
+        }
+    }
+
+    @Name("pins.Parser")
+    @Label("PINS Parser")
+    public static class Parser extends TreePhase {}
+
+    @Name("pins.FusedAnalysis")
+    @Label("PINS Fused Semantic Analysis")
+    public static class FusedAnalysis extends TreePhase {}
+
+    @Name("pins.NameChecker")
+    @Label("PINS Name Checker")
+    public static class NameChecker extends TreePhase {}
+
+    @Name("pins.TypeChecker")
+    @Label("PINS Type Checker")
+    public static class TypeChecker extends TreePhase {}
+
+    @Name("pins.FrameEvaluator")
+    @Label("PINS Frame Evaluator")
+    public static class FrameEvaluator extends TreePhase {}
+
+    @Name("pins.IRCodeGenerator")
+    @Label("PINS Intermediate Code Generator")
+    public static class IRCodeGenerator extends Phase {
+        @Label("Chunks")
+        public long chunks;
+
+        @Label("IR Nodes")
+        public long nodes;
+
+        @Override
+        public void size(String name, long value) {
+            switch (name) {
+                case "chunks" -> chunks = value;
+                case "nodes" -> nodes = value;
+                default -> {}
+            }
+        }
+    }
+
+    @Name("pins.ConstantFolding")
+    @Label("PINS Constant Folding")
+    public static class ConstantFolding extends Phase {
+        @Label("IR Nodes")
+        @Description("Number of intermediate code nodes after simplification")
+        public long nodes;
+
+        @Override
+        public void size(String name, long value) {
+            if (name.equals("nodes")) {
+                nodes = value;
+            }
+        }
+    }
+
+    @Name("pins.Linearization")
+    @Label("PINS Linearization")
+    public static class Linearization extends Phase {
+        @Label("Statements")
+        public long statements;
+
+        @Override
+        public void size(String name, long value) {
+            if (name.equals("statements")) {
+                statements = value;
+            }
+        }
+    }
+
+    @Name("pins.Interpreter")
+    @Label("PINS Interpreter")
+    public static class Interpreter extends Phase {
+        @Label("Function Calls")
+        public long calls;
+
+        @Override
+        public void size(String name, long value) {
+            if (name.equals("calls")) {
+                calls = value;
+            }
+        }
+    }
+}
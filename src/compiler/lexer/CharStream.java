@@ -1,26 +1,44 @@
 package compiler.lexer;
 
 public class CharStream {
-    private String text;
+    private final String text;
+    private final int end;
     private int idx;
     private int line;
     private int column;
     private int prevColumn;
 
     public CharStream(String text) {
-        this.text = text + '\0';
-        this.idx = 0;
-        this.line = 1;
-        this.column = 1;
+        this(text, 0, text.length());
+    }
+
+    /**
+     * Stream over text[start, end) followed by a virtual '\0' sentinel,
+     * so the source never has to be copied.
+     */
+    public CharStream(String text, int start, int end) {
+        this(text, start, end, 1, 1);
+    }
+
+    /**
+     * Stream over text[start, end) that starts at the given line and column,
+     * used to resume lexing in the middle of a source.
+     */
+    public CharStream(String text, int start, int end, int line, int column) {
+        this.text = text;
+        this.end = end;
+        this.idx = start;
+        this.line = line;
+        this.column = column;
         this.prevColumn = 0;
     }
 
     public boolean hasNextChar() {
-        return idx < text.length();
+        return idx <= end;
     }
 
     public char nextChar() {
-        char c = this.text.charAt(this.idx);
+        char c = charAt(this.idx);
         this.idx++;
 
         if (c == '\n') {
@@ -43,13 +61,17 @@ public class CharStream {
         return column;
     }
 
+    public int getIndex() {
+        return idx;
+    }
+
     public void back() {
         if (this.idx <= 0)
             return;
 
         this.idx--;
 
-        char c = this.text.charAt(this.idx);
+        char c = charAt(this.idx);
 
         if (c == '\n') {
             this.line--;
@@ -59,4 +81,8 @@ public class CharStream {
         } else
             this.column--;
     }
-}
\ No newline at end of file
+
+    private char charAt(int index) {
+        return index < end ? text.charAt(index) : '\0';
+    }
+}
@@ -0,0 +1,118 @@
+/**
+ * @Author: turk
+ * @Description: Inkrementalna leksikalna analiza.
+ */
+
+package compiler.lexer;
+
+import static common.RequireNonNull.requireNonNull;
+
+/**
+ * Po spremembi izvorne kode ponovno analizira le del, na katerega
+ * sprememba vpliva.
+ *
+ * Analiza se začne za zadnjim simbolom, ki se konča pred spremembo
+ * (za njim je analizator v začetnem stanju), in teče, dokler se nov
+ * simbol ne začne na istem (zamaknjenem) mestu kot nek star simbol za
+ * spremembo. Od tam naprej je besedilo enako, zato so enaki tudi vsi
+ * nadaljnji simboli; prevzamemo jih iz starega medpomnilnika in jim
+ * popravimo odmike, vrstice in stolpce.
+ *
+ * Identifikatorji se internalizirajo v tabelo imen prejšnjega
+ * medpomnilnika, zato imena ohranijo svoje oznake; nova imena dobijo
+ * nove oznake.
+ */
+public class IncrementalLexer {
+    private IncrementalLexer() {}
+
+    /**
+     * Uporabi spremembo `edit` na izvorni kodi medpomnilnika `previous`
+     * in vrne medpomnilnik simbolov za spremenjeno izvorno kodo.
+     */
+    public static TokenBuffer relex(TokenBuffer previous, TextEdit edit) {
+        requireNonNull(previous, edit);
+        var source = edit.apply(previous.source());
+        var names = previous.names();
+        int delta = edit.delta();
+        int editEnd = edit.offset + edit.removedLength;
+
+        // restart after the last token that ends before the edit
+        int restart = lastEndingBefore(previous, edit.offset);
+        int restartOffset = restart < 0 ? 0 : previous.endOffset(restart);
+        var charStream = restart < 0
+                ? new CharStream(source)
+                : new CharStream(source, restartOffset, source.length(), previous.endLine(restart), previous.endColumn(restart));
+
+        // old tokens that start after the edit are candidates for resynchronization
+        var sync = new int[] { firstStartingAt(previous, editEnd) };
+        var rescanned = new TokenBuffer(source, names, edit.insertedText.length() / 8 + 16);
+        new Lexer(source, names).scan(charStream, rescanned, tokens -> {
+            int last = tokens.size() - 1;
+            int start = tokens.startOffset(last);
+            while (sync[0] < previous.size() && previous.startOffset(sync[0]) + delta < start) {
+                sync[0]++;
+            }
+            return sync[0] < previous.size()
+                    && previous.startOffset(sync[0]) + delta == start
+                    && previous.endOffset(sync[0]) + delta == tokens.endOffset(last)
+                    && previous.type(sync[0]) == tokens.type(last);
+        });
+
+        var tokens = new TokenBuffer(source, names, previous.size() + rescanned.size());
+        tokens.append(previous, 0, restart + 1, 0, 0, 0, 0, null);
+        int last = rescanned.size() - 1;
+        if (rescanned.type(last) != TokenType.EOF) {
+            // lexing stopped: the last rescanned token is the same as the old token `sync`
+            tokens.append(rescanned, 0, last, 0, 0, 0, 0, null);
+            tokens.append(previous, sync[0], previous.size(),
+                    delta,
+                    rescanned.startLine(last) - previous.startLine(sync[0]),
+                    previous.startLine(sync[0]),
+                    rescanned.startColumn(last) - previous.startColumn(sync[0]),
+                    null);
+        } else {
+            tokens.append(rescanned, 0, rescanned.size(), 0, 0, 0, 0, null);
+        }
+        return tokens;
+    }
+
+    // ----------------------------
+
+    /**
+     * Vrne indeks zadnjega simbola, ki se konča pred odmikom `offset`,
+     * ali `-1`, če takega simbola ni.
+     */
+    private static int lastEndingBefore(TokenBuffer tokens, int offset) {
+        int low = 0;
+        int high = tokens.size() - 1;
+        int result = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (tokens.endOffset(middle) < offset && tokens.type(middle) != TokenType.EOF) {
+                result = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Vrne indeks prvega simbola, ki se začne pri odmiku `offset` ali
+     * kasneje, ali `tokens.size()`, če takega simbola ni.
+     */
+    private static int firstStartingAt(TokenBuffer tokens, int offset) {
+        int low = 0;
+        int high = tokens.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (tokens.startOffset(middle) < offset) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -7,10 +7,8 @@ package compiler.lexer;
 
 import common.Report;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.function.Predicate;
 
 import static common.RequireNonNull.requireNonNull;
 import static compiler.lexer.TokenType.*;
@@ -22,22 +20,29 @@ public class Lexer {
     private final String source;
 
     /**
-     * Preslikava iz ključnih besed v vrste simbolov.
+     * Tabela imen, v katero internaliziramo identifikatorje.
      */
-    private final static Map<String, TokenType> keywordMapping;
-
-    static {
-        keywordMapping = new HashMap<>();
-        for (var token : TokenType.values()) {
-            var str = token.toString();
-            if (str.startsWith("KW_")) {
-                keywordMapping.put(str.substring("KW_".length()).toLowerCase(), token);
-            }
-            if (str.startsWith("AT_")) {
-                keywordMapping.put(str.substring("AT_".length()).toLowerCase(), token);
-            }
-        }
-    }
+    private final NameTable names;
+
+    /**
+     * Medpomnilnik, v katerega se zapisujejo prebrani simboli.
+     */
+    private TokenBuffer tokens;
+
+    /**
+     * Odmik začetka trenutnega leksema v izvorni kodi.
+     */
+    private int tokenStart;
+
+    /**
+     * Pogoj za predčasno ustavitev analize (glej `IncrementalLexer`).
+     */
+    private Predicate<TokenBuffer> stop;
+
+    /**
+     * Ali je bila analiza predčasno ustavljena.
+     */
+    private boolean stopped;
 
     /**
      * Ustvari nov analizator.
@@ -45,8 +50,19 @@ public class Lexer {
      * @param source Izvorna koda programa.
      */
     public Lexer(String source) {
-        requireNonNull(source);
+        this(source, new NameTable());
+    }
+
+    /**
+     * Ustvari nov analizator.
+     *
+     * @param source Izvorna koda programa.
+     * @param names Tabela imen, v katero internaliziramo identifikatorje.
+     */
+    public Lexer(String source, NameTable names) {
+        requireNonNull(source, names);
         this.source = source;
+        this.names = names;
     }
 
     /**
@@ -55,21 +71,53 @@ public class Lexer {
      * @return seznam leksikalnih simbolov.
      */
     public List<Symbol> scan() {
+        return scanTokens().symbols();
+    }
+
+    /**
+     * Izvedi leksikalno analizo.
+     *
+     * @return kompaktni medpomnilnik leksikalnih simbolov.
+     */
+    public TokenBuffer scanTokens() {
+        if (source.length() >= ParallelLexer.THRESHOLD) {
+            return new ParallelLexer(source, names).scan();
+        }
+        return scanRegion(0, source.length());
+    }
+
+    /**
+     * Izvedi leksikalno analizo dela izvorne kode `source[start, end)`.
+     *
+     * Vrstice se štejejo od začetka območja, odmiki pa od začetka
+     * izvorne kode.
+     */
+    TokenBuffer scanRegion(int start, int end) {
+        return scan(new CharStream(this.source, start, end), new TokenBuffer(this.source, this.names, (end - start) / 8 + 16), null);
+    }
+
+    /**
+     * Izvedi leksikalno analizo od trenutnega položaja toka `charStream`
+     * in simbole dodajaj v `tokens`.
+     *
+     * Če je podan pogoj `stop`, se preveri po vsakem dodanem simbolu;
+     * ko je izpolnjen, se analiza ustavi (simbol EOF se ne doda).
+     */
+    TokenBuffer scan(CharStream charStream, TokenBuffer tokens, Predicate<TokenBuffer> stop) {
         // IMPLEMENTACIJA LEKSIKALNE ANALIZE
-        var symbols = new ArrayList<Symbol>();
+        this.tokens = tokens;
+        this.stop = stop;
+        this.stopped = false;
 
         int state = 0;
-        Symbol symbol;
-        StringBuilder lexeme = new StringBuilder();
-        CharStream charStream = new CharStream(this.source);
 
-        while (charStream.hasNextChar()) {
+        while (!stopped && charStream.hasNextChar()) {
             switch (state) {
 
                 // START INITIAL STATE
                 case 0 -> {
+                    tokenStart = charStream.getIndex(); // lexeme is source[tokenStart, index)
                     char c = charStream.nextChar();
-                    lexeme.append(c);
 
                     if (c == ' ' | c == '\t' | c == '\r' | c == '\n' | c == '\0') state = 1; // REMOVING WHITE TEXT
                     else if (c == '+') state = 2; // OPERATORS
@@ -101,7 +149,7 @@ public class Lexer {
                     else if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c == '_'))
                         state = 98; // KEYWORDS AND IDENTIFIERS
                     else { // handle exception: invalid character
-                        handleError(charStream, lexeme.toString(), "PINS error: invalid character", 1);
+                        handleError(charStream, 1, "PINS error: invalid character", 1);
                     }
                 }
 
@@ -110,8 +158,7 @@ public class Lexer {
                 // START WHITE TEXT
 
                 case 1 -> {
-                    lexeme.deleteCharAt(lexeme.length() - 1); // deleting white text
-                    state = 0;
+                    state = 0; // white text is skipped
                 }
 
                 // END WHITE TEXT
@@ -119,104 +166,87 @@ public class Lexer {
                 // START OPERATORS
 
                 case 2 -> {
-                    symbol = getSymbol(lexeme.toString(), OP_ADD, charStream);
-                    addSymbolToListAndClearLexeme(symbol, symbols, lexeme);
+                    addToken(OP_ADD, charStream);
                     state = 0;
                 }
 
                 case 3 -> {
-                    symbol = getSymbol(lexeme.toString(), OP_SUB, charStream);
-                    addSymbolToListAndClearLexeme(symbol, symbols, lexeme);
+                    addToken(OP_SUB, charStream);
                     state = 0;
                 }
 
                 case 4 -> {
-                    symbol = getSymbol(lexeme.toString(), OP_MUL, charStream);
-                    addSymbolToListAndClearLexeme(symbol, symbols, lexeme);
+                    addToken(OP_MUL, charStream);
                     state = 0;
                 }
 
                 case 5 -> {
-                    symbol = getSymbol(lexeme.toString(), OP_DIV, charStream);
-                    addSymbolToListAndClearLexeme(symbol, symbols, lexeme);
+                    addToken(OP_DIV, charStream);
                     state = 0;
                 }
 
                 case 6 -> {
-                    symbol = getSymbol(lexeme.toString(), OP_MOD, charStream);
-                    addSymbolToListAndClearLexeme(symbol, symbols, lexeme);
+                    addToken(OP_MOD, charStream);
                     state = 0;
                 }
 
                 case 7 -> {
-                    symbol = getSymbol(lexeme.toString(), OP_AND, charStream);
-                    addSymbolToListAndClearLexeme(symbol, symbols, lexeme);
+                    addToken(OP_AND, charStream);
                     state = 0;
                 }
 
                 case 8 -> {
-                    symbol = getSymbol(lexeme.toString(), OP_OR, charStream);
-                    addSymbolToListAndClearLexeme(symbol, symbols, lexeme);
+                    addToken(OP_OR, charStream);
                     state = 0;
                 }
 
                 case 9 -> {
-                    symbol = getSymbol(lexeme.toString(), OP_LPARENT, charStream);
-                    addSymbolToListAndClearLexeme(symbol, symbols, lexeme);
+                    addToken(OP_LPARENT, charStream);
                     state = 0;
                 }
 
                 case 10 -> {
-                    symbol = getSymbol(lexeme.toString(), OP_RPARENT, charStream);
-                    addSymbolToListAndClearLexeme(symbol, symbols, lexeme);
+                    addToken(OP_RPARENT, charStream);
                     state = 0;
                 }
 
                 case 11 -> {
-                    symbol = getSymbol(lexeme.toString(), OP_LBRACKET, charStream);
-                    addSymbolToListAndClearLexeme(symbol, symbols, lexeme);
+                    addToken(OP_LBRACKET, charStream);
                     state = 0;
                 }
 
                 case 12 -> {
-                    symbol = getSymbol(lexeme.toString(), OP_RBRACKET, charStream);
-                    addSymbolToListAndClearLexeme(symbol, symbols, lexeme);
+                    addToken(OP_RBRACKET, charStream);
                     state = 0;
                 }
 
                 case 13 -> {
-                    symbol = getSymbol(lexeme.toString(), OP_LBRACE, charStream);
-                    addSymbolToListAndClearLexeme(symbol, symbols, lexeme);
+                    addToken(OP_LBRACE, charStream);
                     state = 0;
                 }
 
                 case 14 -> {
-                    symbol = getSymbol(lexeme.toString(), OP_RBRACE, charStream);
-                    addSymbolToListAndClearLexeme(symbol, symbols, lexeme);
+                    addToken(OP_RBRACE, charStream);
                     state = 0;
                 }
 
                 case 15 -> {
-                    symbol = getSymbol(lexeme.toString(), OP_COLON, charStream);
-                    addSymbolToListAndClearLexeme(symbol, symbols, lexeme);
+                    addToken(OP_COLON, charStream);
                     state = 0;
                 }
 
                 case 16 -> {
-                    symbol = getSymbol(lexeme.toString(), OP_SEMICOLON, charStream);
-                    addSymbolToListAndClearLexeme(symbol, symbols, lexeme);
+                    addToken(OP_SEMICOLON, charStream);
                     state = 0;
                 }
 
                 case 17 -> {
-                    symbol = getSymbol(lexeme.toString(), OP_DOT, charStream);
-                    addSymbolToListAndClearLexeme(symbol, symbols, lexeme);
+                    addToken(OP_DOT, charStream);
                     state = 0;
                 }
 
                 case 18 -> {
-                    symbol = getSymbol(lexeme.toString(), OP_COMMA, charStream);
-                    addSymbolToListAndClearLexeme(symbol, symbols, lexeme);
+                    addToken(OP_COMMA, charStream);
                     state = 0;
                 }
 
@@ -224,7 +254,6 @@ public class Lexer {
                     char c = charStream.nextChar();
 
                     if (c == '=') {
-                        lexeme.append(c);
                         state = 20;
                     } else {
                         charStream.back(); // one char back
@@ -233,14 +262,12 @@ public class Lexer {
                 }
 
                 case 20 -> {
-                    symbol = getSymbol(lexeme.toString(), OP_NEQ, charStream);
-                    addSymbolToListAndClearLexeme(symbol, symbols, lexeme);
+                    addToken(OP_NEQ, charStream);
                     state = 0;
                 }
 
                 case 21 -> {
-                    symbol = getSymbol(lexeme.toString(), OP_NOT, charStream);
-                    addSymbolToListAndClearLexeme(symbol, symbols, lexeme);
+                    addToken(OP_NOT, charStream);
                     state = 0;
                 }
 
@@ -248,7 +275,6 @@ public class Lexer {
                     char c = charStream.nextChar();
 
                     if (c == '=') {
-                        lexeme.append(c);
                         state = 23;
                     } else {
                         charStream.back(); // one char back
@@ -257,14 +283,12 @@ public class Lexer {
                 }
 
                 case 23 -> {
-                    symbol = getSymbol(lexeme.toString(), OP_EQ, charStream);
-                    addSymbolToListAndClearLexeme(symbol, symbols, lexeme);
+                    addToken(OP_EQ, charStream);
                     state = 0;
                 }
 
                 case 24 -> {
-                    symbol = getSymbol(lexeme.toString(), OP_ASSIGN, charStream);
-                    addSymbolToListAndClearLexeme(symbol, symbols, lexeme);
+                    addToken(OP_ASSIGN, charStream);
                     state = 0;
                 }
 
@@ -272,7 +296,6 @@ public class Lexer {
                     char c = charStream.nextChar();
 
                     if (c == '=') {
-                        lexeme.append(c);
                         state = 26;
                     } else {
                         charStream.back(); // one char back
@@ -281,14 +304,12 @@ public class Lexer {
                 }
 
                 case 26 -> {
-                    symbol = getSymbol(lexeme.toString(), OP_GEQ, charStream);
-                    addSymbolToListAndClearLexeme(symbol, symbols, lexeme);
+                    addToken(OP_GEQ, charStream);
                     state = 0;
                 }
 
                 case 27 -> {
-                    symbol = getSymbol(lexeme.toString(), OP_GT, charStream);
-                    addSymbolToListAndClearLexeme(symbol, symbols, lexeme);
+                    addToken(OP_GT, charStream);
                     state = 0;
                 }
 
@@ -296,7 +317,6 @@ public class Lexer {
                     char c = charStream.nextChar();
 
                     if (c == '=') {
-                        lexeme.append(c);
                         state = 29;
                     } else {
                         charStream.back(); // one char back
@@ -305,14 +325,12 @@ public class Lexer {
                 }
 
                 case 29 -> {
-                    symbol = getSymbol(lexeme.toString(), OP_LEQ, charStream);
-                    addSymbolToListAndClearLexeme(symbol, symbols, lexeme);
+                    addToken(OP_LEQ, charStream);
                     state = 0;
                 }
 
                 case 30 -> {
-                    symbol = getSymbol(lexeme.toString(), OP_LT, charStream);
-                    addSymbolToListAndClearLexeme(symbol, symbols, lexeme);
+                    addToken(OP_LT, charStream);
                     state = 0;
                 }
 
@@ -324,7 +342,6 @@ public class Lexer {
                     char c = charStream.nextChar();
 
                     if (c >= '0' && c <= '9') {
-                        lexeme.append(c);
                         state = 31; // loops until there are numbers
                     } else {
                         charStream.back(); // one char back
@@ -333,8 +350,7 @@ public class Lexer {
                 }
 
                 case 32 -> {
-                    symbol = getSymbol(lexeme.toString(), C_INTEGER, charStream);
-                    addSymbolToListAndClearLexeme(symbol, symbols, lexeme);
+                    addToken(C_INTEGER, charStream);
                     state = 0;
                 }
 
@@ -346,10 +362,8 @@ public class Lexer {
                     char c = charStream.nextChar();
 
                     if (c == 'r') { // tr
-                        lexeme.append(c);
                         state = 35;
                     } else if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || (c == '_')) {
-                        lexeme.append(c);
                         state = 98;
                     } else {
                         charStream.back(); // one char back
@@ -361,10 +375,8 @@ public class Lexer {
                     char c = charStream.nextChar();
 
                     if (c == 'u') { // tru
-                        lexeme.append(c);
                         state = 36;
                     } else if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || (c == '_')) {
-                        lexeme.append(c);
                         state = 98;
                     } else {
                         charStream.back(); // one char back
@@ -376,10 +388,8 @@ public class Lexer {
                     char c = charStream.nextChar();
 
                     if (c == 'e') { // true
-                        lexeme.append(c);
                         state = 37;
                     } else if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || (c == '_')) {
-                        lexeme.append(c);
                         state = 98;
                     } else {
                         charStream.back(); // one char back
@@ -391,7 +401,6 @@ public class Lexer {
                     char c = charStream.nextChar();
 
                     if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || (c == '_')) {
-                        lexeme.append(c);
                         state = 98; // identifier
                     } else {
                         charStream.back(); // one char back
@@ -400,8 +409,7 @@ public class Lexer {
                 }
 
                 case 38 -> {
-                    symbol = getSymbol(lexeme.toString(), C_LOGICAL, charStream);
-                    addSymbolToListAndClearLexeme(symbol, symbols, lexeme);
+                    addToken(C_LOGICAL, charStream);
                     state = 0;
                 }
 
@@ -409,10 +417,8 @@ public class Lexer {
                     char c = charStream.nextChar();
 
                     if (c == 'a') { // fa
-                        lexeme.append(c);
                         state = 40;
                     } else if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || (c == '_')) {
-                        lexeme.append(c);
                         state = 98;
                     } else {
                         charStream.back(); // one char back
@@ -424,10 +430,8 @@ public class Lexer {
                     char c = charStream.nextChar();
 
                     if (c == 'l') { // fal
-                        lexeme.append(c);
                         state = 41;
                     } else if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || (c == '_')) {
-                        lexeme.append(c);
                         state = 98;
                     } else {
                         charStream.back(); // one char back
@@ -439,10 +443,8 @@ public class Lexer {
                     char c = charStream.nextChar();
 
                     if (c == 's') { // fals
-                        lexeme.append(c);
                         state = 42;
                     } else if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || (c == '_')) {
-                        lexeme.append(c);
                         state = 98;
                     } else {
                         charStream.back(); // one char back
@@ -454,10 +456,8 @@ public class Lexer {
                     char c = charStream.nextChar();
 
                     if (c == 'e') { // false
-                        lexeme.append(c);
                         state = 43;
                     } else if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || (c == '_')) {
-                        lexeme.append(c);
                         state = 98;
                     } else {
                         charStream.back(); // one char back
@@ -469,7 +469,6 @@ public class Lexer {
                     char c = charStream.nextChar();
 
                     if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || (c == '_')) {
-                        lexeme.append(c);
                         state = 98; // identifier
                     } else {
                         charStream.back(); // one char back
@@ -478,8 +477,7 @@ public class Lexer {
                 }
 
                 case 44 -> {
-                    symbol = getSymbol(lexeme.toString(), C_LOGICAL, charStream);
-                    addSymbolToListAndClearLexeme(symbol, symbols, lexeme);
+                    addToken(C_LOGICAL, charStream);
                     state = 0;
                 }
 
@@ -491,17 +489,15 @@ public class Lexer {
                     char c = charStream.nextChar();
 
                     if (c == '\'') { // closed string literal or '' (quotation marks)
-                        lexeme.append(c);
                         state = 46;
                     } else if (c >= ' ' && c <= '~') {
-                        lexeme.append(c);
                         state = 45; // loops until there are characters
                     } else {
                         // exception: invalid character or unclosed string literal
                         if (c == '\t' | c == '\r' | c == '\n' || c == '\0')
-                            handleError(charStream, lexeme.toString(), "PINS error: unclosed string literal", 0);
+                            handleError(charStream, charStream.getIndex() - 1 - tokenStart, "PINS error: unclosed string literal", 0);
                         else
-                            handleError(charStream, lexeme.toString(), "PINS error: invalid character", 1);
+                            handleError(charStream, charStream.getIndex() - 1 - tokenStart, "PINS error: invalid character", 1);
                     }
                 }
 
@@ -509,7 +505,6 @@ public class Lexer {
                     char c = charStream.nextChar();
 
                     if (c == '\'') {
-                        lexeme.append(c);
                         state = 45;          // '' (quotation marks)
                     } else {
                         charStream.back(); // one char back,  closed string literal
@@ -518,8 +513,7 @@ public class Lexer {
                 }
 
                 case 47 -> {
-                    symbol = getSymbol(lexeme.toString(), C_STRING, charStream);
-                    addSymbolToListAndClearLexeme(symbol, symbols, lexeme);
+                    addToken(C_STRING, charStream);
                     state = 0;
                 }
 
@@ -531,7 +525,6 @@ public class Lexer {
                     char c = charStream.nextChar();
 
                     if (!(c == '\r' || c == '\n' || c == '\0')) {
-                        lexeme.append(c);
                         state = 48; // loops to end of line or EOF
                     } else {
                         state = 49;
@@ -539,8 +532,7 @@ public class Lexer {
                 }
 
                 case 49 -> {
-                    lexeme.setLength(0); // deleting comment
-                    state = 0;
+                    state = 0; // comment is skipped
                 }
 
                 // END COMMENTS
@@ -551,7 +543,6 @@ public class Lexer {
                     char c = charStream.nextChar();
 
                     if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || (c == '_')) {
-                        lexeme.append(c);
                         state = 98;
                     } else {
                         charStream.back(); // one char back
@@ -560,13 +551,11 @@ public class Lexer {
                 }
 
                 case 99 -> {
-                    symbol = getSymbol( // keyword or identifier
-                            lexeme.toString(),
-                            this.keywordMapping.getOrDefault(lexeme.toString(), IDENTIFIER),
-                            charStream
-                    );
-
-                    addSymbolToListAndClearLexeme(symbol, symbols, lexeme);
+                    var type = keyword(tokenStart, charStream.getIndex());
+                    if (type == IDENTIFIER) // identifiers are interned
+                        addToken(type, names.intern(source, tokenStart, charStream.getIndex()), charStream);
+                    else // keyword
+                        addToken(type, charStream);
                     state = 0;
                 }
 
@@ -574,25 +563,30 @@ public class Lexer {
             }
         }
 
+        if (stopped) {
+            return tokens;
+        }
+
         // START EOF
 
-        lexeme = new StringBuilder("$");
-        symbol = getSymbol(lexeme.toString(), EOF, charStream);
-        addSymbolToListAndClearLexeme(symbol, symbols, lexeme);
+        int endLine = charStream.getLine();
+        int endColumn = charStream.getColumn();
+        int endOffset = charStream.getIndex() - 1; // '\0' sentinel was consumed
+        tokens.add(EOF, endOffset, endOffset, endLine, endColumn - 1, endLine, endColumn);
 
-        // START EOF
+        // END EOF
 
-        return symbols;
+        return tokens;
     }
 
     /*AUXILIARY METHODS*/
-    private static void handleError(CharStream charStream, String lexeme, String message, int pos) {
+    private static void handleError(CharStream charStream, int lexemeLength, String message, int pos) {
         int endLine = charStream.getLine();
         int endColumn = charStream.getColumn();
 
         if (pos == 0) {
             Report.error(
-                    new Position(endLine, endColumn - lexeme.length(), endLine, endColumn - lexeme.length()),
+                    new Position(endLine, endColumn - lexemeLength, endLine, endColumn - lexemeLength),
                     message);
         } else {
             Report.error(
@@ -601,27 +595,55 @@ public class Lexer {
         }
     }
 
-    private static void addSymbolToListAndClearLexeme(Symbol symbol, ArrayList<Symbol> symbols, StringBuilder lexeme) {
-        symbols.add(symbol);
-        lexeme.setLength(0);
+    /**
+     * Vrne vrsto ključne besede `source[start, end)` ali `IDENTIFIER`,
+     * če besedilo ni ključna beseda. Izbira po dolžini in prvem znaku,
+     * tako da se za identifikatorje ne ustvari noben niz.
+     */
+    private TokenType keyword(int start, int end) {
+        return switch (end - start) {
+            case 2 -> matches(start, "if") ? KW_IF : IDENTIFIER;
+            case 3 -> switch (source.charAt(start)) {
+                case 'a' -> matches(start, "arr") ? KW_ARR : IDENTIFIER;
+                case 'f' -> matches(start, "for") ? KW_FOR : matches(start, "fun") ? KW_FUN : IDENTIFIER;
+                case 't' -> matches(start, "typ") ? KW_TYP : IDENTIFIER;
+                case 'v' -> matches(start, "var") ? KW_VAR : IDENTIFIER;
+                default -> IDENTIFIER;
+            };
+            case 4 -> switch (source.charAt(start)) {
+                case 'e' -> matches(start, "else") ? KW_ELSE : IDENTIFIER;
+                case 't' -> matches(start, "then") ? KW_THEN : IDENTIFIER;
+                default -> IDENTIFIER;
+            };
+            case 5 -> source.charAt(start) != 'w' ? IDENTIFIER
+                    : matches(start, "where") ? KW_WHERE : matches(start, "while") ? KW_WHILE : IDENTIFIER;
+            case 6 -> matches(start, "string") ? AT_STRING : IDENTIFIER;
+            case 7 -> switch (source.charAt(start)) {
+                case 'l' -> matches(start, "logical") ? AT_LOGICAL : IDENTIFIER;
+                case 'i' -> matches(start, "integer") ? AT_INTEGER : IDENTIFIER;
+                default -> IDENTIFIER;
+            };
+            default -> IDENTIFIER;
+        };
+    }
+
+    private boolean matches(int start, String keyword) {
+        return source.regionMatches(start, keyword, 0, keyword.length());
     }
 
-    private static Symbol getSymbol(String lexeme, TokenType type, CharStream charStream) {
+    private void addToken(TokenType type, CharStream charStream) {
+        addToken(type, NameTable.NONE, charStream);
+    }
+
+    private void addToken(TokenType type, int nameId, CharStream charStream) {
         int endLine = charStream.getLine();
         int endColumn = charStream.getColumn();
+        int endOffset = charStream.getIndex();
 
-        if (type == C_STRING) {
-            return new Symbol(
-                    new Position(endLine, endColumn - lexeme.length(), endLine, endColumn),
-                    type,
-                    lexeme.substring(1, lexeme.length() - 1).replace("''", "'")
-            );
-        }
+        tokens.add(type, nameId, tokenStart, endOffset, endLine, endColumn - (endOffset - tokenStart), endLine, endColumn);
 
-        return new Symbol(
-                new Position(endLine, endColumn - lexeme.length(), endLine, endColumn),
-                type,
-                lexeme
-        );
+        if (stop != null && stop.test(tokens)) {
+            stopped = true;
+        }
     }
-}
\ No newline at end of file
+}
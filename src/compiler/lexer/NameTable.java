@@ -0,0 +1,172 @@
+/**
+ * @Author: turk
+ * @Description: Tabela internaliziranih imen.
+ */
+
+package compiler.lexer;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.util.Arrays;
+
+/**
+ * Vsakemu različnemu imenu (identifikatorju) dodeli gosto celoštevilsko
+ * oznako `0, 1, 2, ...`. Ista imena dobijo isto oznako, zato lahko
+ * kasnejše faze namesto primerjave in zgoščevanja nizov uporabljajo
+ * indeksiranje tabel.
+ *
+ * Iskanje poteka neposredno nad znaki izvorne kode, zato za imena,
+ * ki so že v tabeli, ne ustvari novega niza.
+ */
+public class NameTable {
+    /**
+     * Oznaka, ki predstavlja odsotnost imena.
+     */
+    public static final int NONE = -1;
+
+    /**
+     * Imena, indeksirana z njihovo oznako.
+     */
+    private String[] names;
+
+    /**
+     * Zgoščene vrednosti imen, indeksirane z njihovo oznako.
+     */
+    private int[] hashes;
+
+    /**
+     * Zgoščevalna tabela z odprtim naslavljanjem; hrani `oznaka + 1`
+     * (vrednost `0` pomeni prazno mesto).
+     */
+    private int[] slots;
+
+    /**
+     * Število imen v tabeli.
+     */
+    private int size = 0;
+
+    public NameTable() {
+        this(64);
+    }
+
+    /**
+     * Ustvari novo tabelo z vnaprej določeno kapaciteto.
+     *
+     * @param capacity Pričakovano število različnih imen.
+     */
+    public NameTable(int capacity) {
+        capacity = Math.max(capacity, 8);
+        this.names = new String[capacity];
+        this.hashes = new int[capacity];
+        this.slots = new int[Integer.highestOneBit(capacity * 2 - 1) << 1];
+    }
+
+    /**
+     * Vrne oznako imena `text[start, end)`; če ime še ne obstaja,
+     * mu dodeli novo oznako.
+     */
+    public int intern(CharSequence text, int start, int end) {
+        int hash = hash(text, start, end);
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        while (slots[slot] != 0) {
+            int id = slots[slot] - 1;
+            if (hashes[id] == hash && matches(names[id], text, start, end)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return add(text.subSequence(start, end).toString(), hash, slot);
+    }
+
+    /**
+     * Vrne oznako imena `name`; če ime še ne obstaja,
+     * mu dodeli novo oznako.
+     */
+    public int intern(String name) {
+        requireNonNull(name);
+        return intern(name, 0, name.length());
+    }
+
+    /**
+     * Vrne oznako imena `name` ali `NONE`, če imena ni v tabeli.
+     */
+    public int find(String name) {
+        requireNonNull(name);
+        int hash = hash(name, 0, name.length());
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (hashes[id] == hash && names[id].equals(name)) {
+                return id;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Vrne ime z oznako `id`.
+     */
+    public String name(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException(id);
+        }
+        return names[id];
+    }
+
+    /**
+     * Vrne število imen v tabeli.
+     */
+    public int size() {
+        return size;
+    }
+
+    // ----------------------------
+
+    private int add(String name, int hash, int slot) {
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        int id = size++;
+        names[id] = name;
+        hashes[id] = hash;
+        slots[slot] = id + 1;
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hashes[id] & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+
+    private static int hash(CharSequence text, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + text.charAt(i);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean matches(String name, CharSequence text, int start, int end) {
+        if (name.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != text.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,152 @@
+/**
+ * @Author: turk
+ * @Description: Vzporedni leksikalni analizator za velike izvorne datoteke.
+ */
+
+package compiler.lexer;
+
+import static common.RequireNonNull.requireNonNull;
+
+import common.Report;
+
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Izvorno kodo razdeli na kose, jih leksikalno analizira vzporedno in
+ * rezultate združi v en medpomnilnik, ki je enak rezultatu zaporedne
+ * analize.
+ *
+ * Kosi se začnejo na začetku vrstice. Ker se niti znakovne konstante
+ * niti komentarji ne raztezajo čez konec vrstice, je analizator na
+ * začetku vrstice vedno v začetnem stanju, zato je tak razrez varen.
+ */
+class ParallelLexer {
+    /**
+     * Velikost izvorne kode (v znakih), nad katero `Lexer` samodejno
+     * uporabi vzporedno analizo.
+     */
+    static final int THRESHOLD = 1 << 20;
+
+    /**
+     * Najmanjša velikost posameznega kosa.
+     */
+    private static final int MIN_CHUNK_SIZE = 1 << 16;
+
+    private final String source;
+    private final NameTable names;
+    private final int chunkSize;
+
+    ParallelLexer(String source, NameTable names) {
+        this(source, names, Math.max(MIN_CHUNK_SIZE,
+                source.length() / (4 * ForkJoinPool.getCommonPoolParallelism()) + 1));
+    }
+
+    ParallelLexer(String source, NameTable names, int chunkSize) {
+        requireNonNull(source, names);
+        this.source = source;
+        this.names = names;
+        this.chunkSize = Math.max(chunkSize, 1);
+    }
+
+    /**
+     * Izvedi leksikalno analizo.
+     */
+    TokenBuffer scan() {
+        var bounds = split();
+        int chunks = bounds.size() - 1;
+
+        var tasks = new ArrayList<ForkJoinTask<Chunk>>(chunks);
+        for (int i = 0; i < chunks; i++) {
+            int start = bounds.get(i);
+            int end = bounds.get(i + 1);
+            tasks.add(ForkJoinPool.commonPool().submit(() -> lex(start, end)));
+        }
+
+        // join in source order, so the first reported error is the same
+        // as in sequential lexing
+        var results = new ArrayList<Chunk>(chunks);
+        int lineOffset = 0;
+        int total = 0;
+        for (var task : tasks) {
+            var chunk = task.join();
+            if (chunk.failure != null) {
+                shift(chunk.failure, lineOffset).report();
+            }
+            results.add(chunk);
+            var tokens = chunk.tokens;
+            lineOffset += tokens.endLine(tokens.size() - 1) - 1;
+            total += tokens.size() - 1;
+        }
+
+        var tokens = new TokenBuffer(source, names, total + 1);
+        lineOffset = 0;
+        for (int i = 0; i < chunks; i++) {
+            var chunk = results.get(i);
+            // chunk-local name ids are interned in order, which preserves
+            // the order of first occurrence
+            var chunkNames = chunk.tokens.names();
+            var nameIdMap = new int[chunkNames.size()];
+            for (int id = 0; id < nameIdMap.length; id++) {
+                nameIdMap[id] = names.intern(chunkNames.name(id));
+            }
+            // every chunk ends with EOF; only the last one is kept
+            int count = chunk.tokens.size() - (i == chunks - 1 ? 0 : 1);
+            tokens.append(chunk.tokens, 0, count, lineOffset, nameIdMap);
+            lineOffset += chunk.tokens.endLine(chunk.tokens.size() - 1) - 1;
+        }
+        return tokens;
+    }
+
+    // ----------------------------
+
+    /**
+     * Vrne meje kosov; vsaka notranja meja je začetek vrstice.
+     */
+    private ArrayList<Integer> split() {
+        var bounds = new ArrayList<Integer>();
+        bounds.add(0);
+        int position = 0;
+        while (source.length() - position > chunkSize) {
+            int newline = source.indexOf('\n', position + chunkSize);
+            if (newline < 0 || newline + 1 >= source.length()) {
+                break;
+            }
+            position = newline + 1;
+            bounds.add(position);
+        }
+        bounds.add(source.length());
+        return bounds;
+    }
+
+    private Chunk lex(int start, int end) {
+        try {
+            return Report.deferred(() -> new Chunk(new Lexer(source, new NameTable()).scanRegion(start, end), null));
+        } catch (Report.Failure failure) {
+            return new Chunk(null, failure);
+        }
+    }
+
+    private static Report.Failure shift(Report.Failure failure, int lineOffset) {
+        if (failure.position.isEmpty()) {
+            return failure;
+        }
+        var position = failure.position.get();
+        return new Report.Failure(Optional.of(new Position(
+                position.start.line + lineOffset, position.start.column,
+                position.end.line + lineOffset, position.end.column
+        )), failure.message);
+    }
+
+    private static class Chunk {
+        final TokenBuffer tokens;
+        final Report.Failure failure;
+
+        Chunk(TokenBuffer tokens, Report.Failure failure) {
+            this.tokens = tokens;
+            this.failure = failure;
+        }
+    }
+}
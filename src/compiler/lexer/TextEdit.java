@@ -0,0 +1,56 @@
+/**
+ * @Author: turk
+ * @Description: Sprememba izvorne kode.
+ */
+
+package compiler.lexer;
+
+import static common.RequireNonNull.requireNonNull;
+
+/**
+ * Zamenjava `removedLength` znakov od odmika `offset` naprej z
+ * besedilom `insertedText`.
+ */
+public class TextEdit {
+    /**
+     * Odmik začetka spremembe.
+     */
+    public final int offset;
+
+    /**
+     * Število odstranjenih znakov.
+     */
+    public final int removedLength;
+
+    /**
+     * Vstavljeno besedilo.
+     */
+    public final String insertedText;
+
+    public TextEdit(int offset, int removedLength, String insertedText) {
+        requireNonNull(insertedText);
+        if (offset < 0 || removedLength < 0) {
+            throw new IllegalArgumentException("Invalid text edit: " + offset + ", " + removedLength);
+        }
+        this.offset = offset;
+        this.removedLength = removedLength;
+        this.insertedText = insertedText;
+    }
+
+    /**
+     * Vrne spremembo dolžine besedila.
+     */
+    public int delta() {
+        return insertedText.length() - removedLength;
+    }
+
+    /**
+     * Uporabi spremembo na besedilu `source`.
+     */
+    public String apply(String source) {
+        if (offset + removedLength > source.length()) {
+            throw new IllegalArgumentException("Text edit out of range: " + offset + ", " + removedLength);
+        }
+        return source.substring(0, offset) + insertedText + source.substring(offset + removedLength);
+    }
+}
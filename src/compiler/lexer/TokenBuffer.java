@@ -0,0 +1,326 @@
+/**
+ * @Author: turk
+ * @Description: Kompaktni medpomnilnik leksikalnih simbolov.
+ */
+
+package compiler.lexer;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Leksikalne simbole hrani v vzporednih tabelah primitivnih tipov
+ * (vrsta simbola, začetni in končni odmik v izvorni kodi ter zapakirani
+ * lokaciji). Objekte `Symbol`, `Position` in lekseme ustvari šele,
+ * ko jih nekdo potrebuje (npr. za izpis ali obvestilo o napaki).
+ */
+public class TokenBuffer {
+    /**
+     * Vrste simbolov, indeksirane z njihovim zaporednim številom.
+     */
+    private static final TokenType[] tokenTypes = TokenType.values();
+
+    /**
+     * Izvorna koda, iz katere so bili simboli prebrani.
+     */
+    private final String source;
+
+    /**
+     * Tabela imen, v kateri so internalizirani identifikatorji.
+     */
+    private final NameTable names;
+
+    /**
+     * Število simbolov v medpomnilniku.
+     */
+    private int size = 0;
+
+    /**
+     * Vrste simbolov (`TokenType.ordinal()`).
+     */
+    private byte[] types;
+
+    /**
+     * Odmiki začetkov simbolov v izvorni kodi.
+     */
+    private int[] startOffsets;
+
+    /**
+     * Odmiki koncev simbolov v izvorni kodi (izključno).
+     */
+    private int[] endOffsets;
+
+    /**
+     * Zapakirane začetne lokacije simbolov (vrstica, stolpec).
+     */
+    private long[] startLocations;
+
+    /**
+     * Zapakirane končne lokacije simbolov (vrstica, stolpec).
+     */
+    private long[] endLocations;
+
+    /**
+     * Oznake imen identifikatorjev (`NameTable.NONE` za ostale simbole).
+     */
+    private int[] nameIds;
+
+    /**
+     * Ustvari nov medpomnilnik.
+     *
+     * @param source Izvorna koda programa.
+     */
+    public TokenBuffer(String source) {
+        this(source, new NameTable());
+    }
+
+    /**
+     * Ustvari nov medpomnilnik.
+     *
+     * @param source Izvorna koda programa.
+     * @param names Tabela imen.
+     */
+    public TokenBuffer(String source, NameTable names) {
+        this(source, names, source.length() / 8 + 16);
+    }
+
+    /**
+     * Ustvari nov medpomnilnik z vnaprej določeno kapaciteto.
+     *
+     * @param source Izvorna koda programa.
+     * @param names Tabela imen.
+     * @param capacity Začetna kapaciteta medpomnilnika.
+     */
+    public TokenBuffer(String source, NameTable names, int capacity) {
+        requireNonNull(source, names);
+        this.source = source;
+        this.names = names;
+        capacity = Math.max(capacity, 1);
+        this.types = new byte[capacity];
+        this.startOffsets = new int[capacity];
+        this.endOffsets = new int[capacity];
+        this.startLocations = new long[capacity];
+        this.endLocations = new long[capacity];
+        this.nameIds = new int[capacity];
+    }
+
+    /**
+     * Doda nov simbol na konec medpomnilnika.
+     */
+    public void add(TokenType type, int startOffset, int endOffset, int startLine, int startColumn, int endLine, int endColumn) {
+        add(type, NameTable.NONE, startOffset, endOffset, startLine, startColumn, endLine, endColumn);
+    }
+
+    /**
+     * Doda nov simbol z oznako imena na konec medpomnilnika.
+     */
+    public void add(TokenType type, int nameId, int startOffset, int endOffset, int startLine, int startColumn, int endLine, int endColumn) {
+        if (size == types.length) {
+            grow();
+        }
+        types[size] = (byte) type.ordinal();
+        startOffsets[size] = startOffset;
+        endOffsets[size] = endOffset;
+        startLocations[size] = pack(startLine, startColumn);
+        endLocations[size] = pack(endLine, endColumn);
+        nameIds[size] = nameId;
+        size++;
+    }
+
+    /**
+     * Vrne število simbolov.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Vrne izvorno kodo, iz katere so bili simboli prebrani.
+     */
+    public String source() {
+        return source;
+    }
+
+    /**
+     * Vrne tabelo imen.
+     */
+    public NameTable names() {
+        return names;
+    }
+
+    /**
+     * Vrne vrsto `index`-tega simbola.
+     */
+    public TokenType type(int index) {
+        Objects.checkIndex(index, size);
+        return tokenTypes[types[index]];
+    }
+
+    /**
+     * Vrne oznako imena `index`-tega simbola ali `NameTable.NONE`,
+     * če simbol ni identifikator.
+     */
+    public int nameId(int index) {
+        Objects.checkIndex(index, size);
+        return nameIds[index];
+    }
+
+    public int startOffset(int index) {
+        Objects.checkIndex(index, size);
+        return startOffsets[index];
+    }
+
+    public int endOffset(int index) {
+        Objects.checkIndex(index, size);
+        return endOffsets[index];
+    }
+
+    public int startLine(int index) {
+        Objects.checkIndex(index, size);
+        return line(startLocations[index]);
+    }
+
+    public int startColumn(int index) {
+        Objects.checkIndex(index, size);
+        return column(startLocations[index]);
+    }
+
+    public int endLine(int index) {
+        Objects.checkIndex(index, size);
+        return line(endLocations[index]);
+    }
+
+    public int endColumn(int index) {
+        Objects.checkIndex(index, size);
+        return column(endLocations[index]);
+    }
+
+    /**
+     * Vrne začetno lokacijo `index`-tega simbola.
+     */
+    public Position.Location start(int index) {
+        return new Position.Location(startLine(index), startColumn(index));
+    }
+
+    /**
+     * Vrne končno lokacijo `index`-tega simbola.
+     */
+    public Position.Location end(int index) {
+        return new Position.Location(endLine(index), endColumn(index));
+    }
+
+    /**
+     * Vrne območje `index`-tega simbola.
+     */
+    public Position position(int index) {
+        return new Position(start(index), end(index));
+    }
+
+    /**
+     * Vrne znakovno predstavitev `index`-tega simbola.
+     *
+     * Znakovnim konstantam odstrani narekovaje in podvojene
+     * narekovaje nadomesti z enojnimi.
+     */
+    public String lexeme(int index) {
+        var type = type(index);
+        if (type == TokenType.EOF) {
+            return "$";
+        }
+        if (nameIds[index] != NameTable.NONE) {
+            return names.name(nameIds[index]);
+        }
+        if (type == TokenType.C_STRING) {
+            return source.substring(startOffsets[index] + 1, endOffsets[index] - 1).replace("''", "'");
+        }
+        return source.substring(startOffsets[index], endOffsets[index]);
+    }
+
+    /**
+     * Ustvari leksikalni simbol za `index`-ti simbol.
+     */
+    public Symbol symbol(int index) {
+        return new Symbol(position(index), type(index), lexeme(index));
+    }
+
+    /**
+     * Ustvari seznam vseh leksikalnih simbolov.
+     */
+    public List<Symbol> symbols() {
+        var symbols = new ArrayList<Symbol>(size);
+        for (int i = 0; i < size; i++) {
+            symbols.add(symbol(i));
+        }
+        return symbols;
+    }
+
+    /**
+     * Na konec medpomnilnika doda simbole `[from, to)` iz medpomnilnika
+     * `other`, ki je bil prebran iz iste izvorne kode. Vrstice simbolov
+     * zamakne za `lineOffset`, oznake imen pa preslika s tabelo `nameIdMap`.
+     */
+    void append(TokenBuffer other, int from, int to, int lineOffset, int[] nameIdMap) {
+        append(other, from, to, 0, lineOffset, 0, 0, nameIdMap);
+    }
+
+    /**
+     * Na konec medpomnilnika doda simbole `[from, to)` iz medpomnilnika
+     * `other`. Odmike zamakne za `offsetShift`, vrstice za `lineShift`,
+     * stolpce lokacij v vrstici `columnShiftLine` (pred zamikom) pa za
+     * `columnShift`. Če je `nameIdMap` enak `null`, oznake imen ostanejo
+     * nespremenjene.
+     */
+    void append(TokenBuffer other, int from, int to, int offsetShift, int lineShift, int columnShiftLine, int columnShift, int[] nameIdMap) {
+        int count = to - from;
+        while (size + count > types.length) {
+            grow();
+        }
+        System.arraycopy(other.types, from, types, size, count);
+        for (int i = 0; i < count; i++) {
+            startOffsets[size + i] = other.startOffsets[from + i] + offsetShift;
+            endOffsets[size + i] = other.endOffsets[from + i] + offsetShift;
+            startLocations[size + i] = shift(other.startLocations[from + i], lineShift, columnShiftLine, columnShift);
+            endLocations[size + i] = shift(other.endLocations[from + i], lineShift, columnShiftLine, columnShift);
+            int nameId = other.nameIds[from + i];
+            nameIds[size + i] = nameId == NameTable.NONE || nameIdMap == null ? nameId : nameIdMap[nameId];
+        }
+        size += count;
+    }
+
+    // ----------------------------
+
+    private void grow() {
+        int capacity = types.length + (types.length >> 1) + 1;
+        types = Arrays.copyOf(types, capacity);
+        startOffsets = Arrays.copyOf(startOffsets, capacity);
+        endOffsets = Arrays.copyOf(endOffsets, capacity);
+        startLocations = Arrays.copyOf(startLocations, capacity);
+        endLocations = Arrays.copyOf(endLocations, capacity);
+        nameIds = Arrays.copyOf(nameIds, capacity);
+    }
+
+    /**
+     * Zapakira vrstico in stolpec v eno število.
+     */
+    static long pack(int line, int column) {
+        return ((long) line << 32) | (column & 0xFFFFFFFFL);
+    }
+
+    private static long shift(long location, int lineShift, int columnShiftLine, int columnShift) {
+        int line = line(location);
+        int column = column(location);
+        return pack(line + lineShift, line == columnShiftLine ? column + columnShift : column);
+    }
+
+    static int line(long location) {
+        return (int) (location >>> 32);
+    }
+
+    static int column(long location) {
+        return (int) location;
+    }
+}
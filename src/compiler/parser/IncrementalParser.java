@@ -0,0 +1,319 @@
+/**
+ * @Author: turk
+ * @Description: Inkrementalna sintaksna analiza.
+ */
+
+package compiler.parser;
+
+import static common.RequireNonNull.requireNonNull;
+
+import compiler.lexer.IncrementalLexer;
+import compiler.lexer.Position;
+import compiler.lexer.TextEdit;
+import compiler.lexer.TokenBuffer;
+import compiler.parser.ast.def.Def;
+import compiler.parser.ast.def.Defs;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Po spremembi izvorne kode ponovno razčleni le definicije na najvišjem
+ * nivoju, na katere sprememba vpliva; ostale definicije prevzame iz
+ * prejšnjega drevesa z istimi oznakami, zato ostanejo veljavni tudi
+ * njihovi vnosi v `NodeDescription`. Ponovno razčlenjene definicije so
+ * v novem drevesu na mestih `[Result.firstReparsed, Result.firstReparsed
+ * + Result.reparsedDefinitions)`.
+ *
+ * Definicija pred spremembo je vedno isti objekt. Definicija, ki se
+ * začne v kasnejši vrstici kot sprememba, je isti objekt, če sprememba ne
+ * spremeni števila vrstic; sicer je kopija z zamaknjenimi vrsticami
+ * (`LineShift`) in istimi oznakami. Kopiranje ne zahteva leksikalne in
+ * sintaksne analize, še vedno pa ustvari vsa vozlišča definicij za
+ * spremembo, zato je vstavljanje ali brisanje nove vrstice sorazmerno
+ * številu vozlišč za spremembo (tako kot zamik simbolov v
+ * `IncrementalLexer`). Kopije tudi niso isti objekti kot definicije, na
+ * katere kažejo obstoječi vnosi v `NodeDescription<Def>`; lokacije v
+ * teh vnosih so zato lahko zastarele.
+ *
+ * Vozlišča ponovno razčlenjenih definicij dobijo oznake zamenjanih
+ * definicij, če te tvorijo strnjen blok, v katerega nova vozlišča
+ * padejo; sicer dobijo nove oznake od `previousNodeCount` naprej. Koren
+ * ohrani svojo oznako. Oznake blokov z vrzelmi (na primer pri vzporedni
+ * analizi, kjer oznake definicije začnejo pri indeksu njenega prvega
+ * simbola) se ne uporabijo znova, zato `nodeCount` med urejanjem lahko
+ * narašča; klicatelj oznake zgosti tako, da izvorno kodo ponovno
+ * razčleni s `Parser` in zavrže vse opise vozlišč. Enako zgostitev
+ * izvede `reparse`, kadar spremembe ne more omejiti na cele definicije
+ * (`Result.compacted`).
+ */
+public class IncrementalParser {
+    private IncrementalParser() {}
+
+    /**
+     * Rezultat inkrementalne analize.
+     */
+    public static class Result {
+        /**
+         * Medpomnilnik simbolov spremenjene izvorne kode.
+         */
+        public final TokenBuffer tokens;
+
+        /**
+         * Abstraktno sintaksno drevo spremenjene izvorne kode.
+         */
+        public final Defs ast;
+
+        /**
+         * Zgornja meja oznak vozlišč drevesa (glej `Parser.nodeCount`).
+         */
+        public final int nodeCount;
+
+        /**
+         * Indeks prve ponovno razčlenjene definicije na najvišjem nivoju.
+         */
+        public final int firstReparsed;
+
+        /**
+         * Število ponovno razčlenjenih definicij na najvišjem nivoju.
+         */
+        public final int reparsedDefinitions;
+
+        /**
+         * Ali je bila celotna izvorna koda razčlenjena znova z oznakami
+         * od `0` naprej; vnosi v obstoječih `NodeDescription` tedaj niso
+         * več veljavni.
+         */
+        public final boolean compacted;
+
+        Result(TokenBuffer tokens, Defs ast, int nodeCount, int firstReparsed, int reparsedDefinitions, boolean compacted) {
+            this.tokens = tokens;
+            this.ast = ast;
+            this.nodeCount = nodeCount;
+            this.firstReparsed = firstReparsed;
+            this.reparsedDefinitions = reparsedDefinitions;
+            this.compacted = compacted;
+        }
+    }
+
+    /**
+     * Uporabi spremembo `edit` na izvorni kodi medpomnilnika
+     * `previousTokens` in vrne novo drevo.
+     *
+     * @param previous Drevo, ki ga je za `previousTokens` zgradil `Parser`.
+     * @param previousNodeCount Zgornja meja oznak vozlišč drevesa `previous`.
+     * @param previousTokens Medpomnilnik simbolov prejšnje izvorne kode.
+     * @param edit Sprememba izvorne kode.
+     */
+    public static Result reparse(Defs previous, int previousNodeCount, TokenBuffer previousTokens, TextEdit edit) {
+        requireNonNull(previous, previousTokens, edit);
+        var tokens = IncrementalLexer.relex(previousTokens, edit);
+        return reuse(previous, previousNodeCount, previousTokens, tokens, edit)
+                .orElseGet(() -> {
+                    var parser = new Parser(tokens, Optional.empty());
+                    var ast = parser.parseSource(0);
+                    return new Result(tokens, ast, parser.nodeCount(), 0, ast.definitions.size(), true);
+                });
+    }
+
+    // ----------------------------
+
+    /**
+     * Razčleni le spremenjene definicije ali vrne `Optional.empty()`, če
+     * spremenjenega območja ne moremo omejiti na cele definicije.
+     */
+    private static Optional<Result> reuse(Defs previous, int previousNodeCount,
+                                          TokenBuffer previousTokens, TokenBuffer tokens, TextEdit edit) {
+        var definitions = previous.definitions;
+        int count = definitions.size();
+        var starts = new DefinitionStarts(previous, previousTokens);
+        int editEnd = edit.offset + edit.removedLength;
+
+        // first affected definition: the last one that starts before the edit
+        int first = lastStartingBefore(starts, count, edit.offset);
+        // last affected definition: the first one that ends after the edit
+        int last = first;
+        while (last < count - 1 && starts.lastToken(last) >= 0
+                && previousTokens.endOffset(starts.lastToken(last)) <= editEnd) {
+            last++;
+        }
+        if (starts.firstToken(first) < 0 || starts.lastToken(last) < 0) {
+            return Optional.empty();
+        }
+
+        // definitions after the edit that start on a later line only move
+        // by the number of added or removed lines
+        var source = previousTokens.source();
+        int lineShift = lines(edit.insertedText, 0, edit.insertedText.length()) - lines(source, edit.offset, editEnd);
+        while (last < count - 1
+                && definitions.get(last + 1).position.start.line <= previousTokens.endLine(starts.lastToken(last))) {
+            last++;
+            if (starts.lastToken(last) < 0) {
+                return Optional.empty();
+            }
+        }
+
+        // tokens before the first affected definition are unchanged; tokens
+        // after the last one are the same, shifted by the edit
+        int from = starts.firstToken(first);
+        int previousEnd = starts.lastToken(last) + 1;
+        int end = tokens.size() - (previousTokens.size() - previousEnd);
+        if (end < from || end >= tokens.size()
+                || tokens.type(end) != previousTokens.type(previousEnd)
+                || tokens.startOffset(end) != previousTokens.startOffset(previousEnd) + edit.delta()) {
+            return Optional.empty();
+        }
+        var bounds = ParallelParser.split(tokens, from, end);
+        if (bounds == null) {
+            return Optional.empty();
+        }
+
+        var result = new ArrayList<Def>(count);
+        result.addAll(definitions.subList(0, first));
+        int nodeCount = previousNodeCount;
+        var block = freedIds(definitions.subList(first, last + 1));
+        var reparsed = block == null ? null : parse(tokens, bounds, block[0], block[1]);
+        if (reparsed == null) {
+            reparsed = parse(tokens, bounds, previousNodeCount, Integer.MAX_VALUE);
+            nodeCount = previousNodeCount + reparsed.nodes;
+        }
+        result.addAll(reparsed.definitions);
+        for (var def : definitions.subList(last + 1, count)) {
+            result.add(LineShift.shift(def, lineShift));
+        }
+
+        var position = new Position(result.get(0).position.start, result.get(result.size() - 1).position.end);
+        var ast = new Defs(previous.id, position, result);
+        return Optional.of(new Result(tokens, ast, nodeCount, first, bounds.length - 1, false));
+    }
+
+    /**
+     * Razčlenjene definicije in število njihovih vozlišč.
+     */
+    private record Reparsed(List<Def> definitions, int nodes) {}
+
+    /**
+     * Razčleni definicije med mejami `bounds` z oznakami od `firstId`
+     * naprej ali vrne `null`, če bi oznake presegle `lastId`.
+     */
+    private static Reparsed parse(TokenBuffer tokens, int[] bounds, int firstId, int lastId) {
+        var parser = new Parser(tokens, Optional.empty());
+        var definitions = new ArrayList<Def>(bounds.length - 1);
+        int nextId = firstId;
+        for (int i = 0; i + 1 < bounds.length; i++) {
+            definitions.add(parser.parseTopLevelDefinition(bounds[i], bounds[i + 1] - 1, nextId));
+            nextId = parser.nodeCount();
+            if (nextId - 1 > lastId) {
+                return null;
+            }
+        }
+        return new Reparsed(definitions, nextId - firstId);
+    }
+
+    /**
+     * Vrne najmanjšo in največjo oznako vozlišč definicij `replaced`, če
+     * te oznake tvorijo strnjen blok (v bloku ni oznak drugih vozlišč),
+     * sicer `null`.
+     */
+    private static int[] freedIds(List<Def> replaced) {
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        int nodes = 0;
+        for (var def : replaced) {
+            for (var node : LineShift.nodes(def)) {
+                min = Math.min(min, node.id);
+                max = Math.max(max, node.id);
+                nodes++;
+            }
+        }
+        return nodes == max - min + 1 ? new int[] { min, max } : null;
+    }
+
+    /**
+     * Vrne indeks zadnje definicije, ki se začne pred odmikom `offset`,
+     * ali `0`, če take definicije ni.
+     */
+    private static int lastStartingBefore(DefinitionStarts starts, int count, int offset) {
+        int low = 0;
+        int high = count - 1;
+        int result = 0;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int token = starts.firstToken(middle);
+            if (token >= 0 && starts.tokens.startOffset(token) < offset) {
+                result = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Vrne število znakov za novo vrstico v `text[from, to)`.
+     */
+    private static int lines(String text, int from, int to) {
+        int lines = 0;
+        for (int i = from; i < to; i++) {
+            if (text.charAt(i) == '\n') {
+                lines++;
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Preslikava iz definicij na najvišjem nivoju v indekse njihovih
+     * simbolov; indekse poiščemo z bisekcijo po lokacijah simbolov.
+     */
+    private static class DefinitionStarts {
+        final Defs defs;
+        final TokenBuffer tokens;
+
+        DefinitionStarts(Defs defs, TokenBuffer tokens) {
+            this.defs = defs;
+            this.tokens = tokens;
+        }
+
+        /**
+         * Vrne indeks prvega simbola definicije `index` ali `-1`, če
+         * simbola na začetku definicije ni.
+         */
+        int firstToken(int index) {
+            var start = defs.definitions.get(index).position.start;
+            int low = 0;
+            int high = tokens.size() - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int line = tokens.startLine(middle);
+                int column = tokens.startColumn(middle);
+                if (line == start.line && column == start.column) {
+                    return middle;
+                } else if (line < start.line || (line == start.line && column < start.column)) {
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Vrne indeks zadnjega simbola definicije `index` (simbol pred
+         * ločilom `;` naslednje definicije oziroma pred EOF) ali `-1`, če
+         * ga ne najdemo.
+         *
+         * Konec lokacije definicije tu ni uporaben, ker ne vključuje
+         * zaključnih oklepajev izraza v oklepajih.
+         */
+        int lastToken(int index) {
+            if (index + 1 < defs.definitions.size()) {
+                int next = firstToken(index + 1);
+                return next < 0 ? -1 : next - 2;
+            }
+            return tokens.size() - 2;
+        }
+    }
+}
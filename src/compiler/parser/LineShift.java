@@ -0,0 +1,175 @@
+/**
+ * @Author: turk
+ * @Description: Zamik vrstic lokacij poddrevesa.
+ */
+
+package compiler.parser;
+
+import compiler.lexer.Position;
+import compiler.parser.ast.Ast;
+import compiler.parser.ast.def.*;
+import compiler.parser.ast.expr.*;
+import compiler.parser.ast.type.Array;
+import compiler.parser.ast.type.Atom;
+import compiler.parser.ast.type.Type;
+import compiler.parser.ast.type.TypeName;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Vozlišča so nespremenljiva, zato zamaknjeno poddrevo zgradimo znova;
+ * vozlišča kopije imajo iste oznake kot izvirna, zato ostanejo veljavni
+ * njihovi vnosi v `NodeDescription`.
+ */
+class LineShift {
+    private final int lines;
+
+    private LineShift(int lines) {
+        this.lines = lines;
+    }
+
+    /**
+     * Vrne kopijo definicije `def`, katere lokacije so zamaknjene za
+     * `lines` vrstic.
+     */
+    static Def shift(Def def, int lines) {
+        return lines == 0 ? def : new LineShift(lines).def(def);
+    }
+
+    // ----------------------------
+
+    private Def def(Def def) {
+        var position = position(def.position);
+        if (def instanceof FunDef funDef) {
+            var parameters = new ArrayList<FunDef.Parameter>(funDef.parameters.size());
+            for (var parameter : funDef.parameters) {
+                parameters.add(new FunDef.Parameter(parameter.id, position(parameter.position),
+                        parameter.name, parameter.nameId, type(parameter.type)));
+            }
+            return new FunDef(def.id, position, def.name, def.nameId, parameters, type(funDef.type), expr(funDef.body));
+        } else if (def instanceof TypeDef typeDef) {
+            return new TypeDef(def.id, position, def.name, def.nameId, type(typeDef.type));
+        } else if (def instanceof VarDef varDef) {
+            return new VarDef(def.id, position, def.name, def.nameId, type(varDef.type));
+        }
+        throw new IllegalArgumentException("Unknown definition " + def.getClass().getSimpleName());
+    }
+
+    private Expr expr(Expr expr) {
+        var position = position(expr.position);
+        if (expr instanceof Binary binary) {
+            return new Binary(expr.id, position, expr(binary.left), binary.operator, expr(binary.right));
+        } else if (expr instanceof Block block) {
+            return new Block(expr.id, position, exprs(block.expressions));
+        } else if (expr instanceof Call call) {
+            return new Call(expr.id, position, exprs(call.arguments), call.name, call.nameId);
+        } else if (expr instanceof For forLoop) {
+            return new For(expr.id, position, (Name) expr(forLoop.counter), expr(forLoop.low),
+                    expr(forLoop.high), expr(forLoop.step), expr(forLoop.body));
+        } else if (expr instanceof IfThenElse ifThenElse) {
+            Optional<Expr> elseExpression = ifThenElse.elseExpression.map(this::expr);
+            return new IfThenElse(expr.id, position, expr(ifThenElse.condition),
+                    expr(ifThenElse.thenExpression), elseExpression);
+        } else if (expr instanceof Literal literal) {
+            return new Literal(expr.id, position, literal.value, literal.type);
+        } else if (expr instanceof Name name) {
+            return new Name(expr.id, position, name.name, name.nameId);
+        } else if (expr instanceof Unary unary) {
+            return new Unary(expr.id, position, expr(unary.expr), unary.operator);
+        } else if (expr instanceof Where where) {
+            var definitions = new ArrayList<Def>(where.defs.definitions.size());
+            for (var def : where.defs.definitions) {
+                definitions.add(def(def));
+            }
+            var defs = new Defs(where.defs.id, position(where.defs.position), definitions);
+            return new Where(expr.id, position, expr(where.expr), defs);
+        } else if (expr instanceof While whileLoop) {
+            return new While(expr.id, position, expr(whileLoop.condition), expr(whileLoop.body));
+        }
+        throw new IllegalArgumentException("Unknown expression " + expr.getClass().getSimpleName());
+    }
+
+    private List<Expr> exprs(List<Expr> exprs) {
+        var shifted = new ArrayList<Expr>(exprs.size());
+        for (var expr : exprs) {
+            shifted.add(expr(expr));
+        }
+        return shifted;
+    }
+
+    private Type type(Type type) {
+        var position = position(type.position);
+        if (type instanceof Array array) {
+            return new Array(type.id, position, array.size, type(array.type));
+        } else if (type instanceof Atom atom) {
+            return switch (atom.type) {
+                case INT -> Atom.INT(type.id, position);
+                case LOG -> Atom.LOG(type.id, position);
+                case STR -> Atom.STR(type.id, position);
+            };
+        } else if (type instanceof TypeName name) {
+            return new TypeName(type.id, position, name.identifier, name.nameId);
+        }
+        throw new IllegalArgumentException("Unknown type " + type.getClass().getSimpleName());
+    }
+
+    private Position position(Position position) {
+        return new Position(position.start.line + lines, position.start.column,
+                position.end.line + lines, position.end.column);
+    }
+
+    /**
+     * Vrne vsa vozlišča poddrevesa `ast` (za iskanje oznak).
+     */
+    static List<Ast> nodes(Ast ast) {
+        var nodes = new ArrayList<Ast>();
+        collect(ast, nodes);
+        return nodes;
+    }
+
+    private static void collect(Ast ast, List<Ast> nodes) {
+        nodes.add(ast);
+        if (ast instanceof Defs defs) {
+            defs.definitions.forEach(def -> collect(def, nodes));
+        } else if (ast instanceof FunDef funDef) {
+            funDef.parameters.forEach(parameter -> collect(parameter, nodes));
+            collect(funDef.type, nodes);
+            collect(funDef.body, nodes);
+        } else if (ast instanceof FunDef.Parameter parameter) {
+            collect(parameter.type, nodes);
+        } else if (ast instanceof TypeDef typeDef) {
+            collect(typeDef.type, nodes);
+        } else if (ast instanceof VarDef varDef) {
+            collect(varDef.type, nodes);
+        } else if (ast instanceof Binary binary) {
+            collect(binary.left, nodes);
+            collect(binary.right, nodes);
+        } else if (ast instanceof Block block) {
+            block.expressions.forEach(expr -> collect(expr, nodes));
+        } else if (ast instanceof Call call) {
+            call.arguments.forEach(expr -> collect(expr, nodes));
+        } else if (ast instanceof For forLoop) {
+            collect(forLoop.counter, nodes);
+            collect(forLoop.low, nodes);
+            collect(forLoop.high, nodes);
+            collect(forLoop.step, nodes);
+            collect(forLoop.body, nodes);
+        } else if (ast instanceof IfThenElse ifThenElse) {
+            collect(ifThenElse.condition, nodes);
+            collect(ifThenElse.thenExpression, nodes);
+            ifThenElse.elseExpression.ifPresent(expr -> collect(expr, nodes));
+        } else if (ast instanceof Unary unary) {
+            collect(unary.expr, nodes);
+        } else if (ast instanceof Where where) {
+            collect(where.expr, nodes);
+            collect(where.defs, nodes);
+        } else if (ast instanceof While whileLoop) {
+            collect(whileLoop.condition, nodes);
+            collect(whileLoop.body, nodes);
+        } else if (ast instanceof Array array) {
+            collect(array.type, nodes);
+        }
+    }
+}
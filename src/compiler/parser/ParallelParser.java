@@ -0,0 +1,187 @@
+/**
+ * @Author: turk
+ * @Description: Vzporedna sintaksna analiza definicij na najvišjem nivoju.
+ */
+
+package compiler.parser;
+
+import static common.RequireNonNull.requireNonNull;
+
+import common.Report;
+import compiler.lexer.Position;
+import compiler.lexer.TokenBuffer;
+import compiler.lexer.TokenType;
+import compiler.parser.ast.def.Def;
+import compiler.parser.ast.def.Defs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Medpomnilnik simbolov razdeli na definicije na najvišjem nivoju, jih
+ * razčleni vzporedno in sestavi vozlišče `Defs`, ki je enako rezultatu
+ * zaporedne analize.
+ *
+ * Meje definicij poiščemo s preletom simbolov, ki šteje gnezdenje
+ * oklepajev: definicije na najvišjem nivoju so ločene s simboli `;`
+ * izven vseh oklepajev. Ker razčlenjevalnik gleda le en simbol naprej
+ * in ločila `;` ne porabi znotraj definicije, se vsaka definicija
+ * razčleni enako kot pri zaporedni analizi, vključno z napakami.
+ *
+ * Oznake vozlišč definicije, ki obsega simbole `[from, to)`, se začnejo
+ * pri `from`; ker vsako vozlišče porabi vsaj en simbol, so oznake vseh
+ * definicij različne in manjše od števila simbolov.
+ */
+class ParallelParser {
+    /**
+     * Število simbolov, nad katerim `Parser` uporabi vzporedno analizo.
+     */
+    static final int THRESHOLD = 1 << 16;
+
+    /**
+     * Najmanjše število simbolov, ki jih razčleni posamezno opravilo.
+     */
+    private static final int MIN_TASK_SIZE = 1 << 13;
+
+    private final TokenBuffer tokens;
+    private final int taskSize;
+
+    ParallelParser(TokenBuffer tokens) {
+        this(tokens, Math.max(MIN_TASK_SIZE,
+                tokens.size() / (4 * ForkJoinPool.getCommonPoolParallelism()) + 1));
+    }
+
+    ParallelParser(TokenBuffer tokens, int taskSize) {
+        requireNonNull(tokens);
+        this.tokens = tokens;
+        this.taskSize = Math.max(taskSize, 1);
+    }
+
+    /**
+     * Ali se vzporedna analiza medpomnilnika `tokens` splača: simbolov
+     * mora biti dovolj in na voljo mora biti več niti.
+     */
+    static boolean isWorthwhile(TokenBuffer tokens) {
+        return tokens.size() >= THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1;
+    }
+
+    /**
+     * Izvedi sintaksno analizo. Vrne `Optional.empty()`, če oklepaji niso
+     * uravnoteženi; v tem primeru meja definicij ne poznamo in moramo
+     * uporabiti zaporedno analizo.
+     */
+    Optional<Defs> parse() {
+        int eof = tokens.size() - 1;
+        var bounds = tokens.type(eof) == TokenType.EOF ? split(tokens, 0, eof) : null;
+        if (bounds == null) {
+            return Optional.empty();
+        }
+        int definitionCount = bounds.length - 1;
+
+        // consecutive definitions are grouped into tasks of roughly `taskSize` tokens
+        var tasks = new ArrayList<ForkJoinTask<Slice>>();
+        int first = 0;
+        while (first < definitionCount) {
+            int last = first + 1;
+            while (last < definitionCount && bounds[last] - bounds[first] < taskSize) {
+                last++;
+            }
+            int from = first;
+            int to = last;
+            tasks.add(ForkJoinPool.commonPool().submit(() -> parse(bounds, from, to)));
+            first = last;
+        }
+
+        // join in source order, so the first reported error is the same
+        // as in sequential parsing
+        var definitions = new ArrayList<Def>(definitionCount);
+        for (var task : tasks) {
+            var slice = task.join();
+            definitions.addAll(slice.definitions);
+            if (slice.failure != null) {
+                slice.failure.report();
+            }
+        }
+
+        var start = definitions.get(0).position.start;
+        var end = definitions.get(definitions.size() - 1).position.end;
+        return Optional.of(new Defs(eof, new Position(start, end), definitions));
+    }
+
+    // ----------------------------
+
+    /**
+     * Vrne začetke definicij na najvišjem nivoju med simboloma `from` in
+     * `end` (ločilo `;` ali EOF, ki zaključi zadnjo definicijo) ter
+     * `end + 1`, ali `null`, če oklepaji niso uravnoteženi. Definicija
+     * `i` obsega simbole `[bounds[i], bounds[i + 1] - 1)`.
+     */
+    static int[] split(TokenBuffer tokens, int from, int end) {
+        var bounds = new int[64];
+        bounds[0] = from;
+        int count = 1;
+        int depth = 0;
+        for (int i = from; i < end; i++) {
+            switch (tokens.type(i)) {
+                case OP_LPARENT, OP_LBRACKET, OP_LBRACE -> depth++;
+                case OP_RPARENT, OP_RBRACKET, OP_RBRACE -> {
+                    if (--depth < 0) {
+                        return null;
+                    }
+                }
+                case OP_SEMICOLON -> {
+                    if (depth == 0) {
+                        if (count == bounds.length) {
+                            bounds = Arrays.copyOf(bounds, count * 2);
+                        }
+                        bounds[count++] = i + 1;
+                    }
+                }
+                default -> {}
+            }
+        }
+        if (depth != 0) {
+            return null;
+        }
+        if (count == bounds.length) {
+            bounds = Arrays.copyOf(bounds, count + 1);
+        }
+        // the last definition ends at `end` instead of at a separator
+        bounds[count++] = end + 1;
+        return Arrays.copyOf(bounds, count);
+    }
+
+    /**
+     * Razčleni definicije `[first, last)`. Ob napaki vrne že razčlenjene
+     * definicije in napako.
+     */
+    private Slice parse(int[] bounds, int first, int last) {
+        var parser = new Parser(tokens, Optional.empty());
+        var definitions = new ArrayList<Def>(last - first);
+        try {
+            Report.deferred(() -> {
+                for (int i = first; i < last; i++) {
+                    definitions.add(parser.parseTopLevelDefinition(bounds[i], bounds[i + 1] - 1, bounds[i]));
+                }
+                return null;
+            });
+            return new Slice(definitions, null);
+        } catch (Report.Failure failure) {
+            return new Slice(definitions, failure);
+        }
+    }
+
+    private static class Slice {
+        final List<Def> definitions;
+        final Report.Failure failure;
+
+        Slice(List<Def> definitions, Report.Failure failure) {
+            this.definitions = definitions;
+            this.failure = failure;
+        }
+    }
+}
@@ -8,6 +8,7 @@ package compiler.parser;
 import common.Report;
 import compiler.lexer.Position;
 import compiler.lexer.Symbol;
+import compiler.lexer.TokenBuffer;
 import compiler.lexer.TokenType;
 import compiler.parser.ast.Ast;
 import compiler.parser.ast.def.*;
@@ -17,7 +18,6 @@ import compiler.parser.ast.type.Atom;
 import compiler.parser.ast.type.Type;
 import compiler.parser.ast.type.TypeName;
 
-import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -27,36 +27,142 @@ import static compiler.lexer.TokenType.*;
 
 public class Parser {
     /**
-     * Seznam leksikalnih simbolov.
+     * Število nivojev prednosti dvojiških operatorjev.
      */
-    private final List<Symbol> symbols;
+    private static final int LEVELS = 5;
 
     /**
-     * Ciljni tok, kamor izpisujemo produkcije. Če produkcij ne želimo izpisovati,
-     * vrednost opcijske spremenljivke nastavimo na Optional.empty().
+     * Nivo primerjalnih operatorjev, ki niso asociativni.
      */
-    private final Optional<PrintStream> productionsOutputStream;
+    private static final int COMPARE_LEVEL = 2;
 
-    public Parser(List<Symbol> symbols, Optional<PrintStream> productionsOutputStream) {
-        requireNonNull(symbols, productionsOutputStream);
-        this.symbols = symbols;
-        this.productionsOutputStream = productionsOutputStream;
+    /**
+     * Produkcije nivojev prednosti (od najnižje do najvišje prednosti).
+     */
+    private static final Production[] levelProductions = {
+            Production.LOGICAL_IOR_EXPRESSION,
+            Production.LOGICAL_AND_EXPRESSION,
+            Production.COMPARE_EXPRESSION,
+            Production.ADDITIVE_EXPRESSION,
+            Production.MULTIPLICATIVE_EXPRESSION,
+    };
+
+    /**
+     * Epsilon produkcije nivojev prednosti.
+     */
+    private static final Production[] levelEpsilonProductions = {
+            Production.LOGICAL_IOR_EXPRESSION1_EPSILON,
+            Production.LOGICAL_AND_EXPRESSION1_EPSILON,
+            Production.COMPARE_EXPRESSION1_EPSILON,
+            Production.ADDITIVE_EXPRESSION1_EPSILON,
+            Production.MULTIPLICATIVE_EXPRESSION1_EPSILON,
+    };
+
+    /**
+     * Tabela dvojiških operatorjev, indeksirana z `TokenType.ordinal()`.
+     */
+    private static final BinaryOperator[] binaryOperators = new BinaryOperator[TokenType.values().length];
+
+    static {
+        binaryOperator(OP_OR, 0, Binary.Operator.OR, Production.LOGICAL_IOR_EXPRESSION1_OR);
+        binaryOperator(OP_AND, 1, Binary.Operator.AND, Production.LOGICAL_AND_EXPRESSION1_AND);
+        binaryOperator(OP_EQ, 2, Binary.Operator.EQ, Production.COMPARE_EXPRESSION1_EQ);
+        binaryOperator(OP_NEQ, 2, Binary.Operator.NEQ, Production.COMPARE_EXPRESSION1_NEQ);
+        binaryOperator(OP_LEQ, 2, Binary.Operator.LEQ, Production.COMPARE_EXPRESSION1_LEQ);
+        binaryOperator(OP_GEQ, 2, Binary.Operator.GEQ, Production.COMPARE_EXPRESSION1_GEQ);
+        binaryOperator(OP_LT, 2, Binary.Operator.LT, Production.COMPARE_EXPRESSION1_LT);
+        binaryOperator(OP_GT, 2, Binary.Operator.GT, Production.COMPARE_EXPRESSION1_GT);
+        binaryOperator(OP_ADD, 3, Binary.Operator.ADD, Production.ADDITIVE_EXPRESSION1_ADD);
+        binaryOperator(OP_SUB, 3, Binary.Operator.SUB, Production.ADDITIVE_EXPRESSION1_SUB);
+        binaryOperator(OP_MUL, 4, Binary.Operator.MUL, Production.MULTIPLICATIVE_EXPRESSION1_MUL);
+        binaryOperator(OP_DIV, 4, Binary.Operator.DIV, Production.MULTIPLICATIVE_EXPRESSION1_DIV);
+        binaryOperator(OP_MOD, 4, Binary.Operator.MOD, Production.MULTIPLICATIVE_EXPRESSION1_MOD);
+    }
+
+    /**
+     * Medpomnilnik leksikalnih simbolov.
+     */
+    private final TokenBuffer tokens;
+
+    /**
+     * Indeks trenutnega simbola v medpomnilniku.
+     */
+    private int current = 0;
+
+    /**
+     * Nastavitev ob prevajanju: `false` odstrani sledenje produkcijam iz
+     * prevedene kode (pogoji s to konstanto se izračunajo že ob prevajanju).
+     */
+    private static final boolean TRACE = true;
+
+    /**
+     * Sledilnik, ki mu sporočamo uporabljene produkcije, ali `null`, če
+     * produkcijam ne sledimo.
+     */
+    private final ProductionTracer tracer;
+
+    /**
+     * Ali sledimo produkcijam; onemogočeno sledenje stane en pogoj.
+     */
+    private final boolean tracing;
+
+    /**
+     * Oznaka naslednjega ustvarjenega vozlišča.
+     */
+    private int nextId = 0;
+
+    /**
+     * @param tokens Medpomnilnik leksikalnih simbolov.
+     * @param tracer Sledilnik uporabljenih produkcij. Če produkcijam ne
+     *               želimo slediti, podamo Optional.empty().
+     */
+    public Parser(TokenBuffer tokens, Optional<ProductionTracer> tracer) {
+        requireNonNull(tokens, tracer);
+        this.tokens = tokens;
+        this.tracer = tracer.orElse(null);
+        this.tracing = TRACE && this.tracer != null;
     }
 
     /**
      * Izvedi sintaksno analizo.
      */
     public Ast parse() {
+        if (!tracing && ParallelParser.isWorthwhile(tokens)) {
+            var defs = new ParallelParser(tokens).parse();
+            if (defs.isPresent()) {
+                // node ids of parallel parsed definitions are bounded by token indices
+                nextId = tokens.size();
+                return defs.get();
+            }
+        }
+        return parseSource();
+    }
+
+    /**
+     * Zaporedno razčleni celoten medpomnilnik; vozlišča dobijo oznake od
+     * `firstId` naprej.
+     */
+    Defs parseSource(int firstId) {
+        current = 0;
+        nextId = firstId;
         return parseSource();
     }
 
+    /**
+     * Vrne zgornjo mejo oznak ustvarjenih vozlišč; oznake vozlišč so med
+     * `0` in `nodeCount() - 1`.
+     */
+    public int nodeCount() {
+        return nextId;
+    }
+
     private Defs parseSource() {
-        dump("source -> definitions");
+        trace(Production.SOURCE);
         return parseDefinitions();
     }
 
     private Defs parseDefinitions() {
-        dump("definitions -> definition definitions1");
+        trace(Production.DEFINITIONS);
         List<Def> definitions = new ArrayList<>();
         definitions.add(parseDefinition());
         parseDefinition1(definitions);
@@ -67,25 +173,40 @@ public class Parser {
         Position.Location start = definitions.get(0).position.start;
         Position.Location end = definitions.get(definitions.size() - 1).position.end;
         return new Defs(
+                nextId++,
                 new Position(start, end),
                 definitions
         );
     }
 
+    /**
+     * Razčleni definicijo na najvišjem nivoju, ki obsega simbole
+     * `[from, to)`; simbol `to` je ločilo `;` ali EOF. Vozlišča dobijo
+     * oznake od `firstId` naprej.
+     */
+    Def parseTopLevelDefinition(int from, int to, int firstId) {
+        current = from;
+        nextId = firstId;
+        var definition = parseDefinition();
+        if (current != to)
+            Report.error(getSymbol().position, "PINS error: ';' or '}' expected");
+        return definition;
+    }
+
     private Def parseDefinition() {
         if (check(KW_TYP)) {
-            dump("definition -> type_definition");
-            Symbol typSymbol = skip();
+            trace(Production.DEFINITION_TYPE);
+            int typSymbol = skip();
             return parseTypeDefinition(typSymbol);
 
         } else if (check(KW_FUN)) {
-            dump("definition -> function_definition");
-            Symbol funSymbol = skip();
+            trace(Production.DEFINITION_FUNCTION);
+            int funSymbol = skip();
             return parseFunctionDefinition(funSymbol);
 
         } else if (check(KW_VAR)) {
-            dump("definition -> variable_definition ");
-            Symbol varSymbol = skip();
+            trace(Production.DEFINITION_VARIABLE);
+            int varSymbol = skip();
             return parseVariableDefinition(varSymbol);
 
         } else {
@@ -95,22 +216,20 @@ public class Parser {
     }
 
     private void parseDefinition1(List<Def> definitions) {
-        if (check(OP_SEMICOLON)) {
-            dump("definitions1 -> \";\" definitions");
+        while (check(OP_SEMICOLON)) {
+            trace(Production.DEFINITIONS1_SEMICOLON);
             skip();
             definitions.add(parseDefinition());
-            parseDefinition1(definitions);
-        } else {
-            dump("definitions1 -> epsylon");
         }
+        trace(Production.DEFINITIONS1_EPSILON);
     }
 
-    private Def parseFunctionDefinition(Symbol startSymbol) {
+    private Def parseFunctionDefinition(int startSymbol) {
         if (!check(IDENTIFIER))
             Report.error(getSymbol().position, "PINS error: <identifier> expected");
-        dump("function_definition -> fun identifier \"(\" parameters \")\" \":\" type \"=\" expression");
+        trace(Production.FUNCTION_DEFINITION);
 
-        Symbol funIdentifier = skip(); // identifier
+        int funIdentifier = skip(); // identifier
 
         if (!check(OP_LPARENT))
             Report.error(getSymbol().position, "PINS error: '(' expected");
@@ -135,8 +254,10 @@ public class Parser {
         Expr funBody = parseExpression(); // body
 
         return new FunDef(
-                new Position(startSymbol.position.start, funBody.position.end),
-                funIdentifier.lexeme,
+                nextId++,
+                new Position(tokens.start(startSymbol), funBody.position.end),
+                tokens.lexeme(funIdentifier),
+                tokens.nameId(funIdentifier),
                 funParameters,
                 funType,
                 funBody
@@ -144,14 +265,14 @@ public class Parser {
     }
 
     private Expr parseExpression() {
-        dump("expression -> logical_ior_expression expression1");
-        Expr leftExpression = parseLogicalIORExpression();
+        trace(Production.EXPRESSION);
+        Expr leftExpression = parseBinaryExpression(0);
         return parseExpression1(leftExpression);
     }
 
     private Expr parseExpression1(Expr leftExpression) {
         if (check(OP_LBRACE)) {
-            dump("expression1 -> \"{\" WHERE definitions \"}\"");
+            trace(Production.EXPRESSION1_WHERE);
             skip();
 
             if (!check(KW_WHERE))
@@ -162,398 +283,202 @@ public class Parser {
 
             if (!check(OP_RBRACE))
                 Report.error(getSymbol().position, "PINS error: '}' expected");
-            Symbol endSymbol = skip();
+            int endSymbol = skip();
 
             return new Where(
-                    new Position(leftExpression.position.start, endSymbol.position.end),
+                    nextId++,
+                    new Position(leftExpression.position.start, tokens.end(endSymbol)),
                     leftExpression,
                     definitions
             );
 
         } else {
-            dump("expression1 -> epsylon");
+            trace(Production.EXPRESSION1_EPSILON);
             return leftExpression;
         }
     }
 
-    private Expr parseLogicalIORExpression() {
-        dump("logical_ior_expression -> logical_and_expression logical_ior_expression1");
-        Expr leftExpression = parseLogicalANDExpression();
-        return parseLogicalIORExpression1(leftExpression);
-    }
-
-    private Expr parseLogicalIORExpression1(Expr leftExpression) {
-        if (check(OP_OR)) {
-            dump("logical_ior_expression1 -> \"|\" logical_ior_expression");
-            skip();
-
-            Expr rightExpression = parseLogicalANDExpression();
-
-            Expr binary = new Binary(
-                    new Position(leftExpression.position.start, rightExpression.position.end),
-                    leftExpression,
-                    Binary.Operator.OR,
-                    rightExpression
-            );
-
-            return parseLogicalIORExpression1(binary);
-
-        } else {
-            dump("logical_ior_expression1 -> epsylon");
-            return leftExpression;
-        }
-    }
-
-
-    private Expr parseLogicalANDExpression() {
-        dump("logical_and_expression -> compare_expression logical_and_expression1");
-        Expr leftExpression = parseCompareExpression();
-        return parseLogicalANDExpression1(leftExpression);
-    }
-
-    private Expr parseLogicalANDExpression1(Expr leftExpression) {
-        if (check(OP_AND)) {
-            dump("logical_and_expression1 -> \"&\" logical_and_expression");
-            skip();
-
-            Expr rightExpression = parseCompareExpression();
-
-            Expr binary = new Binary(
-                    new Position(leftExpression.position.start, rightExpression.position.end),
-                    leftExpression,
-                    Binary.Operator.AND,
-                    rightExpression
-            );
-
-            return parseLogicalANDExpression1(binary);
-        } else {
-            dump("logical_and_expression1 -> epsylon");
-            return leftExpression;
-        }
-    }
-
-    private Expr parseCompareExpression() {
-        dump("compare_expression -> additive_expression compare_expression1");
-        Expr leftExpression = parseAdditiveExpression();
-        return parseCompareExpression1(leftExpression);
-    }
-
-    private Expr parseCompareExpression1(Expr leftExpression) {
-        if (check(OP_EQ)) {
-            dump("compare_expression1 -> \"==\" additive_expression");
-            skip();
-
-            Expr rightExpression = parseAdditiveExpression();
-
-            return new Binary(
-                    new Position(leftExpression.position.start, rightExpression.position.end),
-                    leftExpression,
-                    Binary.Operator.EQ,
-                    rightExpression
-            );
-
-        } else if (check(OP_NEQ)) {
-            dump("compare_expression1 -> \"!=\" additive_expression");
-            skip();
-
-            Expr rightExpression = parseAdditiveExpression();
-
-            return new Binary(
-                    new Position(leftExpression.position.start, rightExpression.position.end),
-                    leftExpression,
-                    Binary.Operator.NEQ,
-                    rightExpression
-            );
-
-        } else if (check(OP_LEQ)) {
-            dump("compare_expression1 -> \"<=\" additive_expression");
-            skip();
-
-            Expr rightExpression = parseAdditiveExpression();
-
-            return new Binary(
-                    new Position(leftExpression.position.start, rightExpression.position.end),
-                    leftExpression,
-                    Binary.Operator.LEQ,
-                    rightExpression
-            );
-
-        } else if (check(OP_GEQ)) {
-            dump("compare_expression1 -> \">=\" additive_expression");
-            skip();
-
-            Expr rightExpression = parseAdditiveExpression();
-
-            return new Binary(
-                    new Position(leftExpression.position.start, rightExpression.position.end),
-                    leftExpression,
-                    Binary.Operator.GEQ,
-                    rightExpression
-            );
-
-        } else if (check(OP_LT)) {
-            dump("compare_expression1 -> \"<\" additive_expression");
-            skip();
-
-            Expr rightExpression = parseAdditiveExpression();
+    /**
+     * Razčleni dvojiške izraze z nivoji prednosti od `minLevel` naprej
+     * (plezanje po prednosti).
+     *
+     * Izpisane produkcije so enake, kot če bi vsak nivo razčlenjevali
+     * s svojo metodo: ob vstopu izpišemo glave vseh odprtih nivojev,
+     * ob izstopu iz nivoja pa njegovo epsilon produkcijo.
+     */
+    private Expr parseBinaryExpression(int minLevel) {
+        if (tracing)
+            for (int level = minLevel; level < LEVELS; level++)
+                trace(levelProductions[level]);
 
-            return new Binary(
-                    new Position(leftExpression.position.start, rightExpression.position.end),
-                    leftExpression,
-                    Binary.Operator.LT,
-                    rightExpression
-            );
+        Expr leftExpression = parsePrefixExpression();
 
-        } else if (check(OP_GT)) {
-            dump("compare_expression1 -> \">\" additive_expression");
+        int level = LEVELS - 1; // innermost open level
+        boolean compared = false; // compare level is non-associative
+        while (true) {
+            var operator = binaryOperators[tokens.type(current).ordinal()];
+            if (operator == null || operator.level < minLevel || operator.level > level
+                    || (operator.level == COMPARE_LEVEL && compared))
+                break;
+
+            if (tracing) {
+                for (; level > operator.level; level--)
+                    closeLevel(level, compared);
+                trace(operator.production);
+            }
+            level = operator.level;
             skip();
 
-            Expr rightExpression = parseAdditiveExpression();
+            Expr rightExpression = operator.level + 1 < LEVELS
+                    ? parseBinaryExpression(operator.level + 1)
+                    : parsePrefixExpression();
 
-            return new Binary(
+            leftExpression = new Binary(
+                    nextId++,
                     new Position(leftExpression.position.start, rightExpression.position.end),
                     leftExpression,
-                    Binary.Operator.GT,
+                    operator.operator,
                     rightExpression
             );
-
-        } else {
-            dump("compare_expression1 -> epsylon");
-            return leftExpression;
+            compared |= operator.level == COMPARE_LEVEL;
         }
-    }
-
-    private Expr parseAdditiveExpression() {
-        dump("additive_expression -> multiplicative_expression additive_expression1");
-        Expr leftExpression = parseMultiplicativeExpression();
-        return parseAdditiveExpression1(leftExpression);
-    }
-
-    private Expr parseAdditiveExpression1(Expr leftExpression) {
-        if (check(OP_ADD)) {
-            dump("additive_expression1 -> \"+\" additive_expression");
-            skip();
-
-            Expr rightExpression = parseMultiplicativeExpression();
-
-            Expr binary = new Binary(
-                    new Position(leftExpression.position.start, rightExpression.position.end),
-                    leftExpression,
-                    Binary.Operator.ADD,
-                    rightExpression
-            );
 
-            return parseAdditiveExpression1(binary);
+        if (tracing)
+            for (; level >= minLevel; level--)
+                closeLevel(level, compared);
 
-        } else if (check(OP_SUB)) {
-            dump("additive_expression1 -> \"-\" additive_expression");
-            skip();
-
-            Expr rightExpression = parseMultiplicativeExpression();
-
-            Expr binary = new Binary(
-                    new Position(leftExpression.position.start, rightExpression.position.end),
-                    leftExpression,
-                    Binary.Operator.SUB,
-                    rightExpression
-            );
-
-            return parseAdditiveExpression1(binary);
-
-        } else {
-            dump("additive_expression1 -> epsylon");
-            return leftExpression;
-        }
+        return leftExpression;
     }
 
-    private Expr parseMultiplicativeExpression() {
-        dump("multiplicative_expression -> prefix_expression multiplicative_expression1");
-        Expr leftExpression = parsePrefixExpression();
-        return parseMultiplicativeExpression1(leftExpression);
+    private void closeLevel(int level, boolean compared) {
+        if (level != COMPARE_LEVEL || !compared)
+            trace(levelEpsilonProductions[level]);
     }
 
-    private Expr parseMultiplicativeExpression1(Expr leftExpression) {
-        if (check(OP_MUL)) {
-            dump("multiplicative_expression1 ->  \"*\" multiplicative_expression");
-            skip();
-
-            Expr rightExpression = parsePrefixExpression();
-
-            Expr binary = new Binary(
-                    new Position(leftExpression.position.start, rightExpression.position.end),
-                    leftExpression,
-                    Binary.Operator.MUL,
-                    rightExpression
-            );
-
-            return parseMultiplicativeExpression1(binary);
-
-        } else if (check(OP_DIV)) {
-            dump("multiplicative_expression1 ->  \"/\" multiplicative_expression");
-            skip();
-
-            Expr rightExpression = parsePrefixExpression();
-
-            Expr binary = new Binary(
-                    new Position(leftExpression.position.start, rightExpression.position.end),
-                    leftExpression,
-                    Binary.Operator.DIV,
-                    rightExpression
-            );
-
-            return parseMultiplicativeExpression1(binary);
-
-        } else if (check(OP_MOD)) {
-            dump("multiplicative_expression1 ->  \"%\" multiplicative_expression");
+    private Expr parsePrefixExpression() {
+        // prefix operators are skipped first and applied innermost-first
+        int firstOperator = current;
+        while (true) {
+            if (check(OP_ADD)) {
+                trace(Production.PREFIX_EXPRESSION_ADD);
+            } else if (check(OP_SUB)) {
+                trace(Production.PREFIX_EXPRESSION_SUB);
+            } else if (check(OP_NOT)) {
+                trace(Production.PREFIX_EXPRESSION_NOT);
+            } else {
+                break;
+            }
             skip();
-
-            Expr rightExpression = parsePrefixExpression();
-
-            Expr binary = new Binary(
-                    new Position(leftExpression.position.start, rightExpression.position.end),
-                    leftExpression,
-                    Binary.Operator.MOD,
-                    rightExpression
-            );
-
-            return parseMultiplicativeExpression1(binary);
-
-        } else {
-            dump("multiplicative_expression1 -> epsylon");
-            return leftExpression;
         }
-    }
-
-    private Expr parsePrefixExpression() {
-        if (check(OP_ADD)) {
-            dump("prefix_expression -> \"+\" prefix_expression");
-            Symbol startSymbol = skip();
+        int lastOperator = current - 1;
 
-            Expr expression = parsePrefixExpression();
+        trace(Production.PREFIX_EXPRESSION_POSTFIX);
+        Expr expression = parsePostfixExpression();
 
-            return new Unary(
-                    new Position(startSymbol.position.start, expression.position.end),
+        for (int startSymbol = lastOperator; startSymbol >= firstOperator; startSymbol--) {
+            expression = new Unary(
+                    nextId++,
+                    new Position(tokens.start(startSymbol), expression.position.end),
                     expression,
-                    Unary.Operator.ADD
+                    switch (tokens.type(startSymbol)) {
+                        case OP_ADD -> Unary.Operator.ADD;
+                        case OP_SUB -> Unary.Operator.SUB;
+                        default -> Unary.Operator.NOT;
+                    }
             );
-
-        } else if (check(OP_SUB)) {
-            dump("prefix_expression -> \"-\" prefix_expression");
-            Symbol startSymbol = skip();
-
-            Expr expression = parsePrefixExpression();
-
-            return new Unary(
-                    new Position(startSymbol.position.start, expression.position.end),
-                    expression,
-                    Unary.Operator.SUB
-            );
-
-        } else if (check(OP_NOT)) {
-            dump("prefix_expression -> \"!\" prefix_expression");
-            Symbol startSymbol = skip();
-
-            Expr expression = parsePrefixExpression();
-
-            return new Unary(
-                    new Position(startSymbol.position.start, expression.position.end),
-                    expression,
-                    Unary.Operator.NOT
-            );
-
-        } else {
-            dump("prefix_expression -> postfix_expression");
-            return parsePostfixExpression();
         }
+        return expression;
     }
 
     private Expr parsePostfixExpression() {
-        dump("postfix_expression -> atom_expression postfix_expression1");
+        trace(Production.POSTFIX_EXPRESSION);
         Expr leftExpression = parseAtomExpression();
         return parsePostfixExpression1(leftExpression);
     }
 
     private Expr parsePostfixExpression1(Expr leftExpression) {
-        if (check(OP_LBRACKET)) {
-            dump("postfix_expression1 -> \"[\" expression \"]\" postfix_expression1");
+        while (check(OP_LBRACKET)) {
+            trace(Production.POSTFIX_EXPRESSION1_INDEX);
             skip();
 
             Expr rightExpression = parseExpression();
 
             if (!check(OP_RBRACKET))
                 Report.error(getSymbol().position, "PINS error: ']' expected");
-            Symbol endSymbol = skip();
+            int endSymbol = skip();
 
-            Binary binary = new Binary(
-                    new Position(leftExpression.position.start, endSymbol.position.end),
+            leftExpression = new Binary(
+                    nextId++,
+                    new Position(leftExpression.position.start, tokens.end(endSymbol)),
                     leftExpression,
                     Binary.Operator.ARR,
                     rightExpression
             );
-
-            return parsePostfixExpression1(binary);
-
-        } else {
-            dump("postfix_expression1 -> epsylon");
-            return leftExpression;
         }
+
+        trace(Production.POSTFIX_EXPRESSION1_EPSILON);
+        return leftExpression;
     }
 
     private Expr parseAtomExpression() {
         if (check(C_LOGICAL)) {
-            dump("atom_expression -> log_constant");
-            Symbol atmExprLogical = skip();
+            trace(Production.ATOM_EXPRESSION_LOG_CONSTANT);
+            int atmExprLogical = skip();
 
             return new Literal(
-                    atmExprLogical.position,
-                    atmExprLogical.lexeme,
+                    nextId++,
+                    tokens.position(atmExprLogical),
+                    tokens.lexeme(atmExprLogical),
                     Atom.Type.LOG
             );
 
         } else if (check(C_INTEGER)) {
-            dump("atom_expression -> int_constant");
-            Symbol atmExprInteger = skip();
+            trace(Production.ATOM_EXPRESSION_INT_CONSTANT);
+            int atmExprInteger = skip();
 
             return new Literal(
-                    atmExprInteger.position,
-                    atmExprInteger.lexeme,
+                    nextId++,
+                    tokens.position(atmExprInteger),
+                    tokens.lexeme(atmExprInteger),
                     Atom.Type.INT
             );
 
         } else if (check(C_STRING)) {
-            dump("atom_expression -> str_constant");
-            Symbol atmExprString = skip();
+            trace(Production.ATOM_EXPRESSION_STR_CONSTANT);
+            int atmExprString = skip();
 
             return new Literal(
-                    atmExprString.position,
-                    atmExprString.lexeme,
+                    nextId++,
+                    tokens.position(atmExprString),
+                    tokens.lexeme(atmExprString),
                     Atom.Type.STR
             );
 
         } else if (check(IDENTIFIER)) {
-            dump("atom_expression -> identifier identifier1");
-            Symbol identifier = skip();
+            trace(Production.ATOM_EXPRESSION_IDENTIFIER);
+            int identifier = skip();
 
             return parseIdentifier1(identifier);
 
         } else if (check(OP_LPARENT)) {
-            dump("atom_expression -> \"(\" expressions \")\"");
-            Symbol startSymbol = skip();
+            trace(Production.ATOM_EXPRESSION_PARENTHESES);
+            int startSymbol = skip();
 
             List<Expr> exppressions = parseExpressions();
 
             if (!check(OP_RPARENT))
                 Report.error(getSymbol().position, "PINS error: ')' expected");
-            Symbol endSymbol = skip();
+            int endSymbol = skip();
 
             return new Block(
-                    new Position(startSymbol.position.start, endSymbol.position.end),
+                    nextId++,
+                    new Position(tokens.start(startSymbol), tokens.end(endSymbol)),
                     exppressions
             );
 
         } else if (check(OP_LBRACE)) {
-            dump("atom_expression -> \"{\" other_atom_expressions");
-            Symbol startSymbol = skip();
+            trace(Production.ATOM_EXPRESSION_BRACES);
+            int startSymbol = skip();
 
             return parseOtherAtomExpressions(startSymbol);
 
@@ -563,36 +488,40 @@ public class Parser {
         }
     }
 
-    private Expr parseIdentifier1(Symbol identifier) {
+    private Expr parseIdentifier1(int identifier) {
         if (check(OP_LPARENT)) {
-            dump("identifier1 -> \"(\" expressions \")\"");
+            trace(Production.IDENTIFIER1_CALL);
             skip();
 
             List<Expr> expressions = parseExpressions();
 
             if (!check(OP_RPARENT))
                 Report.error(getSymbol().position, "PINS error: ')' expected");
-            Symbol endSymbol = skip();
+            int endSymbol = skip();
 
             return new Call(
-                    new Position(identifier.position.start, endSymbol.position.end),
+                    nextId++,
+                    new Position(tokens.start(identifier), tokens.end(endSymbol)),
                     expressions,
-                    identifier.lexeme
+                    tokens.lexeme(identifier),
+                    tokens.nameId(identifier)
             );
 
         } else {
-            dump("identifier1 -> epsylon");
+            trace(Production.IDENTIFIER1_EPSILON);
 
             return new Name(
-                    identifier.position,
-                    identifier.lexeme
+                    nextId++,
+                    tokens.position(identifier),
+                    tokens.lexeme(identifier),
+                    tokens.nameId(identifier)
             );
         }
     }
 
-    private Expr parseOtherAtomExpressions(Symbol startSymbol) {
+    private Expr parseOtherAtomExpressions(int startSymbol) {
         if (check(KW_IF)) {
-            dump("other_atom_expressions -> if_else_expression if_then_else_expression");
+            trace(Production.OTHER_ATOM_EXPRESSIONS_IF);
             skip();
 
             IfThenElse ifThen = parseIfElseExpression(startSymbol);
@@ -600,19 +529,19 @@ public class Parser {
             return parseIfThenElseExpression(ifThen);
 
         } else if (check(KW_WHILE)) {
-            dump("other_atom_expressions ->  while_expression ");
+            trace(Production.OTHER_ATOM_EXPRESSIONS_WHILE);
             skip();
 
             return parseWhileExpression(startSymbol);
 
         } else if (check(KW_FOR)) {
-            dump("other_atom_expressions -> for_expression");
+            trace(Production.OTHER_ATOM_EXPRESSIONS_FOR);
             skip();
 
             return parseForExpression(startSymbol);
 
         } else {
-            dump("other_atom_expressions -> expression \"=\" expression \"}\"");
+            trace(Production.OTHER_ATOM_EXPRESSIONS_ASSIGNMENT);
             Expr leftExpression = parseExpression();
 
             if (!check(OP_ASSIGN))
@@ -623,10 +552,11 @@ public class Parser {
 
             if (!check(OP_RBRACE))
                 Report.error(getSymbol().position, "PINS error: '}' expected");
-            Symbol endSymbol = skip();
+            int endSymbol = skip();
 
             return new Binary(
-                    new Position(startSymbol.position.start, endSymbol.position.end),
+                    nextId++,
+                    new Position(tokens.start(startSymbol), tokens.end(endSymbol)),
                     leftExpression,
                     Binary.Operator.ASSIGN,
                     rightExpression
@@ -634,8 +564,8 @@ public class Parser {
         }
     }
 
-    private IfThenElse parseIfElseExpression(Symbol startSymbol) {
-        dump("if_else_expression -> if expression then expression");
+    private IfThenElse parseIfElseExpression(int startSymbol) {
+        trace(Production.IF_ELSE_EXPRESSION);
 
         Expr condition = parseExpression();
 
@@ -646,45 +576,48 @@ public class Parser {
         Expr thenExpression = parseExpression();
 
         return new IfThenElse(
-                new Position(startSymbol.position.start, thenExpression.position.end),
+                nextId++,
+                new Position(tokens.start(startSymbol), thenExpression.position.end),
                 condition, thenExpression
         );
     }
 
     private Expr parseIfThenElseExpression(IfThenElse ifThen) {
         if (check(KW_ELSE)) {
-            dump("if_then_else_expression -> else expression \"}\"");
+            trace(Production.IF_THEN_ELSE_EXPRESSION_ELSE);
             skip();
 
             Expr elseExpression = parseExpression();
 
             if (!check(OP_RBRACE))
                 Report.error(getSymbol().position, "PINS error: '}' expected");
-            Symbol endSymbol = skip();
+            int endSymbol = skip();
 
             return new IfThenElse(
-                    new Position(ifThen.position.start, endSymbol.position.end),
+                    nextId++,
+                    new Position(ifThen.position.start, tokens.end(endSymbol)),
                     ifThen.condition,
                     ifThen.thenExpression,
                     elseExpression
             );
         } else {
-            dump("if_then_else_expression -> epsylon \"}\"");
+            trace(Production.IF_THEN_ELSE_EXPRESSION_EPSILON);
 
             if (!check(OP_RBRACE))
                 Report.error(getSymbol().position, "PINS error: '}' expected");
-            Symbol endSymbol = skip();
+            int endSymbol = skip();
 
             return new IfThenElse(
-                    new Position(ifThen.position.start, endSymbol.position.end),
+                    nextId++,
+                    new Position(ifThen.position.start, tokens.end(endSymbol)),
                     ifThen.condition,
                     ifThen.thenExpression
             );
         }
     }
 
-    private Expr parseWhileExpression(Symbol startSymbol) {
-        dump("while_expression -> while expression \":\" expression \"}\"");
+    private Expr parseWhileExpression(int startSymbol) {
+        trace(Production.WHILE_EXPRESSION);
 
         Expr condition = parseExpression();
 
@@ -696,21 +629,22 @@ public class Parser {
 
         if (!check(OP_RBRACE))
             Report.error(getSymbol().position, "PINS error: '}' expected");
-        Symbol endSymbol = skip();
+        int endSymbol = skip();
 
         return new While(
-                new Position(startSymbol.position.start, endSymbol.position.end),
+                nextId++,
+                new Position(tokens.start(startSymbol), tokens.end(endSymbol)),
                 condition,
                 body
         );
     }
 
-    private Expr parseForExpression(Symbol startSymbol) {
-        dump("for_expression ->  for identifier \"=\" expression \",\" expression \",\" expression \":\" expression \"}\"");
+    private Expr parseForExpression(int startSymbol) {
+        trace(Production.FOR_EXPRESSION);
 
         if (!check(IDENTIFIER))
             Report.error(getSymbol().position, "PINS error: <identifier> expected");
-        Symbol forIdentifier = skip();
+        int forIdentifier = skip();
 
         if (!check(OP_ASSIGN))
             Report.error(getSymbol().position, "PINS error: '=' expected " + getSymbol().lexeme);
@@ -738,11 +672,12 @@ public class Parser {
 
         if (!check(OP_RBRACE))
             Report.error(getSymbol().position, "PINS error: '}' expected");
-        Symbol endSymbol = skip();
+        int endSymbol = skip();
 
         return new For(
-                new Position(startSymbol.position.start, endSymbol.position.end),
-                new Name(forIdentifier.position, forIdentifier.lexeme),
+                nextId++,
+                new Position(tokens.start(startSymbol), tokens.end(endSymbol)),
+                new Name(nextId++, tokens.position(forIdentifier), tokens.lexeme(forIdentifier), tokens.nameId(forIdentifier)),
                 low,
                 high,
                 step,
@@ -752,7 +687,7 @@ public class Parser {
 
 
     private List<Expr> parseExpressions() {
-        dump("expressions -> expression expressions1 ");
+        trace(Production.EXPRESSIONS);
         List<Expr> expressions = new ArrayList<>();
         expressions.add(parseExpression());
         parseExpressions1(expressions);
@@ -761,21 +696,18 @@ public class Parser {
     }
 
     private void parseExpressions1(List<Expr> expressions) {
-        if (check(OP_COMMA)) {
-            dump("expressions1 -> \",\" expressions");
+        while (check(OP_COMMA)) {
+            trace(Production.EXPRESSIONS1_COMMA);
             skip();
 
             expressions.add(parseExpression());
-
-            parseExpressions1(expressions);
-        } else {
-            dump("expressions1 -> epsylon");
         }
+        trace(Production.EXPRESSIONS1_EPSILON);
     }
 
 
     private List<FunDef.Parameter> parseParameters() {
-        dump("parameters -> parameter parameters1");
+        trace(Production.PARAMETERS);
         List<FunDef.Parameter> parameters = new ArrayList<>();
         parameters.add(parseParameter());
 
@@ -785,25 +717,22 @@ public class Parser {
     }
 
     private void parseParameters1(List<FunDef.Parameter> parameters) {
-        if (check(OP_COMMA)) {
-            dump("parameters1 ->  \",\" parameters");
+        while (check(OP_COMMA)) {
+            trace(Production.PARAMETERS1_COMMA);
             skip();
 
             parameters.add(parseParameter());
-
-            parseParameters1(parameters);
-        } else {
-            dump("parameters1 -> epsylon");
         }
+        trace(Production.PARAMETERS1_EPSILON);
     }
 
     private FunDef.Parameter parseParameter() {
         if (!check(IDENTIFIER))
             Report.error(getSymbol().position, "PINS error: <identifier> expected");
 
-        dump("parameter -> identifier \":\" type ");
+        trace(Production.PARAMETER);
 
-        Symbol parIdentifier = skip();
+        int parIdentifier = skip();
 
         if (!check(OP_COLON))
             Report.error(getSymbol().position, "PINS error: ':' expected");
@@ -812,19 +741,21 @@ public class Parser {
         Type parType = parseType();
 
         return new FunDef.Parameter(
-                new Position(parIdentifier.position.start, parType.position.end),
-                parIdentifier.lexeme,
+                nextId++,
+                new Position(tokens.start(parIdentifier), parType.position.end),
+                tokens.lexeme(parIdentifier),
+                tokens.nameId(parIdentifier),
                 parType
         );
     }
 
-    private Def parseVariableDefinition(Symbol startSymbol) {
+    private Def parseVariableDefinition(int startSymbol) {
         if (!check(IDENTIFIER))
             Report.error(getSymbol().position, "PINS error: <identifier> expected");
 
-        dump("variable_definition -> var identifier \":\" type");
+        trace(Production.VARIABLE_DEFINITION);
 
-        Symbol varIdentifier = skip();
+        int varIdentifier = skip();
 
         if (!check(OP_COLON))
             Report.error(getSymbol().position, "PINS error: ':' expected");
@@ -833,19 +764,21 @@ public class Parser {
         Type varType = parseType();
 
         return new VarDef(
-                new Position(startSymbol.position.start, varType.position.end),
-                varIdentifier.lexeme,
+                nextId++,
+                new Position(tokens.start(startSymbol), varType.position.end),
+                tokens.lexeme(varIdentifier),
+                tokens.nameId(varIdentifier),
                 varType
         );
     }
 
-    private Def parseTypeDefinition(Symbol startSymbol) {
+    private Def parseTypeDefinition(int startSymbol) {
         if (!check(IDENTIFIER))
             Report.error(getSymbol().position, "PINS error: <identifier> expected");
 
-        dump("type_definition -> typ identifier \":\" type");
+        trace(Production.TYPE_DEFINITION);
 
-        Symbol typIdentifier = skip();
+        int typIdentifier = skip();
 
         if (!check(OP_COLON))
             Report.error(getSymbol().position, "PINS error: ':' expected");
@@ -854,40 +787,42 @@ public class Parser {
         Type typType = parseType();
 
         return new TypeDef(
-                new Position(startSymbol.position.start, typType.position.end),
-                typIdentifier.lexeme,
+                nextId++,
+                new Position(tokens.start(startSymbol), typType.position.end),
+                tokens.lexeme(typIdentifier),
+                tokens.nameId(typIdentifier),
                 typType
         );
     }
 
     private Type parseType() {
         if (check(IDENTIFIER)) {
-            dump("type -> identifier");
-            Symbol symbol = skip();
+            trace(Production.TYPE_IDENTIFIER);
+            int symbol = skip();
 
-            return new TypeName(symbol.position, symbol.lexeme);
+            return new TypeName(nextId++, tokens.position(symbol), tokens.lexeme(symbol), tokens.nameId(symbol));
 
         } else if (check(AT_LOGICAL)) {
-            dump("type -> logical");
-            Symbol symbol = skip();
+            trace(Production.TYPE_LOGICAL);
+            int symbol = skip();
 
-            return Atom.LOG(symbol.position);
+            return Atom.LOG(nextId++, tokens.position(symbol));
 
         } else if (check(AT_INTEGER)) {
-            dump("type -> integer");
-            Symbol symbol = skip();
+            trace(Production.TYPE_INTEGER);
+            int symbol = skip();
 
-            return Atom.INT(symbol.position);
+            return Atom.INT(nextId++, tokens.position(symbol));
 
         } else if (check(AT_STRING)) {
-            dump("type -> string");
-            Symbol symbol = skip();
+            trace(Production.TYPE_STRING);
+            int symbol = skip();
 
-            return Atom.STR(symbol.position);
+            return Atom.STR(nextId++, tokens.position(symbol));
 
         } else if (check(KW_ARR)) {
-            dump("type -> arr \"[\" int_const \"]\" type ");
-            Symbol startSymbol = skip();
+            trace(Production.TYPE_ARRAY);
+            int startSymbol = skip();
 
             if (!check(OP_LBRACKET))
                 Report.error(getSymbol().position, "PINS error: '[' expected");
@@ -899,7 +834,7 @@ public class Parser {
                 else
                     Report.error(getSymbol().position, "PINS error: array dimension missing");
 
-            Symbol arraySize = skip();
+            int arraySize = skip();
 
             if (!check(OP_RBRACKET))
                 Report.error(getSymbol().position, "PINS error: ']' expected");
@@ -908,8 +843,9 @@ public class Parser {
             Type type = parseType();
 
             return new Array(
-                    new Position(startSymbol.position.start, type.position.end),
-                    Integer.parseInt(arraySize.lexeme),
+                    nextId++,
+                    new Position(tokens.start(startSymbol), type.position.end),
+                    Integer.parseInt(tokens.lexeme(arraySize)),
                     type
             );
         } else {
@@ -921,25 +857,45 @@ public class Parser {
 
     /*AUXILIARY METHODS*/
 
+    private static void binaryOperator(TokenType type, int level, Binary.Operator operator, Production production) {
+        binaryOperators[type.ordinal()] = new BinaryOperator(level, operator, production);
+    }
+
     private boolean check(TokenType type) {
-        return this.symbols.get(0).tokenType.equals(type);
+        return this.tokens.type(current) == type;
     }
 
     // TODO: dodaj previous symbol za errorje pri ';' in ','
-    private Symbol skip() {
-        return this.symbols.remove(0);
+    private int skip() {
+        return this.current++;
     }
 
     private Symbol getSymbol() {
-        return this.symbols.get(0);
+        return this.tokens.symbol(current);
+    }
+
+    /**
+     * Sporoči uporabljeno produkcijo sledilniku.
+     */
+    private void trace(Production production) {
+        if (tracing) {
+            tracer.production(production, current);
+        }
     }
 
     /**
-     * Izpiše produkcijo na izhodni tok.
+     * Dvojiški operator: nivo prednosti, operator v AST in produkcija,
+     * ki jo sporočimo ob njegovi uporabi.
      */
-    private void dump(String production) {
-        if (productionsOutputStream.isPresent()) {
-            productionsOutputStream.get().println(production);
+    private static class BinaryOperator {
+        final int level;
+        final Binary.Operator operator;
+        final Production production;
+
+        BinaryOperator(int level, Binary.Operator operator, Production production) {
+            this.level = level;
+            this.operator = operator;
+            this.production = production;
         }
     }
 }
@@ -0,0 +1,129 @@
+/**
+ * @Author: turk
+ * @Description: Produkcije slovnice jezika PINS.
+ */
+
+package compiler.parser;
+
+/**
+ * Produkcije, ki jih uporabi sintaksni analizator. Sledenje analizi
+ * namesto nizov uporablja oznake produkcij (`ordinal()`); besedilo
+ * produkcije potrebujemo le za izpis.
+ */
+public enum Production {
+    SOURCE("source -> definitions"),
+
+    DEFINITIONS("definitions -> definition definitions1"),
+
+    DEFINITION_TYPE("definition -> type_definition"),
+    DEFINITION_FUNCTION("definition -> function_definition"),
+    DEFINITION_VARIABLE("definition -> variable_definition "),
+
+    DEFINITIONS1_SEMICOLON("definitions1 -> \";\" definitions"),
+    DEFINITIONS1_EPSILON("definitions1 -> epsylon"),
+
+    FUNCTION_DEFINITION("function_definition -> fun identifier \"(\" parameters \")\" \":\" type \"=\" expression"),
+
+    EXPRESSION("expression -> logical_ior_expression expression1"),
+
+    EXPRESSION1_WHERE("expression1 -> \"{\" WHERE definitions \"}\""),
+    EXPRESSION1_EPSILON("expression1 -> epsylon"),
+
+    LOGICAL_IOR_EXPRESSION("logical_ior_expression -> logical_and_expression logical_ior_expression1"),
+
+    LOGICAL_IOR_EXPRESSION1_OR("logical_ior_expression1 -> \"|\" logical_ior_expression"),
+    LOGICAL_IOR_EXPRESSION1_EPSILON("logical_ior_expression1 -> epsylon"),
+
+    LOGICAL_AND_EXPRESSION("logical_and_expression -> compare_expression logical_and_expression1"),
+
+    LOGICAL_AND_EXPRESSION1_AND("logical_and_expression1 -> \"&\" logical_and_expression"),
+    LOGICAL_AND_EXPRESSION1_EPSILON("logical_and_expression1 -> epsylon"),
+
+    COMPARE_EXPRESSION("compare_expression -> additive_expression compare_expression1"),
+
+    COMPARE_EXPRESSION1_EQ("compare_expression1 -> \"==\" additive_expression"),
+    COMPARE_EXPRESSION1_NEQ("compare_expression1 -> \"!=\" additive_expression"),
+    COMPARE_EXPRESSION1_LEQ("compare_expression1 -> \"<=\" additive_expression"),
+    COMPARE_EXPRESSION1_GEQ("compare_expression1 -> \">=\" additive_expression"),
+    COMPARE_EXPRESSION1_LT("compare_expression1 -> \"<\" additive_expression"),
+    COMPARE_EXPRESSION1_GT("compare_expression1 -> \">\" additive_expression"),
+    COMPARE_EXPRESSION1_EPSILON("compare_expression1 -> epsylon"),
+
+    ADDITIVE_EXPRESSION("additive_expression -> multiplicative_expression additive_expression1"),
+
+    ADDITIVE_EXPRESSION1_ADD("additive_expression1 -> \"+\" additive_expression"),
+    ADDITIVE_EXPRESSION1_SUB("additive_expression1 -> \"-\" additive_expression"),
+    ADDITIVE_EXPRESSION1_EPSILON("additive_expression1 -> epsylon"),
+
+    MULTIPLICATIVE_EXPRESSION("multiplicative_expression -> prefix_expression multiplicative_expression1"),
+
+    MULTIPLICATIVE_EXPRESSION1_MUL("multiplicative_expression1 ->  \"*\" multiplicative_expression"),
+    MULTIPLICATIVE_EXPRESSION1_DIV("multiplicative_expression1 ->  \"/\" multiplicative_expression"),
+    MULTIPLICATIVE_EXPRESSION1_MOD("multiplicative_expression1 ->  \"%\" multiplicative_expression"),
+    MULTIPLICATIVE_EXPRESSION1_EPSILON("multiplicative_expression1 -> epsylon"),
+
+    PREFIX_EXPRESSION_ADD("prefix_expression -> \"+\" prefix_expression"),
+    PREFIX_EXPRESSION_SUB("prefix_expression -> \"-\" prefix_expression"),
+    PREFIX_EXPRESSION_NOT("prefix_expression -> \"!\" prefix_expression"),
+    PREFIX_EXPRESSION_POSTFIX("prefix_expression -> postfix_expression"),
+
+    POSTFIX_EXPRESSION("postfix_expression -> atom_expression postfix_expression1"),
+
+    POSTFIX_EXPRESSION1_INDEX("postfix_expression1 -> \"[\" expression \"]\" postfix_expression1"),
+    POSTFIX_EXPRESSION1_EPSILON("postfix_expression1 -> epsylon"),
+
+    ATOM_EXPRESSION_LOG_CONSTANT("atom_expression -> log_constant"),
+    ATOM_EXPRESSION_INT_CONSTANT("atom_expression -> int_constant"),
+    ATOM_EXPRESSION_STR_CONSTANT("atom_expression -> str_constant"),
+    ATOM_EXPRESSION_IDENTIFIER("atom_expression -> identifier identifier1"),
+    ATOM_EXPRESSION_PARENTHESES("atom_expression -> \"(\" expressions \")\""),
+    ATOM_EXPRESSION_BRACES("atom_expression -> \"{\" other_atom_expressions"),
+
+    IDENTIFIER1_CALL("identifier1 -> \"(\" expressions \")\""),
+    IDENTIFIER1_EPSILON("identifier1 -> epsylon"),
+
+    OTHER_ATOM_EXPRESSIONS_IF("other_atom_expressions -> if_else_expression if_then_else_expression"),
+    OTHER_ATOM_EXPRESSIONS_WHILE("other_atom_expressions ->  while_expression "),
+    OTHER_ATOM_EXPRESSIONS_FOR("other_atom_expressions -> for_expression"),
+    OTHER_ATOM_EXPRESSIONS_ASSIGNMENT("other_atom_expressions -> expression \"=\" expression \"}\""),
+
+    IF_ELSE_EXPRESSION("if_else_expression -> if expression then expression"),
+
+    IF_THEN_ELSE_EXPRESSION_ELSE("if_then_else_expression -> else expression \"}\""),
+    IF_THEN_ELSE_EXPRESSION_EPSILON("if_then_else_expression -> epsylon \"}\""),
+
+    WHILE_EXPRESSION("while_expression -> while expression \":\" expression \"}\""),
+
+    FOR_EXPRESSION("for_expression ->  for identifier \"=\" expression \",\" expression \",\" expression \":\" expression \"}\""),
+
+    EXPRESSIONS("expressions -> expression expressions1 "),
+
+    EXPRESSIONS1_COMMA("expressions1 -> \",\" expressions"),
+    EXPRESSIONS1_EPSILON("expressions1 -> epsylon"),
+
+    PARAMETERS("parameters -> parameter parameters1"),
+
+    PARAMETERS1_COMMA("parameters1 ->  \",\" parameters"),
+    PARAMETERS1_EPSILON("parameters1 -> epsylon"),
+
+    PARAMETER("parameter -> identifier \":\" type "),
+
+    VARIABLE_DEFINITION("variable_definition -> var identifier \":\" type"),
+
+    TYPE_DEFINITION("type_definition -> typ identifier \":\" type"),
+
+    TYPE_IDENTIFIER("type -> identifier"),
+    TYPE_LOGICAL("type -> logical"),
+    TYPE_INTEGER("type -> integer"),
+    TYPE_STRING("type -> string"),
+    TYPE_ARRAY("type -> arr \"[\" int_const \"]\" type ");
+
+    /**
+     * Besedilo produkcije, kot ga izpiše `--dump SYN`.
+     */
+    public final String text;
+
+    Production(String text) {
+        this.text = text;
+    }
+}
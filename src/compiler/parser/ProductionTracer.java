@@ -0,0 +1,44 @@
+/**
+ * @Author: turk
+ * @Description: Sledenje produkcijam sintaksne analize.
+ */
+
+package compiler.parser;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.io.PrintStream;
+
+/**
+ * Sledilnik, ki mu `Parser` sporoči vsako uporabljeno produkcijo.
+ */
+@FunctionalInterface
+public interface ProductionTracer {
+    /**
+     * Sporoči uporabljeno produkcijo.
+     *
+     * @param production Uporabljena produkcija.
+     * @param token Indeks trenutnega simbola v medpomnilniku.
+     */
+    void production(Production production, int token);
+
+    /**
+     * Vrne sledilnik, ki produkcijo sporoči temu sledilniku in nato
+     * sledilniku `next`.
+     */
+    default ProductionTracer andThen(ProductionTracer next) {
+        requireNonNull(next);
+        return (production, token) -> {
+            production(production, token);
+            next.production(production, token);
+        };
+    }
+
+    /**
+     * Vrne sledilnik, ki besedilo produkcij izpisuje na tok `out`.
+     */
+    static ProductionTracer printing(PrintStream out) {
+        requireNonNull(out);
+        return (production, token) -> out.println(production.text);
+    }
+}
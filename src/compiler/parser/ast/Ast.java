@@ -14,12 +14,20 @@ public abstract class Ast {
      */
 	public final Position position;
 
+    /**
+     * Zaporedna oznaka vozlišča (gosto oštevilčena od 0 v vrstnem redu
+     * ustvarjanja); uporablja se kot indeks v tabelah `NodeDescription`.
+     */
+	public final int id;
+
 	/**
 	 * Ustvari novo vozlišče.
 	 * 
+	 * @param id Oznaka vozlišča.
 	 * @param pos Lokacija.
 	 */
-	public Ast(Position position) {
+	public Ast(int id, Position position) {
+		this.id = id;
 		this.position = position;
 	}
 
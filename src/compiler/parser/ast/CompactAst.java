@@ -0,0 +1,713 @@
+/**
+ * @Author: turk
+ * @Description: Kompaktna predstavitev abstraktnega sintaksnega drevesa.
+ */
+
+package compiler.parser.ast;
+
+import static common.RequireNonNull.requireNonNull;
+
+import compiler.common.Visitor;
+import compiler.lexer.NameTable;
+import compiler.lexer.Position;
+import compiler.parser.ast.def.*;
+import compiler.parser.ast.expr.*;
+import compiler.parser.ast.type.Array;
+import compiler.parser.ast.type.Atom;
+import compiler.parser.ast.type.Type;
+import compiler.parser.ast.type.TypeName;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+/**
+ * Abstraktno sintaksno drevo, shranjeno v vzporednih tabelah primitivnih
+ * tipov: vrsta vozlišča, indeksi otrok, zapakirana lokacija in podatek
+ * vozlišča (oznaka imena, operator, velikost tabele, ...).
+ *
+ * Vozlišča so shranjena v premem vrstnem redu (koren ima indeks 0),
+ * otroci posameznega vozlišča pa so v tabeli povezav zaporedno.
+ * Vrstni red otrok je enak vrstnemu redu argumentov konstruktorjev
+ * vozlišč (npr. `FunDef`: parametri, tip, jedro).
+ *
+ * Za obstoječe obiskovalce lahko vozlišča pretvorimo nazaj v objekte
+ * (`node`, `accept`); ustvarjeni objekti se hranijo, zato ima isto
+ * vozlišče vedno isto identiteto.
+ */
+public class CompactAst {
+    /**
+     * Vrste vozlišč.
+     */
+    public enum Kind {
+        DEFS, FUN_DEF, PARAMETER, TYPE_DEF, VAR_DEF,
+        CALL, BINARY, BLOCK, FOR, NAME, IF_THEN_ELSE, LITERAL, UNARY, WHILE, WHERE,
+        ARRAY, ATOM, TYPE_NAME
+    }
+
+    private static final Kind[] kindValues = Kind.values();
+
+    private static final EnumSet<Kind> DEFINITIONS = EnumSet.of(Kind.FUN_DEF, Kind.TYPE_DEF, Kind.VAR_DEF);
+    private static final EnumSet<Kind> EXPRESSIONS = EnumSet.of(Kind.CALL, Kind.BINARY, Kind.BLOCK, Kind.FOR,
+            Kind.NAME, Kind.IF_THEN_ELSE, Kind.LITERAL, Kind.UNARY, Kind.WHILE, Kind.WHERE);
+    private static final EnumSet<Kind> TYPES = EnumSet.of(Kind.ARRAY, Kind.ATOM, Kind.TYPE_NAME);
+
+    /**
+     * Oznaka in različica binarnega zapisa (`toBytes`, `fromBytes`).
+     */
+    private static final int MAGIC = 0x50494E41; // "PINA"
+    private static final int FORMAT_VERSION = 2;
+
+    /**
+     * Dolžina dela glave pred kontrolno vsoto (oznaka, različica, vsota).
+     */
+    private static final int CHECKSUM_END = 3 * 4;
+
+    /**
+     * Tabela imen, v kateri so imena definicij in uporab.
+     */
+    private final NameTable names;
+
+    /**
+     * Tabela vrednosti konstant.
+     */
+    private final NameTable constants;
+
+    private int size = 0;
+    private byte[] kinds;
+    private int[] payloads;
+    private int[] auxiliaries;
+    private long[] starts;
+    private long[] ends;
+    private int[] firstEdges;
+    private int[] childCounts;
+
+    /**
+     * Indeksi otrok; otroci vozlišča `i` so na mestih
+     * `[firstEdges[i], firstEdges[i] + childCounts[i])`.
+     */
+    private int[] edges;
+    private int edgeCount = 0;
+
+    /**
+     * Vozlišča, pretvorjena v objekte.
+     */
+    private Ast[] materialized;
+
+    private CompactAst(NameTable names, int capacity) {
+        this.names = names;
+        this.constants = new NameTable();
+        capacity = Math.max(capacity, 16);
+        this.kinds = new byte[capacity];
+        this.payloads = new int[capacity];
+        this.auxiliaries = new int[capacity];
+        this.starts = new long[capacity];
+        this.ends = new long[capacity];
+        this.firstEdges = new int[capacity];
+        this.childCounts = new int[capacity];
+        this.edges = new int[capacity];
+    }
+
+    /**
+     * Pretvori drevo `root` v kompaktno predstavitev.
+     *
+     * @param root Koren drevesa.
+     * @param names Tabela imen, v katero se internalizirajo imena.
+     */
+    public static CompactAst encode(Ast root, NameTable names) {
+        requireNonNull(root, names);
+        var ast = new CompactAst(names, 64);
+        root.accept(ast.new Encoder());
+        ast.trim();
+        return ast;
+    }
+
+    /**
+     * Zapiše drevo v binarni zapis.
+     *
+     * Zapis vsebuje glavo, tabelo imen, tabelo konstant in vzporedne
+     * tabele vozlišč; tabele so zapisane v celoti, zato se ob branju
+     * prenesejo brez razčlenjevanja posameznih vozlišč. Začetki povezav
+     * se ne zapišejo, ker jih lahko izračunamo iz števila otrok. Glava
+     * vsebuje kontrolno vsoto (CRC32) preostanka zapisa.
+     */
+    public byte[] toBytes() {
+        var nameBytes = encodeStrings(names);
+        var constantBytes = encodeStrings(constants);
+        int length = 5 * 4
+                + nameBytes.length + constantBytes.length
+                + size * (1 + 4 + 4 + 8 + 8 + 4)
+                + edgeCount * 4;
+        var buffer = ByteBuffer.allocate(length);
+        buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(0).putInt(size).putInt(edgeCount);
+        buffer.put(nameBytes).put(constantBytes);
+        buffer.put(kinds, 0, size);
+        buffer.asIntBuffer().put(payloads, 0, size);
+        buffer.position(buffer.position() + size * 4);
+        buffer.asIntBuffer().put(auxiliaries, 0, size);
+        buffer.position(buffer.position() + size * 4);
+        buffer.asLongBuffer().put(starts, 0, size);
+        buffer.position(buffer.position() + size * 8);
+        buffer.asLongBuffer().put(ends, 0, size);
+        buffer.position(buffer.position() + size * 8);
+        buffer.asIntBuffer().put(childCounts, 0, size);
+        buffer.position(buffer.position() + size * 4);
+        buffer.asIntBuffer().put(edges, 0, edgeCount);
+        buffer.putInt(2 * 4, checksum(buffer.array()));
+        return buffer.array();
+    }
+
+    /**
+     * Prebere drevo iz binarnega zapisa, ki ga je ustvarila metoda
+     * `toBytes`. Poleg kontrolne vsote preveri, da vozlišča sestavljajo
+     * drevo in da imajo otroke in podatke ustreznih vrst, zato poškodovan
+     * zapis ne more dati drugačnega drevesa.
+     *
+     * @throws IllegalArgumentException če zapis ni veljaven.
+     */
+    public static CompactAst fromBytes(byte[] bytes) {
+        requireNonNull(bytes);
+        try {
+            var buffer = ByteBuffer.wrap(bytes);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported AST format");
+            }
+            if (buffer.getInt() != checksum(bytes)) {
+                throw new IllegalArgumentException("AST checksum mismatch");
+            }
+            int size = buffer.getInt();
+            int edgeCount = buffer.getInt();
+            if (size <= 0 || edgeCount != size - 1) {
+                throw new IllegalArgumentException("Invalid AST size");
+            }
+            var ast = new CompactAst(decodeStrings(buffer), 0);
+            var constants = decodeStrings(buffer);
+            for (int id = 0; id < constants.size(); id++) {
+                ast.constants.intern(constants.name(id));
+            }
+            ast.size = size;
+            ast.edgeCount = edgeCount;
+            ast.kinds = new byte[size];
+            ast.payloads = new int[size];
+            ast.auxiliaries = new int[size];
+            ast.starts = new long[size];
+            ast.ends = new long[size];
+            ast.firstEdges = new int[size];
+            ast.childCounts = new int[size];
+            ast.edges = new int[edgeCount];
+            buffer.get(ast.kinds);
+            buffer.asIntBuffer().get(ast.payloads);
+            buffer.position(buffer.position() + size * 4);
+            buffer.asIntBuffer().get(ast.auxiliaries);
+            buffer.position(buffer.position() + size * 4);
+            buffer.asLongBuffer().get(ast.starts);
+            buffer.position(buffer.position() + size * 8);
+            buffer.asLongBuffer().get(ast.ends);
+            buffer.position(buffer.position() + size * 8);
+            buffer.asIntBuffer().get(ast.childCounts);
+            buffer.position(buffer.position() + size * 4);
+            buffer.asIntBuffer().get(ast.edges);
+
+            // children are stored in node order, so the first edges are prefix sums
+            int edge = 0;
+            for (int node = 0; node < size; node++) {
+                if (ast.kinds[node] < 0 || ast.kinds[node] >= kindValues.length || ast.childCounts[node] < 0) {
+                    throw new IllegalArgumentException("Invalid AST node " + node);
+                }
+                ast.firstEdges[node] = edge;
+                edge += ast.childCounts[node];
+            }
+            if (edge != edgeCount) {
+                throw new IllegalArgumentException("Invalid AST edges");
+            }
+            for (int i = 0; i < edgeCount; i++) {
+                if (ast.edges[i] <= 0 || ast.edges[i] >= size) {
+                    throw new IllegalArgumentException("Invalid AST edge " + i);
+                }
+            }
+            ast.validate();
+            return ast;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated AST", e);
+        }
+    }
+
+    /**
+     * Vrne indeks korena.
+     */
+    public int root() {
+        return 0;
+    }
+
+    /**
+     * Vrne število vozlišč.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Vrne tabelo imen.
+     */
+    public NameTable names() {
+        return names;
+    }
+
+    public Kind kind(int node) {
+        checkNode(node);
+        return kindValues[kinds[node]];
+    }
+
+    public int childCount(int node) {
+        checkNode(node);
+        return childCounts[node];
+    }
+
+    /**
+     * Vrne indeks `index`-tega otroka vozlišča `node`.
+     */
+    public int child(int node, int index) {
+        if (index < 0 || index >= childCount(node)) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return edges[firstEdges[node] + index];
+    }
+
+    public Position position(int node) {
+        checkNode(node);
+        return new Position(line(starts[node]), column(starts[node]), line(ends[node]), column(ends[node]));
+    }
+
+    /**
+     * Vrne oznako imena vozlišča (definicije, `Name`, `Call`, `TypeName`).
+     */
+    public int nameId(int node) {
+        var kind = kind(node);
+        if (!hasName(kind)) {
+            throw new IllegalArgumentException("Node " + node + " (" + kind + ") has no name");
+        }
+        return payloads[node];
+    }
+
+    /**
+     * Vrne ime vozlišča (definicije, `Name`, `Call`, `TypeName`).
+     */
+    public String name(int node) {
+        return names.name(nameId(node));
+    }
+
+    /**
+     * Vrne vozlišče `node` kot objekt.
+     */
+    public Ast node(int node) {
+        checkNode(node);
+        if (materialized == null) {
+            materialized = new Ast[size];
+        }
+        if (materialized[node] == null) {
+            materialized[node] = materialize(node);
+        }
+        return materialized[node];
+    }
+
+    /**
+     * Vrne celotno drevo kot objekte.
+     */
+    public Ast toAst() {
+        return node(root());
+    }
+
+    /**
+     * 'Sprejmi' obiskovalca v vozlišču `node`.
+     */
+    public void accept(int node, Visitor visitor) {
+        node(node).accept(visitor);
+    }
+
+    /**
+     * 'Sprejmi' obiskovalca v korenu drevesa.
+     */
+    public void accept(Visitor visitor) {
+        accept(root(), visitor);
+    }
+
+    // ----------------------------
+
+    /**
+     * Preveri, da vsako vozlišče razen korena (`Defs`) nastopa kot otrok
+     * natanko enkrat in za svojim staršem, ter da se vrste otrok in
+     * podatki vozlišč ujemajo s tistimi, ki jih pričakuje `materialize`.
+     */
+    private void validate() {
+        var hasParent = new boolean[size];
+        for (int node = 0; node < size; node++) {
+            for (int i = 0; i < childCounts[node]; i++) {
+                int child = edges[firstEdges[node] + i];
+                check(child > node && !hasParent[child], node);
+                hasParent[child] = true;
+            }
+        }
+        check(kinds[0] == Kind.DEFS.ordinal(), 0);
+        for (int node = 0; node < size; node++) {
+            int count = childCounts[node];
+            var kind = kindValues[kinds[node]];
+            if (hasName(kind)) {
+                check(payloads[node] >= 0 && payloads[node] < names.size(), node);
+            }
+            switch (kind) {
+                case DEFS -> checkChildren(node, 0, count, DEFINITIONS);
+                case FUN_DEF -> {
+                    check(count >= 2, node);
+                    checkChildren(node, 0, count - 2, EnumSet.of(Kind.PARAMETER));
+                    checkChildren(node, count - 2, count - 1, TYPES);
+                    checkChildren(node, count - 1, count, EXPRESSIONS);
+                }
+                case PARAMETER, TYPE_DEF, VAR_DEF, ARRAY -> {
+                    check(count == 1, node);
+                    checkChildren(node, 0, 1, TYPES);
+                }
+                case CALL, BLOCK -> checkChildren(node, 0, count, EXPRESSIONS);
+                case BINARY -> {
+                    check(count == 2 && ordinal(payloads[node], Binary.Operator.values()), node);
+                    checkChildren(node, 0, 2, EXPRESSIONS);
+                }
+                case FOR -> {
+                    check(count == 5, node);
+                    checkChildren(node, 0, 1, EnumSet.of(Kind.NAME));
+                    checkChildren(node, 1, 5, EXPRESSIONS);
+                }
+                case NAME, TYPE_NAME -> check(count == 0, node);
+                case IF_THEN_ELSE -> {
+                    check(count == 2 || count == 3, node);
+                    checkChildren(node, 0, count, EXPRESSIONS);
+                }
+                case LITERAL -> check(count == 0 && payloads[node] >= 0 && payloads[node] < constants.size()
+                        && ordinal(auxiliaries[node], Atom.Type.values()), node);
+                case UNARY -> {
+                    check(count == 1 && ordinal(payloads[node], Unary.Operator.values()), node);
+                    checkChildren(node, 0, 1, EXPRESSIONS);
+                }
+                case WHILE -> {
+                    check(count == 2, node);
+                    checkChildren(node, 0, 2, EXPRESSIONS);
+                }
+                case WHERE -> {
+                    check(count == 2, node);
+                    checkChildren(node, 0, 1, EXPRESSIONS);
+                    checkChildren(node, 1, 2, EnumSet.of(Kind.DEFS));
+                }
+                case ATOM -> check(count == 0 && ordinal(payloads[node], Atom.Type.values()), node);
+            }
+        }
+    }
+
+    private void checkChildren(int node, int from, int to, EnumSet<Kind> kinds) {
+        for (int i = from; i < to; i++) {
+            check(kinds.contains(kindValues[this.kinds[edges[firstEdges[node] + i]]]), node);
+        }
+    }
+
+    private static boolean ordinal(int value, Object[] values) {
+        return value >= 0 && value < values.length;
+    }
+
+    private static void check(boolean valid, int node) {
+        if (!valid) {
+            throw new IllegalArgumentException("Invalid AST node " + node);
+        }
+    }
+
+    /**
+     * Kontrolna vsota zapisa za glavo (oznako, različico in vsoto).
+     */
+    private static int checksum(byte[] bytes) {
+        var crc = new CRC32();
+        crc.update(bytes, CHECKSUM_END, bytes.length - CHECKSUM_END);
+        return (int) crc.getValue();
+    }
+
+    private Ast materialize(int node) {
+        var position = position(node);
+        return switch (kind(node)) {
+            case DEFS -> {
+                var definitions = new ArrayList<Def>(childCounts[node]);
+                for (int i = 0; i < childCounts[node]; i++) {
+                    definitions.add((Def) node(child(node, i)));
+                }
+                yield new Defs(node, position, definitions);
+            }
+            case FUN_DEF -> {
+                int parameterCount = childCounts[node] - 2;
+                var parameters = new ArrayList<FunDef.Parameter>(parameterCount);
+                for (int i = 0; i < parameterCount; i++) {
+                    parameters.add((FunDef.Parameter) node(child(node, i)));
+                }
+                yield new FunDef(node, position, name(node), nameId(node), parameters,
+                        (Type) node(child(node, parameterCount)), (Expr) node(child(node, parameterCount + 1)));
+            }
+            case PARAMETER -> new FunDef.Parameter(node, position, name(node), nameId(node), (Type) node(child(node, 0)));
+            case TYPE_DEF -> new TypeDef(node, position, name(node), nameId(node), (Type) node(child(node, 0)));
+            case VAR_DEF -> new VarDef(node, position, name(node), nameId(node), (Type) node(child(node, 0)));
+            case CALL -> new Call(node, position, expressions(node, 0), name(node), nameId(node));
+            case BINARY -> new Binary(node, position, (Expr) node(child(node, 0)),
+                    Binary.Operator.values()[payloads[node]], (Expr) node(child(node, 1)));
+            case BLOCK -> new Block(node, position, expressions(node, 0));
+            case FOR -> new For(node, position, (Name) node(child(node, 0)), (Expr) node(child(node, 1)),
+                    (Expr) node(child(node, 2)), (Expr) node(child(node, 3)), (Expr) node(child(node, 4)));
+            case NAME -> new Name(node, position, name(node), nameId(node));
+            case IF_THEN_ELSE -> new IfThenElse(node, position, (Expr) node(child(node, 0)), (Expr) node(child(node, 1)),
+                    childCounts[node] == 3 ? Optional.of((Expr) node(child(node, 2))) : Optional.empty());
+            case LITERAL -> new Literal(node, position, constants.name(payloads[node]), Atom.Type.values()[auxiliaries[node]]);
+            case UNARY -> new Unary(node, position, (Expr) node(child(node, 0)), Unary.Operator.values()[payloads[node]]);
+            case WHILE -> new While(node, position, (Expr) node(child(node, 0)), (Expr) node(child(node, 1)));
+            case WHERE -> new Where(node, position, (Expr) node(child(node, 0)), (Defs) node(child(node, 1)));
+            case ARRAY -> new Array(node, position, payloads[node], (Type) node(child(node, 0)));
+            case ATOM -> switch (Atom.Type.values()[payloads[node]]) {
+                case INT -> Atom.INT(node, position);
+                case LOG -> Atom.LOG(node, position);
+                case STR -> Atom.STR(node, position);
+            };
+            case TYPE_NAME -> new TypeName(node, position, name(node), nameId(node));
+        };
+    }
+
+    private List<Expr> expressions(int node, int from) {
+        var expressions = new ArrayList<Expr>(childCounts[node] - from);
+        for (int i = from; i < childCounts[node]; i++) {
+            expressions.add((Expr) node(child(node, i)));
+        }
+        return expressions;
+    }
+
+    private static boolean hasName(Kind kind) {
+        return switch (kind) {
+            case FUN_DEF, PARAMETER, TYPE_DEF, VAR_DEF, CALL, NAME, TYPE_NAME -> true;
+            default -> false;
+        };
+    }
+
+    private void checkNode(int node) {
+        if (node < 0 || node >= size) {
+            throw new IndexOutOfBoundsException(node);
+        }
+    }
+
+    /**
+     * Doda vozlišče in mu rezervira `childCount` mest v tabeli povezav.
+     */
+    private int add(Kind kind, Position position, int payload, int auxiliary, int childCount) {
+        if (size == kinds.length) {
+            int capacity = size * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            payloads = Arrays.copyOf(payloads, capacity);
+            auxiliaries = Arrays.copyOf(auxiliaries, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            firstEdges = Arrays.copyOf(firstEdges, capacity);
+            childCounts = Arrays.copyOf(childCounts, capacity);
+        }
+        while (edgeCount + childCount > edges.length) {
+            edges = Arrays.copyOf(edges, edges.length * 2);
+        }
+        int node = size++;
+        kinds[node] = (byte) kind.ordinal();
+        payloads[node] = payload;
+        auxiliaries[node] = auxiliary;
+        starts[node] = pack(position.start);
+        ends[node] = pack(position.end);
+        firstEdges[node] = edgeCount;
+        childCounts[node] = childCount;
+        edgeCount += childCount;
+        return node;
+    }
+
+    private void trim() {
+        kinds = Arrays.copyOf(kinds, size);
+        payloads = Arrays.copyOf(payloads, size);
+        auxiliaries = Arrays.copyOf(auxiliaries, size);
+        starts = Arrays.copyOf(starts, size);
+        ends = Arrays.copyOf(ends, size);
+        firstEdges = Arrays.copyOf(firstEdges, size);
+        childCounts = Arrays.copyOf(childCounts, size);
+        edges = Arrays.copyOf(edges, edgeCount);
+    }
+
+    /**
+     * Zapiše nize tabele v vrstnem redu oznak: število nizov, nato za
+     * vsak niz dolžino in znake v UTF-8.
+     */
+    private static byte[] encodeStrings(NameTable table) {
+        var encoded = new byte[table.size()][];
+        int length = 4;
+        for (int id = 0; id < encoded.length; id++) {
+            encoded[id] = table.name(id).getBytes(StandardCharsets.UTF_8);
+            length += 4 + encoded[id].length;
+        }
+        var buffer = ByteBuffer.allocate(length);
+        buffer.putInt(encoded.length);
+        for (var string : encoded) {
+            buffer.putInt(string.length).put(string);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Prebere nize, ki jih je zapisala metoda `encodeStrings`; ker jih
+     * internalizira v istem vrstnem redu, dobijo iste oznake.
+     */
+    private static NameTable decodeStrings(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        if (count < 0 || count > buffer.remaining() / 4) {
+            throw new IllegalArgumentException("Invalid string table");
+        }
+        var table = new NameTable(count);
+        for (int id = 0; id < count; id++) {
+            int length = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                throw new IllegalArgumentException("Invalid string table");
+            }
+            var string = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            if (table.intern(string) != id) {
+                throw new IllegalArgumentException("Duplicate string in table");
+            }
+        }
+        return table;
+    }
+
+    private static long pack(Position.Location location) {
+        return ((long) location.line << 32) | (location.column & 0xFFFFFFFFL);
+    }
+
+    private static int line(long location) {
+        return (int) (location >>> 32);
+    }
+
+    private static int column(long location) {
+        return (int) location;
+    }
+
+    /**
+     * Obiskovalec, ki vozlišča zapiše v premem vrstnem redu.
+     */
+    private class Encoder implements Visitor {
+        private int node(Kind kind, Ast ast, int payload, int auxiliary, List<? extends Ast> children) {
+            int node = add(kind, ast.position, payload, auxiliary, children.size());
+            int edge = firstEdges[node];
+            for (var child : children) {
+                edges[edge++] = size;
+                child.accept(this);
+            }
+            return node;
+        }
+
+        private int node(Kind kind, Ast ast, int payload, Ast... children) {
+            return node(kind, ast, payload, 0, List.of(children));
+        }
+
+        @Override
+        public void visit(Call call) {
+            node(Kind.CALL, call, names.intern(call.name), 0, call.arguments);
+        }
+
+        @Override
+        public void visit(Binary binary) {
+            node(Kind.BINARY, binary, binary.operator.ordinal(), binary.left, binary.right);
+        }
+
+        @Override
+        public void visit(Block block) {
+            node(Kind.BLOCK, block, 0, 0, block.expressions);
+        }
+
+        @Override
+        public void visit(For forLoop) {
+            node(Kind.FOR, forLoop, 0, forLoop.counter, forLoop.low, forLoop.high, forLoop.step, forLoop.body);
+        }
+
+        @Override
+        public void visit(Name name) {
+            node(Kind.NAME, name, names.intern(name.name));
+        }
+
+        @Override
+        public void visit(IfThenElse ifThenElse) {
+            if (ifThenElse.elseExpression.isPresent()) {
+                node(Kind.IF_THEN_ELSE, ifThenElse, 0,
+                        ifThenElse.condition, ifThenElse.thenExpression, ifThenElse.elseExpression.get());
+            } else {
+                node(Kind.IF_THEN_ELSE, ifThenElse, 0, ifThenElse.condition, ifThenElse.thenExpression);
+            }
+        }
+
+        @Override
+        public void visit(Literal literal) {
+            node(Kind.LITERAL, literal, constants.intern(literal.value), literal.type.ordinal(), List.of());
+        }
+
+        @Override
+        public void visit(Unary unary) {
+            node(Kind.UNARY, unary, unary.operator.ordinal(), unary.expr);
+        }
+
+        @Override
+        public void visit(While whileLoop) {
+            node(Kind.WHILE, whileLoop, 0, whileLoop.condition, whileLoop.body);
+        }
+
+        @Override
+        public void visit(Where where) {
+            node(Kind.WHERE, where, 0, where.expr, where.defs);
+        }
+
+        @Override
+        public void visit(Defs defs) {
+            node(Kind.DEFS, defs, 0, 0, defs.definitions);
+        }
+
+        @Override
+        public void visit(FunDef funDef) {
+            var children = new ArrayList<Ast>(funDef.parameters.size() + 2);
+            children.addAll(funDef.parameters);
+            children.add(funDef.type);
+            children.add(funDef.body);
+            node(Kind.FUN_DEF, funDef, names.intern(funDef.name), 0, children);
+        }
+
+        @Override
+        public void visit(TypeDef typeDef) {
+            node(Kind.TYPE_DEF, typeDef, names.intern(typeDef.name), typeDef.type);
+        }
+
+        @Override
+        public void visit(VarDef varDef) {
+            node(Kind.VAR_DEF, varDef, names.intern(varDef.name), varDef.type);
+        }
+
+        @Override
+        public void visit(FunDef.Parameter parameter) {
+            node(Kind.PARAMETER, parameter, names.intern(parameter.name), parameter.type);
+        }
+
+        @Override
+        public void visit(Array array) {
+            node(Kind.ARRAY, array, array.size, array.type);
+        }
+
+        @Override
+        public void visit(Atom atom) {
+            node(Kind.ATOM, atom, atom.type.ordinal());
+        }
+
+        @Override
+        public void visit(TypeName name) {
+            node(Kind.TYPE_NAME, name, names.intern(name.identifier));
+        }
+    }
+}
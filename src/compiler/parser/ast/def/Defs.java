@@ -19,8 +19,8 @@ public class Defs extends Ast {
      */
     public final List<Def> definitions;
 
-    public Defs(Position position, List<Def> definitions) {
-        super(position);
+    public Defs(int id, Position position, List<Def> definitions) {
+        super(id, position);
         requireNonNull(definitions);
         this.definitions = definitions;
     }
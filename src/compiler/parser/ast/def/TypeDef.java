@@ -17,8 +17,8 @@ public class TypeDef extends Def {
      */
     public final Type type;
 
-    public TypeDef(Position position, String name, Type type) {
-        super(position, name);
+    public TypeDef(int id, Position position, String name, int nameId, Type type) {
+        super(id, position, name, nameId);
         requireNonNull(type);
         this.type = type;
     }
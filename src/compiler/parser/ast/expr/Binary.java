@@ -26,8 +26,8 @@ public class Binary extends Expr {
      */
     public final Expr right;
 
-    public Binary(Position position, Expr left, Operator operator, Expr right) {
-        super(position);
+    public Binary(int id, Position position, Expr left, Operator operator, Expr right) {
+        super(id, position);
         requireNonNull(left);
         requireNonNull(operator);
         requireNonNull(right);
@@ -18,8 +18,8 @@ public class Block extends Expr {
      */
     public final List<Expr> expressions;
 
-    public Block(Position position, List<Expr> expressions) {
-        super(position);
+    public Block(int id, Position position, List<Expr> expressions) {
+        super(id, position);
         requireNonNull(expressions);
         this.expressions = expressions;
     }
@@ -10,7 +10,7 @@ import compiler.lexer.Position;
 import compiler.parser.ast.Ast;
 
 public abstract class Expr extends Ast {
-    public Expr(Position position) {
-        super(position);
+    public Expr(int id, Position position) {
+        super(id, position);
     }
 }
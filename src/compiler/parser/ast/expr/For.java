@@ -36,8 +36,8 @@ public class For extends Expr {
      */
     public final Expr body;    
 
-    public For(Position position, Name counter, Expr low, Expr high, Expr step, Expr body) {
-        super(position);
+    public For(int id, Position position, Name counter, Expr low, Expr high, Expr step, Expr body) {
+        super(id, position);
         requireNonNull(counter);
         requireNonNull(low);
         requireNonNull(high);
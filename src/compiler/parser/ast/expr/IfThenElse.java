@@ -32,8 +32,8 @@ public class IfThenElse extends Expr {
     /**
      * Ustvari nov `If-Then` izraz.
      */
-    public IfThenElse(Position position, Expr condition, Expr thenExpression) {
-        super(position);
+    public IfThenElse(int id, Position position, Expr condition, Expr thenExpression) {
+        super(id, position);
         requireNonNull(condition);
         requireNonNull(thenExpression);
         this.condition = condition;
@@ -44,8 +44,8 @@ public class IfThenElse extends Expr {
     /**
      * Ustvari nov `If-Then-Else` izraz.
      */
-    public IfThenElse(Position position, Expr condition, Expr thenExpression, Expr elseExpression) {
-        super(position);
+    public IfThenElse(int id, Position position, Expr condition, Expr thenExpression, Expr elseExpression) {
+        super(id, position);
         requireNonNull(condition);
         requireNonNull(thenExpression);
         requireNonNull(elseExpression);
@@ -60,8 +60,8 @@ public class IfThenElse extends Expr {
      * Če je vrednost parametra `elseExpression` enaka `Optional.empty`()`,
      * potem gre za `If-Then` izraz, sicer za `If-Then-Else` izraz.
      */
-    public IfThenElse(Position position, Expr condition, Expr thenExpression, Optional<Expr> elseExpression) {
-        super(position);
+    public IfThenElse(int id, Position position, Expr condition, Expr thenExpression, Optional<Expr> elseExpression) {
+        super(id, position);
         requireNonNull(condition);
         requireNonNull(thenExpression);
         requireNonNull(elseExpression);
@@ -22,8 +22,8 @@ public class Literal extends Expr {
      */
     public final Atom.Type type;
 
-    public Literal(Position position, String value, Atom.Type type) {
-        super(position);
+    public Literal(int id, Position position, String value, Atom.Type type) {
+        super(id, position);
         requireNonNull(value);
         requireNonNull(type);
         this.value = value;
@@ -21,8 +21,8 @@ public class Unary extends Expr {
      */
     public final Operator operator;
 
-    public Unary(Position position, Expr expr, Operator operator) {
-        super(position);
+    public Unary(int id, Position position, Expr expr, Operator operator) {
+        super(id, position);
         requireNonNull(expr);
         requireNonNull(operator);
         this.expr = expr;
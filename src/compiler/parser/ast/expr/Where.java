@@ -22,8 +22,8 @@ public class Where extends Expr {
      */
     public final Defs defs;
 
-    public Where(Position position, Expr expr, Defs defs) {
-        super(position);
+    public Where(int id, Position position, Expr expr, Defs defs) {
+        super(id, position);
         requireNonNull(expr);
         requireNonNull(defs);
         this.expr = expr;
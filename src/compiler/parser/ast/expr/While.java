@@ -21,8 +21,8 @@ public class While extends Expr {
      */
     public final Expr body;
 
-    public While(Position position, Expr condition, Expr body) {
-        super(position);
+    public While(int id, Position position, Expr condition, Expr body) {
+        super(id, position);
         requireNonNull(condition);
         requireNonNull(body);
         this.condition = condition;
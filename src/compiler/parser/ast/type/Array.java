@@ -21,8 +21,8 @@ public class Array extends Type {
      */
     public final Type type;
 
-    public Array(Position position, int size, Type type) {
-        super(position);
+    public Array(int id, Position position, int size, Type type) {
+        super(id, position);
         requireNonNull(size);
         requireNonNull(type);
         this.size = size;
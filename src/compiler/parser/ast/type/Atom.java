@@ -16,8 +16,8 @@ public class Atom extends Type {
      */
     public final Type type;
 
-    private Atom(Position position, Type type) {
-        super(position);
+    private Atom(int id, Position position, Type type) {
+        super(id, position);
         requireNonNull(type);
         this.type = type;
     }
@@ -25,22 +25,22 @@ public class Atom extends Type {
     /**
      * Vrne nov atomarni tip integer.
      */
-    public static Atom INT(Position position) {
-        return new Atom(position, Type.INT);
+    public static Atom INT(int id, Position position) {
+        return new Atom(id, position, Type.INT);
     }
 
     /**
      * Vrne nov atomarni tip logical.
      */
-    public static Atom LOG(Position position) {
-        return new Atom(position, Type.LOG);
+    public static Atom LOG(int id, Position position) {
+        return new Atom(id, position, Type.LOG);
     }
 
     /**
      * Vrne nov atomarni tip string.
      */
-    public static Atom STR(Position position) {
-        return new Atom(position, Type.STR);
+    public static Atom STR(int id, Position position) {
+        return new Atom(id, position, Type.STR);
     }
 
 	@Override public void accept(Visitor visitor) { visitor.visit(this); }
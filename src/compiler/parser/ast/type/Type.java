@@ -10,7 +10,7 @@ import compiler.lexer.Position;
 import compiler.parser.ast.Ast;
 
 public abstract class Type extends Ast {
-    public Type(Position position) {
-        super(position);
+    public Type(int id, Position position) {
+        super(id, position);
     }
 }
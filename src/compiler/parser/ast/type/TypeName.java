@@ -16,10 +16,16 @@ public class TypeName extends Type {
      */
     public final String identifier;
 
-    public TypeName(Position position, String identifier) {
-        super(position);
+    /**
+     * Oznaka imena tipa v tabeli imen.
+     */
+    public final int nameId;
+
+    public TypeName(int id, Position position, String identifier, int nameId) {
+        super(id, position);
         requireNonNull(identifier);
         this.identifier = identifier;
+        this.nameId = nameId;
     }
 
 	@Override public void accept(Visitor visitor) { visitor.visit(this); }
@@ -0,0 +1,567 @@
+/**
+ * @Author: turk
+ * @Description: Združeno razreševanje imen, preverjanje tipov in
+ * analiza klicnih zapisov.
+ */
+
+package compiler.seman;
+
+import static common.RequireNonNull.requireNonNull;
+
+import common.Constants;
+import common.Report;
+import compiler.common.Visitor;
+import compiler.frm.Access;
+import compiler.frm.Frame;
+import compiler.parser.ast.def.*;
+import compiler.parser.ast.def.FunDef.Parameter;
+import compiler.parser.ast.expr.*;
+import compiler.parser.ast.type.Array;
+import compiler.parser.ast.type.Atom;
+import compiler.parser.ast.type.TypeName;
+import compiler.seman.common.NodeDescription;
+import compiler.seman.name.env.SymbolTable;
+import compiler.seman.name.env.SymbolTable.DefinitionAlreadyExistsException;
+import compiler.seman.type.type.Type;
+import compiler.seman.type.type.TypeTable;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.Stack;
+
+/**
+ * Izvede razreševanje imen (`NameChecker`), preverjanje tipov
+ * (`TypeChecker`) in analizo klicnih zapisov (`FrameEvaluator`) v enem
+ * obhodu drevesa in zgradi enake opise vozlišč kot zaporedno izvedene
+ * faze.
+ *
+ * Ker so definicije istega nivoja vidne že pred svojo deklaracijo, vsak
+ * nivo najprej obdelamo s predhodnim prehodom čez `Defs`: definicije
+ * vstavimo v simbolno tabelo in izračunamo tipe definicij tipov,
+ * spremenljivk in parametrov ter tipe funkcij. Ob obhodu izrazov so
+ * tako tipi vseh vidnih definicij že znani.
+ *
+ * Vrstni red napak se lahko razlikuje od zaporedno izvedenih faz (te
+ * najprej sporočijo vse napake imen), zato `Main` ob napaki ponovi
+ * analizo z ločenimi fazami, ki sporočijo napako.
+ */
+public class FusedAnalyzer implements Visitor {
+    /**
+     * Opis vozlišč, ki jih povežemo z njihovimi definicijami.
+     */
+    private final NodeDescription<Def> definitions;
+
+    /**
+     * Opis vozlišč, ki jim priredimo podatkovne tipe.
+     */
+    private final NodeDescription<Type> types;
+
+    /**
+     * Tabela enoličnih tipov.
+     */
+    private final TypeTable typeTable;
+
+    /**
+     * Opis definicij funkcij in njihovih klicnih zapisov.
+     */
+    private final NodeDescription<Frame> frames;
+
+    /**
+     * Opis definicij spremenljivk in njihovih dostopov.
+     */
+    private final NodeDescription<Access> accesses;
+
+    /**
+     * Simbolna tabela.
+     */
+    private final SymbolTable symbolTable;
+
+    /**
+     * Definicije tipov, katerih tip trenutno računamo (zaznavanje ciklov).
+     */
+    private final Set<TypeDef> resolving = new HashSet<>();
+
+    /**
+     * Graditelji klicnih zapisov gnezdenih funkcij.
+     */
+    private final Stack<Frame.Builder> builders = new Stack<>();
+
+    /**
+     * Trenutni statični nivo.
+     */
+    private int staticLevel = 0;
+
+    /**
+     * Globina gnezdenja v argumentih klicev. `FrameEvaluator` argumentov
+     * klicev ne obišče, zato znotraj njih klicnih zapisov in dostopov ne
+     * računamo.
+     */
+    private int callArguments = 0;
+
+    public FusedAnalyzer(
+            NodeDescription<Def> definitions,
+            NodeDescription<Type> types,
+            NodeDescription<Frame> frames,
+            NodeDescription<Access> accesses,
+            SymbolTable symbolTable
+    ) {
+        this(definitions, types, frames, accesses, symbolTable, new TypeTable());
+    }
+
+    public FusedAnalyzer(
+            NodeDescription<Def> definitions,
+            NodeDescription<Type> types,
+            NodeDescription<Frame> frames,
+            NodeDescription<Access> accesses,
+            SymbolTable symbolTable,
+            TypeTable typeTable
+    ) {
+        requireNonNull(definitions, types, frames, accesses, symbolTable, typeTable);
+        this.definitions = definitions;
+        this.types = types;
+        this.frames = frames;
+        this.accesses = accesses;
+        this.symbolTable = symbolTable;
+        this.typeTable = typeTable;
+    }
+
+    @Override
+    public void visit(Call call) {
+        // Arguments are not part of the frame analysis
+        callArguments++;
+        for (Expr argument : call.arguments)
+            argument.accept(this);
+        callArguments--;
+
+        Type.Function function = null;
+        if (Constants.stdLibrary.containsKey(call.name)) {
+            function = stdLibraryFunction(call.name);
+        } else {
+            Optional<Def> funDef = symbolTable.definitionFor(call.nameId);
+            if (funDef.isEmpty())
+                Report.error(call.position, "PINS error: function " + call.name + " is not defined");
+            else if (!(funDef.get() instanceof FunDef))
+                Report.error(call.position, "PINS error: " + call.name + " is not a function");
+            else {
+                definitions.store(funDef.get(), call);
+                Type funType = types.get(funDef.get());
+                if (funType != null)
+                    function = funType.asFunction().orElse(null);
+            }
+        }
+
+        if (function != null) {
+            checkArguments(call, function);
+            types.store(function.returnType, call);
+        }
+
+        // Adding space for arguments of a call to a frame
+        if (callArguments == 0) {
+            int size = Constants.WordSize;
+            for (Expr argument : call.arguments) {
+                Type argumentType = types.get(argument);
+                if (argumentType != null)
+                    size += argumentType.sizeInBytesAsParam();
+            }
+            builders.peek().addFunctionCall(size);
+        }
+    }
+
+    @Override
+    public void visit(Binary binary) {
+        // Checking if array is defined
+        if (binary.operator.equals(Binary.Operator.ARR) && binary.left instanceof Name name) {
+            Optional<Def> link = symbolTable.definitionFor(name.nameId);
+            if (link.isEmpty())
+                Report.error(name.position, "PINS error: array " + name.name + " is not defined");
+            else if (!(link.get() instanceof VarDef || link.get() instanceof Parameter))
+                Report.error(name.position, "PINS error: " + name.name + " is not an array");
+        }
+
+        binary.left.accept(this);
+        binary.right.accept(this);
+
+        Type leftExprType = types.get(binary.left);
+        Type rightExprType = types.get(binary.right);
+        if (leftExprType == null || rightExprType == null)
+            return;
+
+        if (binary.operator.isAndOr()) {
+            if (!leftExprType.isLog())
+                Report.error(binary.left.position, "PINS error: invalid type - expected 'log', got '" + leftExprType + "'");
+            if (!rightExprType.isLog())
+                Report.error(binary.left.position, "PINS error: invalid type - expected 'log', got '" + rightExprType + "'");
+            types.store(typeTable.atom(Type.Atom.Kind.LOG), binary);
+
+        } else if (binary.operator.isArithmetic()) {
+            if (!leftExprType.isInt())
+                Report.error(binary.left.position, "PINS error: invalid type - expected 'int', got " + leftExprType + "'");
+            if (!rightExprType.isInt())
+                Report.error(binary.left.position, "PINS error: invalid type - expected 'int', got " + rightExprType + "'");
+            types.store(typeTable.atom(Type.Atom.Kind.INT), binary);
+
+        } else if (binary.operator.isComparison()) {
+            if (!leftExprType.equals(rightExprType) || (!leftExprType.isInt() && !leftExprType.isLog()))
+                Report.error(binary.position, "PINS error: operator " + binary.operator + " cannot be applied to '" + leftExprType + "', '" + rightExprType + "'");
+            types.store(typeTable.atom(Type.Atom.Kind.LOG), binary);
+
+        } else if (binary.operator.equals(Binary.Operator.ARR)) {
+            if (!leftExprType.isArray())
+                Report.error(binary.left.position, "PINS error: invalid type - expected 'arr', got '" + rightExprType + "'");
+            if (!rightExprType.isInt())
+                Report.error(binary.left.position, "PINS error: invalid type - expected 'int', got '" + rightExprType + "'");
+            leftExprType.asArray().ifPresent(array -> types.store(array.type, binary));
+
+        } else if (binary.operator.equals(Binary.Operator.ASSIGN)) {
+            if (!leftExprType.isAtom() || !rightExprType.isAtom())
+                Report.error(binary.left.position, "PINS error: type must be ATOM");
+            if (!leftExprType.equals(rightExprType))
+                Report.error(binary.left.position, "PINS error: invalid type - expected '" + leftExprType + "', got '" + rightExprType + "'");
+            types.store(leftExprType, binary);
+        }
+    }
+
+    @Override
+    public void visit(Block block) {
+        for (Expr expr : block.expressions)
+            expr.accept(this);
+
+        // Last expression determines type of the block
+        Type lastExprType = types.get(block.expressions.get(block.expressions.size() - 1));
+        if (lastExprType != null)
+            types.store(lastExprType, block);
+    }
+
+    @Override
+    public void visit(For forLoop) {
+        forLoop.counter.accept(this);
+        forLoop.low.accept(this);
+        forLoop.high.accept(this);
+        forLoop.step.accept(this);
+        forLoop.body.accept(this);
+
+        Type identifierType = types.get(forLoop.counter);
+        Type lowType = types.get(forLoop.low);
+        Type highType = types.get(forLoop.high);
+        Type stepType = types.get(forLoop.step);
+        if (identifierType == null || lowType == null || highType == null || stepType == null)
+            return;
+
+        expectInt(forLoop.counter, identifierType);
+        expectInt(forLoop.low, lowType);
+        expectInt(forLoop.high, highType);
+        expectInt(forLoop.step, stepType);
+
+        types.store(typeTable.atom(Type.Atom.Kind.VOID), forLoop);
+    }
+
+    @Override
+    public void visit(Name name) {
+        Optional<Def> link = symbolTable.definitionFor(name.nameId);
+        if (link.isEmpty())
+            Report.error(name.position, "PINS error: variable " + name.name + " is not defined");
+        else if (link.get() instanceof FunDef)
+            Report.error(name.position, "PINS error: " + name.name + " is a function");
+        else if (link.get() instanceof TypeDef)
+            Report.error(name.position, "PINS error: " + name.name + " is a type");
+        else {
+            definitions.store(link.get(), name);
+            Type type = types.get(link.get());
+            if (type != null)
+                types.store(type, name);
+        }
+    }
+
+    @Override
+    public void visit(IfThenElse ifThenElse) {
+        ifThenElse.condition.accept(this);
+        ifThenElse.thenExpression.accept(this);
+        ifThenElse.elseExpression.ifPresent(expr -> expr.accept(this));
+
+        Type conditionType = types.get(ifThenElse.condition);
+        if (conditionType == null)
+            return;
+        expectLog(ifThenElse.condition, conditionType);
+
+        types.store(typeTable.atom(Type.Atom.Kind.VOID), ifThenElse);
+    }
+
+    @Override
+    public void visit(Literal literal) {
+        types.store(atomType(literal.type), literal);
+    }
+
+    @Override
+    public void visit(Unary unary) {
+        unary.expr.accept(this);
+
+        Type unaryExprType = types.get(unary.expr);
+        if (unaryExprType == null)
+            return;
+
+        if (unary.operator.equals(Unary.Operator.NOT)) {
+            if (!unaryExprType.isLog())
+                Report.error(unary.position, "PINS error: invalid type - expected 'log', got '" + unaryExprType + "'");
+            types.store(unaryExprType, unary);
+        } else if (unary.operator.equals(Unary.Operator.SUB) || unary.operator.equals(Unary.Operator.ADD)) {
+            if (!unaryExprType.isInt())
+                Report.error(unary.position, "PINS error: invalid type - expected 'int', got '" + unaryExprType + "'");
+            types.store(unaryExprType, unary);
+        }
+    }
+
+    @Override
+    public void visit(While whileLoop) {
+        whileLoop.condition.accept(this);
+        whileLoop.body.accept(this);
+
+        Type conditionType = types.get(whileLoop.condition);
+        if (conditionType == null)
+            return;
+        expectLog(whileLoop.condition, conditionType);
+
+        types.store(typeTable.atom(Type.Atom.Kind.VOID), whileLoop);
+    }
+
+    @Override
+    public void visit(Where where) {
+        symbolTable.inNewScope(() -> {
+            where.defs.accept(this);
+            where.expr.accept(this);
+        });
+
+        // Type of expression determines type of WHERE block
+        Type exprType = types.get(where.expr);
+        if (exprType != null)
+            types.store(exprType, where);
+    }
+
+    @Override
+    public void visit(Defs defs) {
+        // Pre-pass: declarations and their types, so that forward references resolve
+        for (Def definition : defs.definitions) {
+            if (definition instanceof VarDef varDef)
+                insert(varDef, "PINS error: variable " + varDef.name + " is already defined");
+            else if (definition instanceof TypeDef typeDef)
+                insert(typeDef, "PINS error: type " + typeDef.name + " is already defined");
+            else if (definition instanceof FunDef funDef)
+                insert(funDef, "PINS error: function " + funDef.name + " is already defined");
+            else
+                Report.error(definition.position, "PINS error: unknown definition");
+        }
+        for (Def definition : defs.definitions)
+            declare(definition);
+
+        // Bodies, in source order (the order of frames and accesses)
+        for (Def definition : defs.definitions)
+            definition.accept(this);
+    }
+
+    @Override
+    public void visit(FunDef funDef) {
+        Frame.Builder builder = null;
+        if (callArguments == 0) {
+            staticLevel++;
+            builder = new Frame.Builder(
+                    staticLevel <= 1 ? Frame.Label.named(funDef.name) : Frame.Label.nextAnonymous(),
+                    staticLevel
+            );
+            // Space for static link
+            builder.addParameter(Constants.WordSize);
+            builders.push(builder);
+        }
+
+        symbolTable.inNewScope(() -> {
+            for (Parameter parameter : funDef.parameters)
+                insert(parameter, "PINS error: parameter " + parameter.name + " is already defined");
+            for (Parameter parameter : funDef.parameters)
+                parameter.accept(this);
+            funDef.body.accept(this);
+        });
+
+        // Function body type and function return type must match
+        Type returnType = types.get(funDef.type);
+        Type bodyType = types.get(funDef.body);
+        if (returnType != null && bodyType != null && !returnType.equals(bodyType))
+            Report.error(funDef.body.position, "PINS error: function type and return type do not match - expected '" + returnType + "', got '" + bodyType + "'");
+
+        if (builder != null) {
+            frames.store(builder.build(), funDef);
+            builders.pop();
+            staticLevel--;
+        }
+    }
+
+    @Override
+    public void visit(TypeDef typeDef) {
+        // resolved in the pre-pass
+    }
+
+    @Override
+    public void visit(VarDef varDef) {
+        Type type = types.get(varDef.type);
+        if (type == null || callArguments > 0)
+            return;
+
+        int size = type.sizeInBytes();
+        if (staticLevel < 1)
+            accesses.store(new Access.Global(size, Frame.Label.named(varDef.name)), varDef);
+        else
+            accesses.store(new Access.Local(size, builders.peek().addLocalVariable(size), staticLevel), varDef);
+    }
+
+    @Override
+    public void visit(Parameter parameter) {
+        Type type = types.get(parameter.type);
+        if (type == null || callArguments > 0)
+            return;
+
+        int size = type.sizeInBytesAsParam();
+        accesses.store(new Access.Parameter(size, builders.peek().addParameter(size), staticLevel), parameter);
+    }
+
+    @Override
+    public void visit(Array array) {
+        array.type.accept(this);
+
+        Type elementType = types.get(array.type);
+        if (elementType == null)
+            return;
+
+        if (elementType.isAtom() || elementType.isArray())
+            types.store(typeTable.array(array.size, elementType), array);
+    }
+
+    @Override
+    public void visit(Atom atom) {
+        types.store(atomType(atom.type), atom);
+    }
+
+    @Override
+    public void visit(TypeName name) {
+        Optional<Def> link = symbolTable.definitionFor(name.nameId);
+        if (link.isEmpty())
+            Report.error(name.position, "PINS error: type " + name.identifier + " is not defined");
+        else if (!(link.get() instanceof TypeDef typeDef))
+            Report.error(name.position, "PINS error: " + name.identifier + " is not a type");
+        else {
+            definitions.store(typeDef, name);
+            resolve(typeDef);
+            Type type = types.get(typeDef);
+            if (type != null)
+                types.store(type, name);
+        }
+    }
+
+    /*AUXILIARY METHODS*/
+
+    /**
+     * Izračuna tip definicije (predhodni prehod čez `Defs`). Imena v
+     * tipih parametrov razrešimo v nivoju funkcije, tako kot `NameChecker`.
+     */
+    private void declare(Def definition) {
+        if (definition instanceof TypeDef typeDef) {
+            resolve(typeDef);
+        } else if (definition instanceof VarDef varDef) {
+            varDef.type.accept(this);
+            Type type = types.get(varDef.type);
+            if (type != null)
+                types.store(type, varDef);
+        } else if (definition instanceof FunDef funDef) {
+            List<Type> parameters = new ArrayList<>();
+            for (Parameter parameter : funDef.parameters) {
+                parameter.type.accept(this);
+                Type type = types.get(parameter.type);
+                if (type != null) {
+                    types.store(type, parameter);
+                    parameters.add(type);
+                }
+            }
+            funDef.type.accept(this);
+            Type returnType = types.get(funDef.type);
+            if (returnType != null)
+                types.store(typeTable.function(parameters, returnType), funDef);
+        }
+    }
+
+    /**
+     * Izračuna tip definicije tipa, če ta še ni znan.
+     */
+    private void resolve(TypeDef typeDef) {
+        if (types.get(typeDef) != null)
+            return;
+        if (!resolving.add(typeDef))
+            Report.error(typeDef.position, "PINS error: cycle detected between types");
+
+        typeDef.type.accept(this);
+        Type type = types.get(typeDef.type);
+        if (type != null)
+            types.store(type, typeDef);
+
+        resolving.remove(typeDef);
+    }
+
+    private void insert(Def definition, String errorMessage) {
+        try {
+            symbolTable.insert(definition);
+        } catch (DefinitionAlreadyExistsException e) {
+            Report.error(definition.position, errorMessage);
+        }
+    }
+
+    private Type atomType(Atom.Type type) {
+        return switch (type) {
+            case INT -> typeTable.atom(Type.Atom.Kind.INT);
+            case LOG -> typeTable.atom(Type.Atom.Kind.LOG);
+            case STR -> typeTable.atom(Type.Atom.Kind.STR);
+        };
+    }
+
+    /**
+     * Vrne tip funkcije standardne knjižnice ali `null`, če ga ne poznamo.
+     */
+    private Type.Function stdLibraryFunction(String name) {
+        return switch (name) {
+            case Constants.printStringLabel -> function(Type.Atom.Kind.STR, Type.Atom.Kind.STR);
+            case Constants.printIntLabel, Constants.seedLabel -> function(Type.Atom.Kind.INT, Type.Atom.Kind.INT);
+            case Constants.printLogLabel -> function(Type.Atom.Kind.LOG, Type.Atom.Kind.LOG);
+            case Constants.randIntLabel -> function(Type.Atom.Kind.INT, Type.Atom.Kind.INT, Type.Atom.Kind.INT);
+            default -> null;
+        };
+    }
+
+    /**
+     * Vrne tip funkcije s podanimi tipi parametrov in tipom rezultata
+     * (zadnji).
+     */
+    private Type.Function function(Type.Atom.Kind... kinds) {
+        List<Type> parameters = new ArrayList<>();
+        for (int i = 0; i < kinds.length - 1; i++)
+            parameters.add(typeTable.atom(kinds[i]));
+        return typeTable.function(parameters, typeTable.atom(kinds[kinds.length - 1]));
+    }
+
+    private void checkArguments(Call call, Type.Function function) {
+        if (call.arguments.size() != function.parameters.size())
+            Report.error(call.position, "PINS error: wrong number of arguments - expected " + function.parameters.size() + ", got " + call.arguments.size());
+
+        for (int i = 0; i < function.parameters.size(); i++) {
+            Type argumentType = types.get(call.arguments.get(i));
+            if (argumentType == null || !argumentType.equals(function.parameters.get(i)))
+                Report.error(call.position, "PINS error: wrong types of arguments");
+        }
+    }
+
+    private void expectInt(Expr expr, Type type) {
+        if (!type.isInt())
+            Report.error(expr.position, "PINS error: invalid type - expected 'int', got '" + type + "'");
+    }
+
+    private void expectLog(Expr expr, Type type) {
+        if (!type.isLog())
+            Report.error(expr.position, "PINS error: invalid type - expected 'log', got '" + type + "'");
+    }
+}
@@ -1,32 +1,144 @@
 /**
  * @ Author: turk
- * @ Description: Preslikava iz vozlišč abstraktnega 
+ * @ Description: Preslikava iz vozlišč abstraktnega
  * sintaksnega drevesa v vrednosti poljubnega tipa.
  */
 
 package compiler.seman.common;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 import java.util.Optional;
 
 import compiler.parser.ast.Ast;
 
 public class NodeDescription<T> {
-    private Map<Ast, T> storage = new HashMap<>();
+    /**
+     * Vrednosti, indeksirane z oznako vozlišča (`Ast.id`).
+     */
+    private Object[] storage;
+
+    public NodeDescription() {
+        this(64);
+    }
+
+    /**
+     * Ustvari preslikavo s prostorom za vozlišča z oznakami
+     * med `0` in `capacity - 1`.
+     */
+    public NodeDescription(int capacity) {
+        storage = new Object[Math.max(capacity, 1)];
+    }
 
     /**
      * Vrne vrednost za podano vozlišče, če je le-ta
      * prisotna.
      */
     public Optional<T> valueFor(Ast node) {
-        return Optional.ofNullable(storage.get(node));
+        return Optional.ofNullable(get(node));
+    }
+
+    /**
+     * Vrne vrednost za podano vozlišče ali `null`, če
+     * vrednost ni prisotna.
+     */
+    @SuppressWarnings("unchecked")
+    public T get(Ast node) {
+        int id = node.id;
+        return id < storage.length ? (T) storage[id] : null;
+    }
+
+    /**
+     * Odstrani vse vrednosti.
+     */
+    public void clear() {
+        Arrays.fill(storage, null);
     }
 
     /**
      * Shrani vrednost za vozlišče.
      */
     public boolean store(T value, Ast forNode) {
-        return storage.put(forNode, value) == null;
+        return storeId(value, forNode.id);
+    }
+
+    private boolean storeId(T value, int id) {
+        if (id >= storage.length) {
+            storage = Arrays.copyOf(storage, Math.max(storage.length * 2, id + 1));
+        }
+        var previous = storage[id];
+        storage[id] = value;
+        return previous == null;
+    }
+
+    /**
+     * Delež preslikave za vzporedno analizo: nove vrednosti hrani ločeno,
+     * manjkajoče pa poišče v preslikavi `parent`, ki se med analizo ne
+     * sme spreminjati. Po koncu analize ga združimo z `merge`.
+     *
+     * Vrednosti hrani v oknu oznak, ki se po potrebi razširi; ker imajo
+     * vozlišča posamezne definicije zaporedne oznake, je okno majhno.
+     */
+    public static class Shard<T> extends NodeDescription<T> {
+        private final NodeDescription<T> parent;
+
+        /**
+         * Oznaka vozlišča, ki pripada prvemu elementu okna.
+         */
+        private int offset = 0;
+
+        private Object[] window = new Object[0];
+
+        public Shard(NodeDescription<T> parent) {
+            super(1);
+            this.parent = parent;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(Ast node) {
+            int index = node.id - offset;
+            if (index >= 0 && index < window.length && window[index] != null) {
+                return (T) window[index];
+            }
+            return parent.get(node);
+        }
+
+        @Override
+        public boolean store(T value, Ast forNode) {
+            int id = forNode.id;
+            if (window.length == 0) {
+                offset = id;
+                window = new Object[64];
+            } else if (id < offset) {
+                int length = Math.max(window.length * 2, offset + window.length - id);
+                var grown = new Object[length];
+                int shift = length - window.length;
+                System.arraycopy(window, 0, grown, shift, window.length);
+                offset -= shift;
+                window = grown;
+            } else if (id - offset >= window.length) {
+                window = Arrays.copyOf(window, Math.max(window.length * 2, id - offset + 1));
+            }
+            var previous = window[id - offset];
+            window[id - offset] = value;
+            return previous == null && parent.get(forNode) == null;
+        }
+
+        @Override
+        public void clear() {
+            window = new Object[0];
+        }
+
+        /**
+         * Shrani vrednosti deleža v preslikavo `parent`.
+         */
+        @SuppressWarnings("unchecked")
+        public void merge() {
+            for (int i = 0; i < window.length; i++) {
+                if (window[i] != null) {
+                    parent.storeId((T) window[i], offset + i);
+                }
+            }
+        }
     }
 }
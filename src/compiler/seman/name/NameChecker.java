@@ -54,7 +54,7 @@ public class NameChecker implements Visitor {
         if (Constants.stdLibrary.containsKey(call.name))
             return;
 
-        Optional<Def> funDef = symbolTable.definitionFor(call.name);
+        Optional<Def> funDef = symbolTable.definitionFor(call.nameId);
         if (funDef.isEmpty())
             Report.error(call.position, "PINS error: function " + call.name + " is not defined");
         else if (!(funDef.get() instanceof FunDef))
@@ -67,7 +67,7 @@ public class NameChecker implements Visitor {
     public void visit(Binary binary) {
         // Checking if array is defined
         if (binary.operator.equals(Binary.Operator.ARR) && binary.left instanceof Name name) {
-            Optional<Def> link = symbolTable.definitionFor(name.name);
+            Optional<Def> link = symbolTable.definitionFor(name.nameId);
 
             if (link.isEmpty())
                 Report.error(name.position, "PINS error: array " + name.name + " is not defined");
@@ -102,7 +102,7 @@ public class NameChecker implements Visitor {
     @Override
     public void visit(Name name) {
         // Linking variable name with its definition
-        Optional<Def> link = symbolTable.definitionFor(name.name);
+        Optional<Def> link = symbolTable.definitionFor(name.nameId);
 
         if (link.isEmpty())
             Report.error(name.position, "PINS error: variable " + name.name + " is not defined");
@@ -241,7 +241,7 @@ public class NameChecker implements Visitor {
     @Override
     public void visit(TypeName name) {
         // Linking type name with its definition
-        Optional<Def> link = symbolTable.definitionFor(name.identifier);
+        Optional<Def> link = symbolTable.definitionFor(name.nameId);
 
         if (link.isEmpty())
             Report.error(name.position, "PINS error: type " + name.identifier + " is not defined");
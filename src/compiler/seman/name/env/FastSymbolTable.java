@@ -6,24 +6,37 @@
 package compiler.seman.name.env;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 import java.util.Optional;
 
 import compiler.parser.ast.def.Def;
 
 public class FastSymbolTable implements SymbolTable {
     private int currentScope = 0;
-    private Map<Integer, ArrayList<String>> scopes = new HashMap<>();
-    private Map<String, ArrayList<Pair>> env = new HashMap<>();
+
+    /**
+     * Oznake imen, definiranih na posameznem nivoju gnezdenja
+     * (indeksirano z nivojem).
+     */
+    private int[][] scopes = new int[8][];
+    private int[] scopeSizes = new int[8];
+
+    /**
+     * Sklad definicij za vsako ime (indeksirano z oznako imena).
+     */
+    private ArrayList<Pair>[] env = newEnv(64);
 
     public FastSymbolTable() {
-        scopes.put(currentScope, new ArrayList<>());
+        scopes[currentScope] = new int[4];
     }
 
     @Override
     public void insert(Def definition) throws DefinitionAlreadyExistsException {
-        var definitions = env.get(definition.name);
+        int nameId = definition.nameId;
+        if (nameId >= env.length) {
+            env = Arrays.copyOf(env, Math.max(env.length * 2, nameId + 1));
+        }
+        var definitions = env[nameId];
         if (definitions != null) {
             if (!definitions.isEmpty() && definitions.get(definitions.size() - 1).scope == currentScope) {
                 throw new DefinitionAlreadyExistsException(definition);
@@ -32,21 +45,23 @@ public class FastSymbolTable implements SymbolTable {
         } else {
             var stack = new ArrayList<Pair>();
             stack.add(new Pair(currentScope, definition));
-            env.put(definition.name, stack);
+            env[nameId] = stack;
         }
-        var existingScope = scopes.get(currentScope);
-        if (existingScope == null) {
-            var list = new ArrayList<String>();
-            list.add(definition.name);
-            scopes.put(currentScope, list);
-        } else {
-            existingScope.add(definition.name);
+        var scope = scopes[currentScope];
+        if (scope == null) {
+            scope = scopes[currentScope] = new int[4];
+        } else if (scopeSizes[currentScope] == scope.length) {
+            scope = scopes[currentScope] = Arrays.copyOf(scope, scope.length * 2);
         }
+        scope[scopeSizes[currentScope]++] = nameId;
     }
 
     @Override
-    public Optional<Def> definitionFor(String name) {
-        var definitions = env.get(name);
+    public Optional<Def> definitionFor(int nameId) {
+        if (nameId < 0 || nameId >= env.length) {
+            return Optional.empty();
+        }
+        var definitions = env[nameId];
         if (definitions == null || definitions.isEmpty()) {
             return Optional.empty();
         }
@@ -56,23 +71,31 @@ public class FastSymbolTable implements SymbolTable {
     @Override
     public void pushScope() {
         currentScope++;
+        if (currentScope == scopes.length) {
+            scopes = Arrays.copyOf(scopes, scopes.length * 2);
+            scopeSizes = Arrays.copyOf(scopeSizes, scopeSizes.length * 2);
+        }
     }
 
     @Override
     public void popScope() {
-        var scope = scopes.get(currentScope);
-        if (scope == null) { return; }
-        for (var name : scope) {
-            var definitions = env.get(name);
+        var scope = scopes[currentScope];
+        for (int i = 0; i < scopeSizes[currentScope]; i++) {
+            var definitions = env[scope[i]];
             if (definitions.get(definitions.size() - 1).scope != currentScope) {
                 throw new RuntimeException("Interna napaka prevajalnika.");
             }
             definitions.remove(definitions.size() - 1);
         }
-        scopes.remove(currentScope);
+        scopeSizes[currentScope] = 0;
         currentScope--;
     }
 
+    @SuppressWarnings("unchecked")
+    private static ArrayList<Pair>[] newEnv(int capacity) {
+        return (ArrayList<Pair>[]) new ArrayList<?>[capacity];
+    }
+
     private static class Pair {
         final int scope;
         final Def def;
@@ -0,0 +1,135 @@
+/**
+ * @ Author: turk
+ * @ Description: Implementacija simbolne tabele s ploskimi tabelami.
+ */
+
+package compiler.seman.name.env;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import compiler.parser.ast.def.Def;
+
+/**
+ * Vse vstavljene definicije so zapisane v eni tabeli vnosov v vrstnem
+ * redu vstavljanja. Ker `popScope` odstrani natanko definicije zadnjega
+ * nivoja, ki so na koncu tabele, je tabela vnosov hkrati dnevnik za
+ * razveljavljanje: nivo gnezdenja je le indeks prvega vnosa nivoja.
+ *
+ * Vnosi istega imena so povezani v verigo (`previous`), katere začetek
+ * je shranjen v tabeli `heads`, indeksirani z oznako imena.
+ *
+ * Ko so tabele dovolj velike, `pushScope`, `popScope` in
+ * `definitionFor` ne ustvarijo nobenega objekta; `insert` ustvari le
+ * `Optional`, ki ga nato vračamo ob vsakem iskanju.
+ */
+public class FlatSymbolTable implements SymbolTable {
+    private int currentScope = 0;
+
+    /**
+     * Indeks prvega vnosa posameznega nivoja gnezdenja
+     * (indeksirano z nivojem).
+     */
+    private int[] scopeStarts = new int[16];
+
+    /**
+     * Število vnosov.
+     */
+    private int size = 0;
+
+    /**
+     * Vnosi: definicija, oznaka njenega imena, nivo gnezdenja in indeks
+     * prejšnjega vnosa z istim imenom (`-1`, če ga ni).
+     */
+    private Optional<Def>[] definitions = newDefinitions(64);
+    private int[] names = new int[64];
+    private int[] scopes = new int[64];
+    private int[] previous = new int[64];
+
+    /**
+     * Indeks zadnjega vnosa za posamezno ime (indeksirano z oznako imena);
+     * `-1`, če imena ni v tabeli.
+     */
+    private int[] heads = newHeads(64);
+
+    /**
+     * @complexity O(1) amortizirano
+     */
+    @Override
+    public void insert(Def definition) throws DefinitionAlreadyExistsException {
+        int nameId = definition.nameId;
+        if (nameId >= heads.length) {
+            int length = heads.length;
+            heads = Arrays.copyOf(heads, Math.max(length * 2, nameId + 1));
+            Arrays.fill(heads, length, heads.length, -1);
+        }
+        int head = heads[nameId];
+        if (head >= 0 && scopes[head] == currentScope) {
+            throw new DefinitionAlreadyExistsException(definition);
+        }
+        if (size == names.length) {
+            int capacity = size * 2;
+            definitions = Arrays.copyOf(definitions, capacity);
+            names = Arrays.copyOf(names, capacity);
+            scopes = Arrays.copyOf(scopes, capacity);
+            previous = Arrays.copyOf(previous, capacity);
+        }
+        definitions[size] = Optional.of(definition);
+        names[size] = nameId;
+        scopes[size] = currentScope;
+        previous[size] = head;
+        heads[nameId] = size++;
+    }
+
+    /**
+     * @complexity O(1)
+     */
+    @Override
+    public Optional<Def> definitionFor(int nameId) {
+        if (nameId < 0 || nameId >= heads.length) {
+            return Optional.empty();
+        }
+        int head = heads[nameId];
+        return head < 0 ? Optional.empty() : definitions[head];
+    }
+
+    /**
+     * @complexity O(1) amortizirano
+     */
+    @Override
+    public void pushScope() {
+        currentScope++;
+        if (currentScope == scopeStarts.length) {
+            scopeStarts = Arrays.copyOf(scopeStarts, scopeStarts.length * 2);
+        }
+        scopeStarts[currentScope] = size;
+    }
+
+    /**
+     * @complexity O(n), n ... število definicij na trenutnem nivoju
+     */
+    @Override
+    public void popScope() {
+        if (currentScope == 0) {
+            throw new RuntimeException("Interna napaka prevajalnika.");
+        }
+        int start = scopeStarts[currentScope];
+        for (int i = size - 1; i >= start; i--) {
+            heads[names[i]] = previous[i];
+            definitions[i] = null;
+        }
+        size = start;
+        currentScope--;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Optional<Def>[] newDefinitions(int capacity) {
+        return (Optional<Def>[]) new Optional<?>[capacity];
+    }
+
+    private static int[] newHeads(int capacity) {
+        var heads = new int[capacity];
+        Arrays.fill(heads, -1);
+        return heads;
+    }
+}
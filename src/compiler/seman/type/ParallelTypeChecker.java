@@ -0,0 +1,154 @@
+/**
+ * @Author: turk
+ * @Description: Vzporedno preverjanje tipov funkcij na najvišjem nivoju.
+ */
+
+package compiler.seman.type;
+
+import static common.RequireNonNull.requireNonNull;
+
+import common.Report;
+import compiler.parser.ast.def.Def;
+import compiler.parser.ast.def.Defs;
+import compiler.parser.ast.def.FunDef;
+import compiler.seman.common.NodeDescription;
+import compiler.seman.type.type.Type;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Ko so tipi funkcij (`TypeChecker.resolveSignature`), definicij tipov
+ * in globalnih spremenljivk znani, so telesa funkcij na najvišjem nivoju
+ * neodvisna, zato jih preverimo vzporedno.
+ *
+ * Vsako opravilo preveri zaporedne funkcije s svojim `TypeChecker`, ki
+ * tipe shranjuje v svoj delež (`NodeDescription.Shard`); skupna
+ * preslikava se med vzporednim delom ne spreminja. Deleže po koncu
+ * združimo v vrstnem redu funkcij.
+ *
+ * Če katero od opravil naleti na napako, vzporedno preverjanje opustimo
+ * in tipe preverimo zaporedno, zato je sporočena napaka vedno enaka kot
+ * pri zaporednem preverjanju.
+ */
+class ParallelTypeChecker {
+    /**
+     * Število funkcij na najvišjem nivoju, nad katerim `TypeChecker`
+     * uporabi vzporedno preverjanje.
+     */
+    static final int THRESHOLD = 1 << 8;
+
+    /**
+     * Najmanjše število funkcij, ki jih preveri posamezno opravilo.
+     */
+    private static final int MIN_TASK_SIZE = 1 << 4;
+
+    private final TypeChecker checker;
+    private final Defs defs;
+    private final int taskSize;
+
+    ParallelTypeChecker(TypeChecker checker, Defs defs) {
+        this(checker, defs, Math.max(MIN_TASK_SIZE,
+                defs.definitions.size() / (4 * ForkJoinPool.getCommonPoolParallelism()) + 1));
+    }
+
+    ParallelTypeChecker(TypeChecker checker, Defs defs, int taskSize) {
+        requireNonNull(checker, defs);
+        this.checker = checker;
+        this.defs = defs;
+        this.taskSize = Math.max(taskSize, 1);
+    }
+
+    /**
+     * Ali se vzporedno preverjanje definicij `defs` splača: funkcij mora
+     * biti dovolj in na voljo mora biti več niti.
+     */
+    static boolean isWorthwhile(Defs defs) {
+        if (ForkJoinPool.getCommonPoolParallelism() <= 1) {
+            return false;
+        }
+        int functions = 0;
+        for (Def definition : defs.definitions) {
+            if (definition instanceof FunDef) {
+                functions++;
+            }
+        }
+        return functions >= THRESHOLD;
+    }
+
+    /**
+     * Preveri tipe. Vrne `false`, če je prišlo do napake; v tem primeru
+     * so izračunani tipi pozabljeni in mora klicatelj tipe preveriti
+     * zaporedno.
+     */
+    boolean check() {
+        // signatures, type definitions and global variables are shared by all tasks
+        var functions = new ArrayList<FunDef>();
+        try {
+            Report.deferred(() -> {
+                for (Def definition : defs.definitions) {
+                    if (definition instanceof FunDef funDef) {
+                        checker.resolveSignature(funDef);
+                        functions.add(funDef);
+                    }
+                }
+                for (Def definition : defs.definitions) {
+                    if (!(definition instanceof FunDef)) {
+                        definition.accept(checker);
+                    }
+                }
+                return null;
+            });
+        } catch (Report.Failure __) {
+            checker.reset();
+            return false;
+        }
+
+        var tasks = new ArrayList<ForkJoinTask<NodeDescription.Shard<Type>>>();
+        for (int first = 0; first < functions.size(); first += taskSize) {
+            int from = first;
+            int to = Math.min(first + taskSize, functions.size());
+            tasks.add(ForkJoinPool.commonPool().submit(() -> check(functions, from, to)));
+        }
+
+        // join every task before touching the shared types
+        var shards = new ArrayList<NodeDescription.Shard<Type>>(tasks.size());
+        boolean failed = false;
+        for (var task : tasks) {
+            var shard = task.join();
+            failed |= shard == null;
+            shards.add(shard);
+        }
+        if (failed) {
+            checker.reset();
+            return false;
+        }
+        for (var shard : shards) {
+            shard.merge();
+        }
+        return true;
+    }
+
+    // ----------------------------
+
+    /**
+     * Preveri funkcije `[from, to)`. Vrne delež s tipi ali `null` ob napaki.
+     */
+    private NodeDescription.Shard<Type> check(List<FunDef> functions, int from, int to) {
+        var shard = new NodeDescription.Shard<>(checker.types());
+        var worker = new TypeChecker(checker, shard);
+        try {
+            Report.deferred(() -> {
+                for (int i = from; i < to; i++) {
+                    functions.get(i).accept(worker);
+                }
+                return null;
+            });
+            return shard;
+        } catch (Report.Failure __) {
+            return null;
+        }
+    }
+}
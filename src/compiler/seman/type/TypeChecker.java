@@ -16,6 +16,7 @@ import compiler.parser.ast.type.Atom;
 import compiler.parser.ast.type.TypeName;
 import compiler.seman.common.NodeDescription;
 import compiler.seman.type.type.Type;
+import compiler.seman.type.type.TypeTable;
 
 import java.util.*;
 
@@ -33,15 +34,44 @@ public class TypeChecker implements Visitor {
     private NodeDescription<Type> types;
 
     /**
-     * Evidenca obiskanih definicij tipov (da preprečimo cikle)
+     * Tabela enoličnih tipov.
      */
-    private Hashtable<TypeDef, Boolean> visitedTypeDefs;
+    private final TypeTable typeTable;
+
+    /**
+     * Stanje razreševanja definicij tipov. Definicija, ki je v preslikavi
+     * ni, še ni bila obiskana; razrešen tip definicije je shranjen v `types`.
+     */
+    private final HashMap<TypeDef, Resolution> typeDefResolutions;
+
+    /**
+     * Ali je naslednji obiskani `Defs` koren drevesa (vzporedno
+     * preverjamo le funkcije na najvišjem nivoju).
+     */
+    private boolean root = true;
 
     public TypeChecker(NodeDescription<Def> definitions, NodeDescription<Type> types) {
-        requireNonNull(definitions, types);
+        this(definitions, types, new TypeTable());
+    }
+
+    public TypeChecker(NodeDescription<Def> definitions, NodeDescription<Type> types, TypeTable typeTable) {
+        requireNonNull(definitions, types, typeTable);
         this.definitions = definitions;
         this.types = types;
-        this.visitedTypeDefs = new Hashtable<>();
+        this.typeTable = typeTable;
+        this.typeDefResolutions = new HashMap<>();
+    }
+
+    /**
+     * Ustvari preverjalnik za eno opravilo vzporednega preverjanja, ki
+     * tipe shranjuje v `shard`.
+     */
+    TypeChecker(TypeChecker parent, NodeDescription.Shard<Type> shard) {
+        this.definitions = parent.definitions;
+        this.types = shard;
+        this.typeTable = parent.typeTable;
+        this.typeDefResolutions = new HashMap<>(parent.typeDefResolutions);
+        this.root = false;
     }
 
     @Override
@@ -56,11 +86,12 @@ public class TypeChecker implements Visitor {
         for (Expr argument : call.arguments)
             argument.accept(this);
 
-        Optional<Type> argumentType;
+        Type argumentType;
         List<Type> argumentTypes = new ArrayList<>();
         for (Expr argument : call.arguments) {
-            argumentType = types.valueFor(argument);
-            argumentType.ifPresent(argumentTypes::add);
+            argumentType = types.get(argument);
+            if (argumentType != null)
+                argumentTypes.add(argumentType);
         }
 
         // Getting function definition
@@ -68,12 +99,8 @@ public class TypeChecker implements Visitor {
         if (funDef.isEmpty())
             return;
 
-        // Getting function return type
+        // Getting function type (resolved by the signature pre-pass in visit(Defs))
         Optional<Type> funType = types.valueFor(funDef.get());
-        if (funType.isEmpty()) {
-            funDef.get().accept(this);
-            call.accept(this);
-        }
 
         // function type (arg1_typ, arg2_typ...) -> return_typ
         if (funType.isPresent()) {
@@ -96,67 +123,67 @@ public class TypeChecker implements Visitor {
         binary.right.accept(this);
 
         // Getting types of left and right part of binary expression
-        Optional<Type> leftExprType = types.valueFor(binary.left);
-        Optional<Type> rightExprType = types.valueFor(binary.right);
+        Type leftExprType = types.get(binary.left);
+        Type rightExprType = types.get(binary.right);
 
-        if (leftExprType.isEmpty() || rightExprType.isEmpty())
+        if (leftExprType == null || rightExprType == null)
             return;
 
         if (binary.operator.isAndOr()) {
             // Left expression must be LOG
-            if (!leftExprType.get().isLog())
-                Report.error(binary.left.position, "PINS error: invalid type - expected 'log', got '" + leftExprType.get() + "'");
+            if (!leftExprType.isLog())
+                Report.error(binary.left.position, "PINS error: invalid type - expected 'log', got '" + leftExprType + "'");
 
             // Right expression must be LOG
-            if (!rightExprType.get().isLog())
-                Report.error(binary.left.position, "PINS error: invalid type - expected 'log', got '" + rightExprType.get() + "'");
+            if (!rightExprType.isLog())
+                Report.error(binary.left.position, "PINS error: invalid type - expected 'log', got '" + rightExprType + "'");
 
-            types.store(new Type.Atom(Type.Atom.Kind.LOG), binary);
+            types.store(typeTable.atom(Type.Atom.Kind.LOG), binary);
 
         } else if (binary.operator.isArithmetic()) {
             // Left expression must be INT
-            if (!leftExprType.get().isInt())
-                Report.error(binary.left.position, "PINS error: invalid type - expected 'int', got " + leftExprType.get() + "'");
+            if (!leftExprType.isInt())
+                Report.error(binary.left.position, "PINS error: invalid type - expected 'int', got " + leftExprType + "'");
 
             // Right expression must be INT
-            if (!rightExprType.get().isInt())
-                Report.error(binary.left.position, "PINS error: invalid type - expected 'int', got " + rightExprType.get() + "'");
+            if (!rightExprType.isInt())
+                Report.error(binary.left.position, "PINS error: invalid type - expected 'int', got " + rightExprType + "'");
 
-            types.store(new Type.Atom(Type.Atom.Kind.INT), binary);
+            types.store(typeTable.atom(Type.Atom.Kind.INT), binary);
 
         } else if (binary.operator.isComparison()) {
             // We make sure that left and right part are same type
-            if (!leftExprType.get().equals(rightExprType.get()))
-                Report.error(binary.position, "PINS error: operator " + binary.operator + " cannot be applied to '" + leftExprType.get() + "', '" + rightExprType.get() + "'");
+            if (!leftExprType.equals(rightExprType))
+                Report.error(binary.position, "PINS error: operator " + binary.operator + " cannot be applied to '" + leftExprType + "', '" + rightExprType + "'");
 
             // We make sure that type is LOG or INT
-            if (!leftExprType.get().isInt() && !leftExprType.get().isLog())
-                Report.error(binary.position, "PINS error: operator " + binary.operator + " cannot be applied to '" + leftExprType.get() + "', '" + rightExprType.get() + "'");
+            if (!leftExprType.isInt() && !leftExprType.isLog())
+                Report.error(binary.position, "PINS error: operator " + binary.operator + " cannot be applied to '" + leftExprType + "', '" + rightExprType + "'");
 
-            types.store(new Type.Atom(Type.Atom.Kind.LOG), binary);
+            types.store(typeTable.atom(Type.Atom.Kind.LOG), binary);
 
         } else if (binary.operator.equals(Binary.Operator.ARR)) {
             // Left expression must be ARR
-            if (!leftExprType.get().isArray())
-                Report.error(binary.left.position, "PINS error: invalid type - expected 'arr', got '" + rightExprType.get() + "'");
+            if (!leftExprType.isArray())
+                Report.error(binary.left.position, "PINS error: invalid type - expected 'arr', got '" + rightExprType + "'");
 
             // Right expression must be INT
-            if (!rightExprType.get().isInt())
-                Report.error(binary.left.position, "PINS error: invalid type - expected 'int', got '" + rightExprType.get() + "'");
+            if (!rightExprType.isInt())
+                Report.error(binary.left.position, "PINS error: invalid type - expected 'int', got '" + rightExprType + "'");
 
-            Optional<Type.Array> arrType = leftExprType.get().asArray();
+            Optional<Type.Array> arrType = leftExprType.asArray();
             arrType.ifPresent(array -> types.store(array.type, binary));
 
         } else if (binary.operator.equals(Binary.Operator.ASSIGN)) {
             // Left and right expression must be ATOM
-            if (!leftExprType.get().isAtom() || !rightExprType.get().isAtom())
+            if (!leftExprType.isAtom() || !rightExprType.isAtom())
                 Report.error(binary.left.position, "PINS error: type must be ATOM");
 
             // Left and right expression must be the same type
-            if (!leftExprType.get().equals(rightExprType.get()))
-                Report.error(binary.left.position, "PINS error: invalid type - expected '" + leftExprType.get() + "', got '" + rightExprType.get() + "'");
+            if (!leftExprType.equals(rightExprType))
+                Report.error(binary.left.position, "PINS error: invalid type - expected '" + leftExprType + "', got '" + rightExprType + "'");
 
-            types.store(leftExprType.get(), binary);
+            types.store(leftExprType, binary);
         }
     }
 
@@ -168,8 +195,9 @@ public class TypeChecker implements Visitor {
 
         // Last expression determines type of the block
         Expr lastExpr = block.expressions.get(block.expressions.size() - 1);
-        Optional<Type> lastExprType = types.valueFor(lastExpr);
-        lastExprType.ifPresent(type -> types.store(type, block));
+        Type lastExprType = types.get(lastExpr);
+        if (lastExprType != null)
+            types.store(lastExprType, block);
     }
 
     @Override
@@ -201,20 +229,22 @@ public class TypeChecker implements Visitor {
         if (!stepType.get().isInt())
             Report.error(forLoop.step.position, "PINS error: invalid type - expected 'int', got '" + stepType.get() + "'");
 
-        types.store(new Type.Atom(Type.Atom.Kind.VOID), forLoop);
+        types.store(typeTable.atom(Type.Atom.Kind.VOID), forLoop);
     }
 
     @Override
     public void visit(Name name) {
         // Getting definition for name
-        Optional<Def> definition = definitions.valueFor(name);
-        if (definition.isEmpty())
+        Def definition = definitions.get(name);
+        if (definition == null)
             return;
 
-        // Linking type and name
-        definition.get().accept(this);
-        Optional<Type> type = types.valueFor(definition.get());
-        type.ifPresent(value -> types.store(value, name));
+        // Linking type and name (a definition that already has a type is not revisited)
+        if (types.get(definition) == null)
+            definition.accept(this);
+        Type type = types.get(definition);
+        if (type != null)
+            types.store(type, name);
     }
 
     @Override
@@ -233,18 +263,18 @@ public class TypeChecker implements Visitor {
             Report.error(ifThenElse.condition.position, "PINS error: invalid type - expected 'log', got '" + conditionType.get() + "'");
 
         // Storing type of if then else statement
-        types.store(new Type.Atom(Type.Atom.Kind.VOID), ifThenElse);
+        types.store(typeTable.atom(Type.Atom.Kind.VOID), ifThenElse);
     }
 
     @Override
     public void visit(Literal literal) {
         // Storing type of literals
         if (literal.type == Atom.Type.INT)
-            types.store(new Type.Atom(Type.Atom.Kind.INT), literal);
+            types.store(typeTable.atom(Type.Atom.Kind.INT), literal);
         else if (literal.type == Atom.Type.LOG)
-            types.store(new Type.Atom(Type.Atom.Kind.LOG), literal);
+            types.store(typeTable.atom(Type.Atom.Kind.LOG), literal);
         else if (literal.type == Atom.Type.STR)
-            types.store(new Type.Atom(Type.Atom.Kind.STR), literal);
+            types.store(typeTable.atom(Type.Atom.Kind.STR), literal);
         else
             Report.error(literal.position, "PINS error: invalid data type");
     }
@@ -291,7 +321,7 @@ public class TypeChecker implements Visitor {
         if (!conditionType.get().isLog())
             Report.error(whileLoop.condition.position, "PINS error: invalid type - expected 'log', got '" + conditionType.get() + "'");
 
-        types.store(new Type.Atom(Type.Atom.Kind.VOID), whileLoop);
+        types.store(typeTable.atom(Type.Atom.Kind.VOID), whileLoop);
     }
 
     @Override
@@ -301,12 +331,25 @@ public class TypeChecker implements Visitor {
         where.expr.accept(this);
 
         // Type of expression determines type od WHERE block
-        Optional<Type> exprType = types.valueFor(where.expr);
-        exprType.ifPresent(type -> types.store(type, where));
+        Type exprType = types.get(where.expr);
+        if (exprType != null)
+            types.store(exprType, where);
     }
 
     @Override
     public void visit(Defs defs) {
+        // Top-level functions are checked in parallel when it pays off
+        if (root) {
+            root = false;
+            if (ParallelTypeChecker.isWorthwhile(defs) && new ParallelTypeChecker(this, defs).check())
+                return;
+        }
+
+        // Signatures first, so that calls (also forward calls) find the function type
+        for (Def definition : defs.definitions)
+            if (definition instanceof FunDef funDef)
+                resolveSignature(funDef);
+
         // Visiting all definitions
         for (Def definition : defs.definitions)
             definition.accept(this);
@@ -314,22 +357,8 @@ public class TypeChecker implements Visitor {
 
     @Override
     public void visit(FunDef funDef) {
-        // Visiting all parameters
-        for (Parameter parameter : funDef.parameters)
-            parameter.accept(this);
-
-        // Getting types of parameters
-        Optional<Type> paramterType;
-        List<Type> parameters = new ArrayList<>();
-        for (Parameter parameter : funDef.parameters) {
-            paramterType = types.valueFor(parameter);
-            paramterType.ifPresent(parameters::add);
-        }
-
-        // Getting function return type
-        funDef.type.accept(this);
+        resolveSignature(funDef);
         Optional<Type> returnType = types.valueFor(funDef.type);
-        returnType.ifPresent(type -> types.store(new Type.Function(parameters, type), funDef));
 
         // Getting function body type
         funDef.body.accept(this);
@@ -343,17 +372,22 @@ public class TypeChecker implements Visitor {
 
     @Override
     public void visit(TypeDef typeDef) {
-        // Cycle detection (if we come across visited type twice, then it's a cycle)
-        if (visitedTypeDefs.get(typeDef) != null && visitedTypeDefs.get(typeDef))
+        // Each type definition is resolved only once
+        Resolution resolution = typeDefResolutions.get(typeDef);
+        if (resolution == Resolution.RESOLVED)
+            return;
+
+        // Cycle detection (if we come across a type that is being resolved, then it's a cycle)
+        if (resolution == Resolution.IN_PROGRESS)
             Report.error(typeDef.position, "PINS error: cycle detected between types");
 
-        visitedTypeDefs.put(typeDef, true);
+        typeDefResolutions.put(typeDef, Resolution.IN_PROGRESS);
 
         typeDef.type.accept(this);
         Optional<Type> type = types.valueFor(typeDef.type);
         type.ifPresent(value -> types.store(value, typeDef));
 
-        visitedTypeDefs.put(typeDef, false);
+        typeDefResolutions.put(typeDef, Resolution.RESOLVED);
     }
 
     @Override
@@ -361,8 +395,9 @@ public class TypeChecker implements Visitor {
         // Getting and storing type of variable definition
         varDef.type.accept(this);
 
-        Optional<Type> type = types.valueFor(varDef.type);
-        type.ifPresent(value -> types.store(value, varDef));
+        Type type = types.get(varDef.type);
+        if (type != null)
+            types.store(type, varDef);
     }
 
     @Override
@@ -370,12 +405,17 @@ public class TypeChecker implements Visitor {
         // Getting and storing type of parameter definition
         parameter.type.accept(this);
 
-        Optional<Type> type = types.valueFor(parameter.type);
-        type.ifPresent(value -> types.store(value, parameter));
+        Type type = types.get(parameter.type);
+        if (type != null)
+            types.store(type, parameter);
     }
 
     @Override
     public void visit(Array array) {
+        // Type expressions are resolved once (uses of variables and parameters revisit them)
+        if (types.get(array) != null)
+            return;
+
         // Getting and storing type of array definition
         array.type.accept(this);
 
@@ -388,22 +428,22 @@ public class TypeChecker implements Visitor {
 
         // ARR( ATOM ) - 1d array
         if (arrAtom.isPresent())
-            types.store(new Type.Array(array.size, arrAtom.get()), array);
+            types.store(typeTable.array(array.size, arrAtom.get()), array);
 
             // ARR( ARR ) - nd array
         else if (arrArr.isPresent())
-            types.store(new Type.Array(array.size, arrArr.get()), array);
+            types.store(typeTable.array(array.size, arrArr.get()), array);
     }
 
     @Override
     public void visit(Atom atom) {
         // Storing types
         if (atom.type == Atom.Type.INT)
-            types.store(new Type.Atom(Type.Atom.Kind.INT), atom);
+            types.store(typeTable.atom(Type.Atom.Kind.INT), atom);
         else if (atom.type == Atom.Type.LOG)
-            types.store(new Type.Atom(Type.Atom.Kind.LOG), atom);
+            types.store(typeTable.atom(Type.Atom.Kind.LOG), atom);
         else if (atom.type == Atom.Type.STR)
-            types.store(new Type.Atom(Type.Atom.Kind.STR), atom);
+            types.store(typeTable.atom(Type.Atom.Kind.STR), atom);
         else
             Report.error(atom.position, "PINS error: invalid data type");
     }
@@ -411,58 +451,99 @@ public class TypeChecker implements Visitor {
     @Override
     public void visit(TypeName name) {
         // Getting and storing type of typeName definition
-        Optional<Def> definition = definitions.valueFor(name);
-        if (definition.isEmpty())
+        Def definition = definitions.get(name);
+        if (definition == null)
             return;
 
-        definition.get().accept(this);
-        Optional<Type> type = types.valueFor(definition.get());
-        type.ifPresent(value -> types.store(value, name));
+        definition.accept(this);
+        Type type = types.get(definition);
+        if (type != null)
+            types.store(type, name);
     }
 
     /*AUXILIARY METHODS*/
+
+    /**
+     * Opis vozlišč s podatkovnimi tipi.
+     */
+    NodeDescription<Type> types() {
+        return types;
+    }
+
+    /**
+     * Pozabi vse izračunane tipe (pred ponovnim zaporednim preverjanjem).
+     */
+    void reset() {
+        types.clear();
+        typeDefResolutions.clear();
+    }
+
+    void resolveSignature(FunDef funDef) {
+        // Signature is resolved only once
+        if (types.get(funDef) != null)
+            return;
+
+        // Visiting all parameters
+        for (Parameter parameter : funDef.parameters)
+            parameter.accept(this);
+
+        // Getting types of parameters
+        Optional<Type> paramterType;
+        List<Type> parameters = new ArrayList<>();
+        for (Parameter parameter : funDef.parameters) {
+            paramterType = types.valueFor(parameter);
+            paramterType.ifPresent(parameters::add);
+        }
+
+        // Getting function return type
+        funDef.type.accept(this);
+        Optional<Type> returnType = types.valueFor(funDef.type);
+        returnType.ifPresent(type -> types.store(typeTable.function(parameters, type), funDef));
+    }
+
     private void handelStdLibrary(Call call) {
         for (Expr argument : call.arguments)
             argument.accept(this);
 
-        Optional<Type> argumentType;
+        Type argumentType;
         List<Type> argumentTypes = new ArrayList<>();
         for (Expr argument : call.arguments) {
-            argumentType = types.valueFor(argument);
-            argumentType.ifPresent(argumentTypes::add);
+            argumentType = types.get(argument);
+            if (argumentType != null)
+                argumentTypes.add(argumentType);
         }
 
         List<Type> parameters = new ArrayList<>();
         if (call.name.equals("print_str")) { // (str) -> str
-            parameters.add(new Type.Atom(Type.Atom.Kind.STR));
+            parameters.add(typeTable.atom(Type.Atom.Kind.STR));
             handleWrongNumberOfArguments(call, parameters);
-            handleWrongArgumentTypes(new Type.Function(parameters, new Type.Atom(Type.Atom.Kind.STR)), call);
-            types.store(new Type.Atom(Type.Atom.Kind.STR), call);
+            handleWrongArgumentTypes(typeTable.function(parameters, typeTable.atom(Type.Atom.Kind.STR)), call);
+            types.store(typeTable.atom(Type.Atom.Kind.STR), call);
 
         } else if (call.name.equals("print_int")) { // (int) -> int
-            parameters.add(new Type.Atom(Type.Atom.Kind.INT));
+            parameters.add(typeTable.atom(Type.Atom.Kind.INT));
             handleWrongNumberOfArguments(call, parameters);
-            handleWrongArgumentTypes(new Type.Function(parameters, new Type.Atom(Type.Atom.Kind.INT)), call);
-            types.store(new Type.Atom(Type.Atom.Kind.INT), call);
+            handleWrongArgumentTypes(typeTable.function(parameters, typeTable.atom(Type.Atom.Kind.INT)), call);
+            types.store(typeTable.atom(Type.Atom.Kind.INT), call);
 
         } else if (call.name.equals("print_log")) { // (log) -> log
-            parameters.add(new Type.Atom(Type.Atom.Kind.LOG));
+            parameters.add(typeTable.atom(Type.Atom.Kind.LOG));
             handleWrongNumberOfArguments(call, parameters);
-            handleWrongArgumentTypes(new Type.Function(parameters, new Type.Atom(Type.Atom.Kind.LOG)), call);
-            types.store(new Type.Atom(Type.Atom.Kind.LOG), call);
+            handleWrongArgumentTypes(typeTable.function(parameters, typeTable.atom(Type.Atom.Kind.LOG)), call);
+            types.store(typeTable.atom(Type.Atom.Kind.LOG), call);
 
         } else if (call.name.equals("rand_int")) { // (int, int) -> int
-            parameters.add(new Type.Atom(Type.Atom.Kind.INT));
-            parameters.add(new Type.Atom(Type.Atom.Kind.INT));
+            parameters.add(typeTable.atom(Type.Atom.Kind.INT));
+            parameters.add(typeTable.atom(Type.Atom.Kind.INT));
             handleWrongNumberOfArguments(call, parameters);
-            handleWrongArgumentTypes(new Type.Function(parameters, new Type.Atom(Type.Atom.Kind.INT)), call);
-            types.store(new Type.Atom(Type.Atom.Kind.INT), call);
+            handleWrongArgumentTypes(typeTable.function(parameters, typeTable.atom(Type.Atom.Kind.INT)), call);
+            types.store(typeTable.atom(Type.Atom.Kind.INT), call);
 
         } else if (call.name.equals("seed")) { // (int) -> int
-            parameters.add(new Type.Atom(Type.Atom.Kind.INT));
+            parameters.add(typeTable.atom(Type.Atom.Kind.INT));
             handleWrongNumberOfArguments(call, parameters);
-            handleWrongArgumentTypes(new Type.Function(parameters, new Type.Atom(Type.Atom.Kind.INT)), call);
-            types.store(new Type.Atom(Type.Atom.Kind.INT), call);
+            handleWrongArgumentTypes(typeTable.function(parameters, typeTable.atom(Type.Atom.Kind.INT)), call);
+            types.store(typeTable.atom(Type.Atom.Kind.INT), call);
         }
     }
 
@@ -495,4 +576,12 @@ public class TypeChecker implements Visitor {
 
         Report.error(call.position, sb.toString());
     }
+
+    /**
+     * Stanje razreševanja definicije tipa (neobiskana definicija nima
+     * stanja).
+     */
+    private enum Resolution {
+        IN_PROGRESS, RESOLVED
+    }
 }
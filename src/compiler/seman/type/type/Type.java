@@ -18,6 +18,15 @@ import compiler.parser.ast.def.FunDef;
 import compiler.parser.ast.expr.Call;
 
 public abstract class Type {
+    /**
+     * Tabela, v kateri je tip enoličen, ali `null` (glej `TypeTable`).
+     */
+    final TypeTable table;
+
+    Type(TypeTable table) {
+        this.table = table;
+    }
+
     /**
      * Vrne velikost tipa v bytih.
      */
@@ -34,7 +43,19 @@ public abstract class Type {
     /**
      * Ali tip strukturno enak drugemu tipu.
      */
-    public abstract boolean equals(Type t);
+    public boolean equals(Type t) {
+        if (this == t)
+            return true;
+        // distinct types from the same table are never equal
+        if (table != null && table == t.table)
+            return false;
+        return structurallyEquals(t);
+    }
+
+    /**
+     * Strukturna primerjava tipov (glej `equals`).
+     */
+    protected abstract boolean structurallyEquals(Type t);
 
     // ------------------------------------
 
@@ -121,6 +142,11 @@ public abstract class Type {
         public final Kind kind;
 
         public Atom(Kind kind) {
+            this(kind, null);
+        }
+
+        Atom(Kind kind, TypeTable table) {
+            super(table);
             requireNonNull(kind);
             this.kind = kind;
         }
@@ -136,7 +162,7 @@ public abstract class Type {
         }
 
         @Override
-        public boolean equals(Type t) {
+        protected boolean structurallyEquals(Type t) {
             if (t.isAtom()) {
                 Optional<Atom> typ = t.asAtom();
                 if (typ.isPresent())
@@ -185,15 +211,26 @@ public abstract class Type {
          */
         public final Type type;
 
+        /**
+         * Velikost tabele v bytih.
+         */
+        private final int sizeInBytes;
+
         public Array(int size, Type type) {
+            this(size, type, null);
+        }
+
+        Array(int size, Type type, TypeTable table) {
+            super(table);
             requireNonNull(type);
             this.size = size;
             this.type = type;
+            this.sizeInBytes = size * type.sizeInBytes();
         }
 
         @Override
         public int sizeInBytes() {
-            return size * type.sizeInBytes();
+            return sizeInBytes;
         }
 
         @Override
@@ -206,7 +243,7 @@ public abstract class Type {
         }
 
         @Override
-        public boolean equals(Type t) {
+        protected boolean structurallyEquals(Type t) {
             if (t.isArray()) {
                 Optional<Array> arr = t.asArray();
                 if (arr.isPresent())
@@ -236,20 +273,31 @@ public abstract class Type {
          */
         public final Type returnType;
 
+        /**
+         * Velikost parametrov v bytih.
+         */
+        private final int sizeInBytes;
+
         public Function(List<Type> parameters, Type returnType) {
+            this(parameters, returnType, null);
+        }
+
+        Function(List<Type> parameters, Type returnType, TypeTable table) {
+            super(table);
             requireNonNull(parameters);
             requireNonNull(returnType);
             this.parameters = parameters;
             this.returnType = returnType;
-        }
 
-        @Override
-        public int sizeInBytes() {
             int size = 0;
             for (Type parameter : parameters)
                 size += parameter.sizeInBytesAsParam();
+            this.sizeInBytes = size;
+        }
 
-            return size;
+        @Override
+        public int sizeInBytes() {
+            return sizeInBytes;
         }
 
         @Override
@@ -259,7 +307,7 @@ public abstract class Type {
         }
 
         @Override
-        public boolean equals(Type t) {
+        protected boolean structurallyEquals(Type t) {
             if (t.isFunction()) {
                 Optional<Function> fun = t.asFunction();
                 if (fun.isPresent()) {
@@ -0,0 +1,87 @@
+/**
+ * @Author: turk
+ * @Description: Tabela enoličnih podatkovnih tipov.
+ */
+
+package compiler.seman.type.type;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tabela, ki strukturno enake tipe predstavi z istim objektom. Tipi iz
+ * iste tabele so enaki natanko tedaj, ko so isti objekt, zato je
+ * primerjava takih tipov (`Type.equals`) primerjava referenc.
+ *
+ * Tabela je namenjena eni analizi programa in je varna za sočasno
+ * uporabo (vzporedno preverjanje tipov).
+ */
+public class TypeTable {
+    private final Type.Atom[] atoms;
+
+    /**
+     * Ker so tipi elementov in parametrov že enolični, ključi primerjajo
+     * tipe po referenci.
+     */
+    private final ConcurrentHashMap<ArrayKey, Type.Array> arrays = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<FunctionKey, Type.Function> functions = new ConcurrentHashMap<>();
+
+    public TypeTable() {
+        var kinds = Type.Atom.Kind.values();
+        atoms = new Type.Atom[kinds.length];
+        for (var kind : kinds) {
+            atoms[kind.ordinal()] = new Type.Atom(kind, this);
+        }
+    }
+
+    /**
+     * Vrne atomarni tip vrste `kind`.
+     */
+    public Type.Atom atom(Type.Atom.Kind kind) {
+        return atoms[kind.ordinal()];
+    }
+
+    /**
+     * Vrne tip tabele `size` elementov tipa `type`.
+     */
+    public Type.Array array(int size, Type type) {
+        requireNonNull(type);
+        var element = intern(type);
+        return arrays.computeIfAbsent(new ArrayKey(size, element), key -> new Type.Array(size, element, this));
+    }
+
+    /**
+     * Vrne tip funkcije s parametri `parameters`, ki vrača `returnType`.
+     */
+    public Type.Function function(List<Type> parameters, Type returnType) {
+        requireNonNull(parameters, returnType);
+        var internedParameters = parameters.stream().map(this::intern).toList();
+        var internedReturnType = intern(returnType);
+        return functions.computeIfAbsent(
+                new FunctionKey(internedParameters, internedReturnType),
+                key -> new Type.Function(internedParameters, internedReturnType, this));
+    }
+
+    /**
+     * Vrne enolični tip, strukturno enak tipu `type`.
+     */
+    public Type intern(Type type) {
+        if (type.table == this) {
+            return type;
+        }
+        if (type instanceof Type.Atom atom) {
+            return atom(atom.kind);
+        } else if (type instanceof Type.Array array) {
+            return array(array.size, array.type);
+        } else if (type instanceof Type.Function function) {
+            return function(function.parameters, function.returnType);
+        }
+        throw new IllegalArgumentException("Unknown type " + type);
+    }
+
+    private record ArrayKey(int size, Type element) {}
+
+    private record FunctionKey(List<Type> parameters, Type returnType) {}
+}